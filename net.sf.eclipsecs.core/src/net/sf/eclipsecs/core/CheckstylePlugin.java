@@ -24,6 +24,10 @@ import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import net.sf.eclipsecs.core.builder.AuditResultCache;
+import net.sf.eclipsecs.core.builder.CheckerFactory;
+import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
+import net.sf.eclipsecs.core.projectconfig.filters.SourcePathIndex;
 import net.sf.eclipsecs.core.util.CheckstyleLog;
 import net.sf.eclipsecs.core.util.EclipseLogHandler;
 import net.sf.eclipsecs.core.util.ExtensionClassLoader;
@@ -79,6 +83,18 @@ public class CheckstylePlugin extends Plugin {
     }
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void stop(BundleContext context) throws Exception {
+    ProjectConfigurationFactory.dispose();
+    CheckerFactory.dispose();
+    SourcePathIndex.dispose();
+    AuditResultCache.dispose();
+    super.stop(context);
+  }
+
   /**
    * Returns the shared instance.
    *
@@ -63,9 +63,78 @@ public class CheckstylePluginPrefs extends AbstractPreferenceInitializer {
    */
   public static final String PREF_BACKGROUND_FULL_BUILD = "background.full.build"; //$NON-NLS-1$
 
+  /**
+   * Preference name for the number of worker threads used to audit the files of a single check
+   * configuration. A value of <code>1</code> runs the audit serially.
+   */
+  public static final String PREF_AUDIT_THREADS = "audit.threads"; //$NON-NLS-1$
+
+  /**
+   * Preference name indicating if audit results are cached, so that unchanged files need not be
+   * audited again.
+   */
+  public static final String PREF_CACHE_AUDIT_RESULTS = "cache.audit.results"; //$NON-NLS-1$
+
+  /**
+   * Preference name indicating if changed large files are audited incrementally, running line based
+   * checks only on the lines changed since the cached audit.
+   */
+  public static final String PREF_INCREMENTAL_AUDIT = "incremental.audit"; //$NON-NLS-1$
+
+  /**
+   * Preference name for the number of markers which are buffered before they are created in a
+   * single workspace operation.
+   */
+  public static final String PREF_MARKER_FLUSH_SIZE = "marker.flush.size"; //$NON-NLS-1$
+
+  /**
+   * Preference name indicating if the markers of an audited file are reconciled with its existing
+   * markers instead of being deleted and recreated.
+   */
+  public static final String PREF_RECONCILE_MARKERS = "reconcile.markers"; //$NON-NLS-1$
+
+  /**
+   * Preference name for the maximum number of idle checkers kept per project and check
+   * configuration.
+   */
+  public static final String PREF_CHECKER_POOL_SIZE = "checker.pool.size"; //$NON-NLS-1$
+
+  /**
+   * Preference name for the number of seconds a resolved check configuration is used before it is
+   * revalidated against its source.
+   */
+  public static final String PREF_CONFIG_REVALIDATION_INTERVAL = "config.revalidation.interval"; //$NON-NLS-1$
+
+  /**
+   * Preference name for the number of seconds a resolved remote check configuration is used before
+   * it is revalidated against its server.
+   */
+  public static final String PREF_REMOTE_CONFIG_REVALIDATION_INTERVAL = "remote.config.revalidation.interval"; //$NON-NLS-1$
+
+  /**
+   * Preference name indicating if the checkers of Checkstyle enabled projects are created in the
+   * background after startup.
+   */
+  public static final String PREF_PREWARM_CHECKERS = "prewarm.checkers"; //$NON-NLS-1$
+
   /** Default value for the marker limitation. */
   public static final int MARKER_LIMIT = 100;
 
+  /** Default value for the number of audit worker threads. */
+  public static final int AUDIT_THREADS = 1;
+
+  /** Default value for the number of buffered markers. */
+  public static final int MARKER_FLUSH_SIZE = 1000;
+
+  /** Default value for the number of idle checkers per pool. */
+  public static final int CHECKER_POOL_SIZE = 2;
+
+  /** Default value for the configuration revalidation interval in seconds. */
+  public static final int CONFIG_REVALIDATION_INTERVAL = 10;
+
+  /** Default value for the remote configuration revalidation interval in seconds. */
+  public static final int REMOTE_CONFIG_REVALIDATION_INTERVAL = 3600;
+
   /**
    * {@inheritDoc}
    */
@@ -78,6 +147,15 @@ public class CheckstylePluginPrefs extends AbstractPreferenceInitializer {
     prefs.putBoolean(PREF_LIMIT_MARKERS_PER_RESOURCE, false);
     prefs.putInt(PREF_MARKER_AMOUNT_LIMIT, MARKER_LIMIT);
     prefs.putBoolean(PREF_BACKGROUND_FULL_BUILD, false);
+    prefs.putInt(PREF_AUDIT_THREADS, AUDIT_THREADS);
+    prefs.putBoolean(PREF_CACHE_AUDIT_RESULTS, true);
+    prefs.putBoolean(PREF_INCREMENTAL_AUDIT, false);
+    prefs.putInt(PREF_MARKER_FLUSH_SIZE, MARKER_FLUSH_SIZE);
+    prefs.putBoolean(PREF_RECONCILE_MARKERS, true);
+    prefs.putInt(PREF_CHECKER_POOL_SIZE, CHECKER_POOL_SIZE);
+    prefs.putInt(PREF_CONFIG_REVALIDATION_INTERVAL, CONFIG_REVALIDATION_INTERVAL);
+    prefs.putInt(PREF_REMOTE_CONFIG_REVALIDATION_INTERVAL, REMOTE_CONFIG_REVALIDATION_INTERVAL);
+    prefs.putBoolean(PREF_PREWARM_CHECKERS, true);
 
     try {
       prefs.flush();
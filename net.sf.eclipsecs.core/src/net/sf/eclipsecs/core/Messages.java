@@ -50,6 +50,8 @@ public final class Messages extends NLS {
 
   public static String AuditorJob_msgBuildProject;
 
+  public static String BuildFileSetsJob_title;
+
   public static String BuildProjectJob_msgBuildAllProjects;
 
   public static String BuildProjectJob_msgBuildProject;
@@ -64,6 +66,10 @@ public final class Messages extends NLS {
 
   public static String SimpleFileSetsEditor_nameAllFileset;
 
+  public static String PrewarmCheckersJob_msgFinished;
+
+  public static String PrewarmCheckersJob_title;
+
   public static String ProjectConfigurationType_msgFileNotFound;
 
   public static String errorEmptyPattern;
@@ -0,0 +1,916 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.builder;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.eclipsecs.core.CheckstylePlugin;
+import net.sf.eclipsecs.core.CheckstylePluginPrefs;
+import net.sf.eclipsecs.core.config.CheckstyleConfigurationFile;
+import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.util.CheckstyleLog;
+import net.sf.eclipsecs.core.util.CheckstylePluginException;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Persistent cache of audit results. For every audited file the cache stores the hash of the file
+ * content together with the attributes of the markers created for it. The cache is kept per
+ * project and check configuration in the plugin state location and is discarded as a whole if the
+ * base fingerprint of the resolved check configuration changes.
+ *
+ * <p>
+ * Once loaded, the results stay in memory between audits. They are written to disk after full
+ * builds, when the project is closed and when the plugin is stopped, so audits of single saved
+ * files cost no I/O proportional to the size of the project. The results of deleted files are
+ * dropped as the builder reports their deletion.
+ * </p>
+ *
+ * <p>
+ * The checks of the configuration are fingerprinted one by one. If checks are only added, changed
+ * or removed, the cached markers of the other checks stay valid and only the added and changed
+ * checks need to be run on unchanged files.
+ * </p>
+ *
+ * <p>
+ * The fingerprints include the contents of the files referenced by the modules, like suppression
+ * or import control files. Configurations containing checks which look at several files at once,
+ * like the translation check, are not cached at all.
+ * </p>
+ *
+ * <p>
+ * If incremental audits are enabled the cache additionally stores the line hashes of large files,
+ * which allow to find the lines changed since the last audit.
+ * </p>
+ */
+public final class AuditResultCache {
+
+  /** Version of the cache file format, must be increased on incompatible changes. */
+  private static final int FORMAT_VERSION = 5;
+
+  /** Name of the folder inside the plugin state location holding the cache files. */
+  private static final String CACHE_FOLDER = "auditcache"; //$NON-NLS-1$
+
+  /** Type tag for integer marker attributes. */
+  private static final byte TYPE_INTEGER = 0;
+
+  /** Type tag for string marker attributes. */
+  private static final byte TYPE_STRING = 1;
+
+  /** The minimum number of lines of a file to store its line hashes for. */
+  private static final int MIN_LINES_FOR_LINE_HASHES = 1000;
+
+  /** Guards the access to the cache files and the results kept in memory. */
+  private static final Object LOCK = new Object();
+
+  /** The results kept in memory, keyed by the cache file. Results in use by an audit are absent. */
+  private static final Map<File, CachedResults> RESULTS = new HashMap<>();
+
+  /** Incremented whenever cached results are cleared, to drop results in use at that time. */
+  private static long sGeneration;
+
+  private static IResourceChangeListener sProjectListener;
+
+  /** The file the cache is persisted to. */
+  private final File mCacheFile;
+
+  /** The cached results. */
+  private final CachedResults mResults;
+
+  /** The generation of the cached results at the time they were taken for the current audit. */
+  private final long mGeneration;
+
+  /** The current fingerprints of the checks, by marker module name. */
+  private final Map<String, String> mModuleFingerprints;
+
+  /** The module fingerprints of the configuration, <code>null</code> if not available. */
+  private final ModuleFingerprints mModules;
+
+  /** The checks added or changed since the results were cached. */
+  private final Set<String> mChangedModules;
+
+  /** The checks whose cached markers are outdated, i.e. the changed and removed checks. */
+  private final Set<String> mOutdatedModules;
+
+  /** The locations of the files whose results were stored or removed during the current audit. */
+  private final Set<String> mUpdatedLocations = new HashSet<>();
+
+  /** The content hashes computed during the current audit, keyed by the file location. */
+  private final Map<String, String> mContentHashes = new HashMap<>();
+
+  /** The lines read during the current audit, keyed by the file location. */
+  private final Map<String, FileLines> mFileLines = new HashMap<>();
+
+  /** The charset of the project, <code>null</code> if no line hashes are stored. */
+  private final String mCharset;
+
+  private AuditResultCache(File cacheFile, CachedResults results, long generation,
+          ModuleFingerprints modules, Map<String, String> moduleFingerprints, String charset) {
+    mCacheFile = cacheFile;
+    mResults = results;
+    mGeneration = generation;
+    mModules = modules;
+    mModuleFingerprints = moduleFingerprints;
+    mCharset = charset;
+
+    // without cached entries there is nothing outdated
+    Map<String, String> cachedModuleFingerprints = results.mEntries.isEmpty()
+            ? moduleFingerprints
+            : results.mModuleFingerprints;
+
+    mChangedModules = new HashSet<>();
+    for (Map.Entry<String, String> module : mModuleFingerprints.entrySet()) {
+      if (!module.getValue().equals(cachedModuleFingerprints.get(module.getKey()))) {
+        mChangedModules.add(module.getKey());
+      }
+    }
+    mOutdatedModules = new HashSet<>(mChangedModules);
+    for (String moduleName : cachedModuleFingerprints.keySet()) {
+      if (!mModuleFingerprints.containsKey(moduleName)) {
+        mOutdatedModules.add(moduleName);
+      }
+    }
+  }
+
+  /**
+   * Loads the audit result cache for the given project and check configuration.
+   *
+   * @param project
+   *          the audited project
+   * @param config
+   *          the check configuration
+   * @return the audit result cache, empty if no valid cache exists, <code>null</code> if the
+   *         results of the check configuration cannot be cached
+   * @throws CheckstylePluginException
+   *           error resolving the check configuration
+   */
+  static AuditResultCache load(IProject project, ICheckConfiguration config)
+          throws CheckstylePluginException {
+
+    ModuleFingerprints modules = null;
+    try {
+      modules = ModuleFingerprints.get(config, project);
+    } catch (CheckstyleException e) {
+      // the audit reports the problem
+      return null;
+    }
+
+    // the results of these checks cannot be replayed file by file, changes of remote files go
+    // unnoticed
+    if (modules.hasCrossFileChecks() || modules.hasRemoteReferences()) {
+      return null;
+    }
+
+    Map<String, String> moduleFingerprints = modules.getModuleFingerprints();
+    String fingerprint = getFingerprint(project, config, modules.getBaseFingerprint());
+
+    File cacheFile = new File(getProjectCacheFolder(project),
+            hash((config.getName() + "#" + (config.isGlobal() ? "Global" : "Local")) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    .getBytes(StandardCharsets.UTF_8)));
+
+    CachedResults results = null;
+    long generation;
+    synchronized (LOCK) {
+      generation = sGeneration;
+
+      // the results are taken while the audit runs, a concurrent audit reads them from disk
+      results = RESULTS.remove(cacheFile);
+      if (results == null || !fingerprint.equals(results.mFingerprint)) {
+        results = read(cacheFile, fingerprint);
+      }
+    }
+    listenForChanges();
+
+    String charset = null;
+    if (CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_INCREMENTAL_AUDIT)) {
+      try {
+        charset = project.getDefaultCharset();
+      } catch (CoreException e) {
+        CheckstylePluginException.rethrow(e);
+      }
+    }
+
+    return new AuditResultCache(cacheFile, results, generation, modules, moduleFingerprints,
+            charset);
+  }
+
+  /**
+   * Removes the cached audit results of the given project.
+   *
+   * @param project
+   *          the project
+   */
+  static void clear(IProject project) {
+    synchronized (LOCK) {
+      sGeneration++;
+      removeResults(project, false);
+      deleteRecursively(getProjectCacheFolder(project));
+    }
+  }
+
+  /**
+   * Removes all cached audit results.
+   */
+  static void clearAll() {
+    synchronized (LOCK) {
+      sGeneration++;
+      RESULTS.clear();
+      deleteRecursively(getCacheFolder());
+    }
+  }
+
+  /**
+   * Removes the cached results of deleted files or folders of a project.
+   *
+   * @param project
+   *          the project
+   * @param locations
+   *          the locations of the deleted files and folders
+   */
+  static void removeFiles(IProject project, Collection<String> locations) {
+
+    File projectFolder = getProjectCacheFolder(project);
+
+    synchronized (LOCK) {
+      for (Map.Entry<File, CachedResults> results : RESULTS.entrySet()) {
+        if (!projectFolder.equals(results.getKey().getParentFile())) {
+          continue;
+        }
+
+        Iterator<String> it = results.getValue().mEntries.keySet().iterator();
+        while (it.hasNext()) {
+          String location = it.next();
+          for (String removed : locations) {
+            if (location.equals(removed) || location.startsWith(removed + "/")) { //$NON-NLS-1$
+              it.remove();
+              results.getValue().mDirty = true;
+              break;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the results kept in memory to disk and stops listening for closed and deleted
+   * projects.
+   */
+  public static synchronized void dispose() {
+    if (sProjectListener != null) {
+      ResourcesPlugin.getWorkspace().removeResourceChangeListener(sProjectListener);
+      sProjectListener = null;
+    }
+
+    synchronized (LOCK) {
+      for (Map.Entry<File, CachedResults> results : RESULTS.entrySet()) {
+        write(results.getKey(), results.getValue());
+      }
+      RESULTS.clear();
+    }
+  }
+
+  /**
+   * Returns the cached marker attributes for the given file, if the file content did not change
+   * since the results were cached.
+   *
+   * @param location
+   *          the location of the file
+   * @param file
+   *          the file
+   * @return the cached marker attributes or <code>null</code> if there is no valid cache entry
+   */
+  List<Map<String, Object>> getMarkerAttributes(String location, File file) {
+
+    String contentHash = getContentHash(location, file);
+    Entry entry = mResults.mEntries.get(location);
+
+    if (contentHash == null || entry == null || !contentHash.equals(entry.mContentHash)) {
+      return null;
+    }
+    return entry.mMarkerAttributes;
+  }
+
+  /**
+   * Returns if checks have been added, changed or removed since the results were cached. In this
+   * case the cached marker attributes include outdated markers, only the markers returned by
+   * {@link #getUpToDateMarkerAttributes(List)} are valid.
+   *
+   * @return <code>true</code> if the markers of some checks are outdated
+   */
+  boolean hasOutdatedModules() {
+    return !mOutdatedModules.isEmpty();
+  }
+
+  /**
+   * Returns the marker module names of the checks added or changed since the results were cached.
+   * These checks need to be run again on the files whose other results are kept.
+   *
+   * @return the module names
+   */
+  Set<String> getChangedModules() {
+    return mChangedModules;
+  }
+
+  /**
+   * Filters the markers of checks which have been changed or removed since the results were
+   * cached.
+   *
+   * @param markerAttributes
+   *          the cached marker attributes of a file
+   * @return the markers which are still valid
+   */
+  List<Map<String, Object>> getUpToDateMarkerAttributes(
+          List<Map<String, Object>> markerAttributes) {
+
+    List<Map<String, Object>> upToDate = new ArrayList<>();
+    for (Map<String, Object> attributes : markerAttributes) {
+      if (!mOutdatedModules.contains(attributes.get(CheckstyleMarker.MODULE_NAME))) {
+        upToDate.add(attributes);
+      }
+    }
+    return upToDate;
+  }
+
+  /**
+   * Creates a Checkstyle configuration which runs only the checks added or changed since the
+   * results were cached.
+   *
+   * @return the configuration
+   */
+  Configuration createChangedModulesConfiguration() {
+    return mModules.createReducedConfiguration(mChangedModules);
+  }
+
+  /**
+   * Returns the cache entry of the given file regardless of whether the file content changed since
+   * the results were cached.
+   *
+   * @param location
+   *          the location of the file
+   * @return the cache entry or <code>null</code> if the file has not been cached
+   */
+  Entry getEntry(String location) {
+    return mResults.mEntries.get(location);
+  }
+
+  /**
+   * Registers the lines of a file read during the current audit, so they need not be read again
+   * when the results of the file are stored.
+   *
+   * @param location
+   *          the location of the file
+   * @param lines
+   *          the lines of the file
+   */
+  void putFileLines(String location, FileLines lines) {
+    mFileLines.put(location, lines);
+  }
+
+  /**
+   * Stores the marker attributes produced by an audit of the given file.
+   *
+   * @param location
+   *          the location of the file
+   * @param file
+   *          the file
+   * @param markerAttributes
+   *          the attributes of the markers created for the file
+   */
+  void putMarkerAttributes(String location, File file, List<Map<String, Object>> markerAttributes) {
+
+    Map<String, Entry> entries = mResults.mEntries;
+
+    String contentHash = getContentHash(location, file);
+    if (contentHash != null) {
+      FileLines lines = getFileLines(location, file);
+      if (lines != null && lines.getLineCount() >= MIN_LINES_FOR_LINE_HASHES) {
+        entries.put(location, new Entry(contentHash, markerAttributes, lines.getLineHashes(),
+                lines.getLength()));
+      } else {
+        entries.put(location, new Entry(contentHash, markerAttributes, null, 0));
+      }
+    } else {
+      entries.remove(location);
+    }
+    mUpdatedLocations.add(location);
+    mResults.mDirty = true;
+  }
+
+  /**
+   * Removes the cached results of the given file.
+   *
+   * @param location
+   *          the location of the file
+   */
+  void remove(String location) {
+    mUpdatedLocations.add(location);
+    if (mResults.mEntries.remove(location) != null) {
+      mResults.mDirty = true;
+    }
+  }
+
+  /**
+   * Ends the use of the cache by an audit and keeps the results in memory for the next audit. If
+   * checks changed since the results were cached, the entries not updated by the audit are
+   * dropped, since they still hold the markers of the outdated checks.
+   *
+   * @param auditedLocations
+   *          the locations of all files of the check configuration if the audit was part of a full
+   *          build, <code>null</code> otherwise. After a full build the results of other files are
+   *          dropped and the cache is written to disk.
+   */
+  void release(Set<String> auditedLocations) {
+
+    Map<String, Entry> entries = mResults.mEntries;
+
+    if (hasOutdatedModules() && entries.keySet().retainAll(mUpdatedLocations)) {
+      mResults.mDirty = true;
+    }
+    if (auditedLocations != null && entries.keySet().retainAll(auditedLocations)) {
+      mResults.mDirty = true;
+    }
+    if (!mModuleFingerprints.equals(mResults.mModuleFingerprints)) {
+      mResults.mModuleFingerprints = mModuleFingerprints;
+      mResults.mDirty = true;
+    }
+
+    synchronized (LOCK) {
+
+      // the results have been cleared during the audit
+      if (mGeneration != sGeneration) {
+        return;
+      }
+
+      if (auditedLocations != null) {
+        write(mCacheFile, mResults);
+      }
+      RESULTS.put(mCacheFile, mResults);
+    }
+  }
+
+  /**
+   * Reads the cached results from disk.
+   *
+   * @return the cached results, empty if the cache file does not exist or does not match the
+   *         fingerprint
+   */
+  private static CachedResults read(File cacheFile, String fingerprint) {
+
+    Map<String, String> moduleFingerprints = new HashMap<>();
+    Map<String, Entry> entries = new HashMap<>();
+
+    if (cacheFile.isFile()) {
+      try (DataInputStream in = new DataInputStream(
+              new BufferedInputStream(new FileInputStream(cacheFile)))) {
+
+        if (in.readInt() == FORMAT_VERSION && fingerprint.equals(in.readUTF())) {
+          readModuleFingerprints(in, moduleFingerprints);
+          readEntries(in, entries);
+        }
+      } catch (IOException e) {
+        // a broken cache is just discarded
+        moduleFingerprints.clear();
+        entries.clear();
+      }
+    }
+    return new CachedResults(fingerprint, moduleFingerprints, entries);
+  }
+
+  /**
+   * Writes the cached results to disk, if they have been modified since they were read or last
+   * written.
+   */
+  private static void write(File cacheFile, CachedResults results) {
+
+    if (!results.mDirty) {
+      return;
+    }
+
+    cacheFile.getParentFile().mkdirs();
+
+    try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(results.mFingerprint);
+      writeModuleFingerprints(out, results.mModuleFingerprints);
+      writeEntries(out, results.mEntries);
+    } catch (IOException e) {
+      CheckstyleLog.log(e);
+      cacheFile.delete();
+    }
+    results.mDirty = false;
+  }
+
+  /**
+   * Removes the results of a project from memory.
+   *
+   * @param persist
+   *          <code>true</code> to write the results to disk before
+   */
+  private static void removeResults(IProject project, boolean persist) {
+
+    File projectFolder = getProjectCacheFolder(project);
+
+    Iterator<Map.Entry<File, CachedResults>> it = RESULTS.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<File, CachedResults> results = it.next();
+      if (projectFolder.equals(results.getKey().getParentFile())) {
+        if (persist) {
+          write(results.getKey(), results.getValue());
+        }
+        it.remove();
+      }
+    }
+  }
+
+  private static synchronized void listenForChanges() {
+    if (sProjectListener == null) {
+      sProjectListener = new ProjectListener();
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(sProjectListener,
+              IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+    }
+  }
+
+  private FileLines getFileLines(String location, File file) {
+
+    FileLines lines = mFileLines.get(location);
+
+    // every line takes at least one byte, smaller files need not be read
+    if (lines == null && mCharset != null && file.length() >= MIN_LINES_FOR_LINE_HASHES) {
+      try {
+        lines = FileLines.read(file, mCharset);
+      } catch (UnsupportedEncodingException e) {
+        CheckstyleLog.log(e);
+      } catch (IOException e) {
+        // file cannot be read, store no line hashes
+      }
+    }
+    return lines;
+  }
+
+  private String getContentHash(String location, File file) {
+
+    String contentHash = mContentHashes.get(location);
+    if (contentHash == null) {
+      try (InputStream in = new FileInputStream(file)) {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          digest.update(buffer, 0, read);
+        }
+        contentHash = toHex(digest.digest());
+        mContentHashes.put(location, contentHash);
+      } catch (IOException e) {
+        // file cannot be read, don't cache it
+      }
+    }
+    return contentHash;
+  }
+
+  /**
+   * Computes the fingerprint of everything besides the file content which influences the markers
+   * of an audit.
+   */
+  private static String getFingerprint(IProject project, ICheckConfiguration config,
+          String baseFingerprint) throws CheckstylePluginException {
+
+    CheckstyleConfigurationFile configFileData = config.getCheckstyleConfiguration();
+
+    MessageDigest digest = newDigest();
+    update(digest, Checker.class.getPackage().getImplementationVersion());
+    update(digest, String.valueOf(configFileData.getResolvedConfigFileURL()));
+    update(digest, configFileData.getAdditionalPropertiesBundleStream());
+
+    // the resolved configuration includes the values of the properties
+    update(digest, baseFingerprint);
+
+    update(digest, CheckstylePlugin.getPlatformLocale().toString());
+    update(digest, String.valueOf(
+            CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_INCLUDE_RULE_NAMES)));
+    update(digest, String.valueOf(
+            CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_INCLUDE_MODULE_IDS)));
+    update(digest, String.valueOf(CheckstylePluginPrefs
+            .getBoolean(CheckstylePluginPrefs.PREF_LIMIT_MARKERS_PER_RESOURCE)));
+    update(digest, String
+            .valueOf(CheckstylePluginPrefs.getInt(CheckstylePluginPrefs.PREF_MARKER_AMOUNT_LIMIT)));
+
+    try {
+      update(digest, project.getDefaultCharset());
+    } catch (CoreException e) {
+      CheckstylePluginException.rethrow(e);
+    }
+
+    return toHex(digest.digest());
+  }
+
+  private static void readModuleFingerprints(DataInputStream in,
+          Map<String, String> moduleFingerprints) throws IOException {
+
+    int moduleCount = in.readInt();
+    for (int i = 0; i < moduleCount; i++) {
+      moduleFingerprints.put(in.readUTF(), in.readUTF());
+    }
+  }
+
+  private static void writeModuleFingerprints(DataOutputStream out,
+          Map<String, String> moduleFingerprints) throws IOException {
+
+    out.writeInt(moduleFingerprints.size());
+    for (Map.Entry<String, String> module : moduleFingerprints.entrySet()) {
+      out.writeUTF(module.getKey());
+      out.writeUTF(module.getValue());
+    }
+  }
+
+  private static void readEntries(DataInputStream in, Map<String, Entry> entries)
+          throws IOException {
+
+    int entryCount = in.readInt();
+    for (int i = 0; i < entryCount; i++) {
+
+      String location = in.readUTF();
+      String contentHash = in.readUTF();
+
+      int markerCount = in.readInt();
+      List<Map<String, Object>> markers = new ArrayList<>(markerCount);
+      for (int j = 0; j < markerCount; j++) {
+
+        int attributeCount = in.readInt();
+        Map<String, Object> attributes = new HashMap<>();
+        for (int k = 0; k < attributeCount; k++) {
+          String key = in.readUTF();
+          byte type = in.readByte();
+          if (type == TYPE_INTEGER) {
+            attributes.put(key, Integer.valueOf(in.readInt()));
+          } else if (type == TYPE_STRING) {
+            attributes.put(key, in.readUTF());
+          } else {
+            throw new IOException("Unknown attribute type " + type); //$NON-NLS-1$
+          }
+        }
+        markers.add(attributes);
+      }
+
+      long[] lineHashes = null;
+      int contentLength = 0;
+      int lineCount = in.readInt();
+      if (lineCount >= 0) {
+        contentLength = in.readInt();
+        lineHashes = new long[lineCount];
+        for (int j = 0; j < lineCount; j++) {
+          lineHashes[j] = in.readLong();
+        }
+      }
+      entries.put(location, new Entry(contentHash, markers, lineHashes, contentLength));
+    }
+  }
+
+  private static void writeEntries(DataOutputStream out, Map<String, Entry> entries)
+          throws IOException {
+
+    out.writeInt(entries.size());
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+
+      out.writeUTF(entry.getKey());
+      out.writeUTF(entry.getValue().mContentHash);
+
+      List<Map<String, Object>> markers = entry.getValue().mMarkerAttributes;
+      out.writeInt(markers.size());
+      for (Map<String, Object> attributes : markers) {
+
+        out.writeInt(attributes.size());
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+          out.writeUTF(attribute.getKey());
+          if (attribute.getValue() instanceof Integer) {
+            out.writeByte(TYPE_INTEGER);
+            out.writeInt(((Integer) attribute.getValue()).intValue());
+          } else {
+            out.writeByte(TYPE_STRING);
+            out.writeUTF(String.valueOf(attribute.getValue()));
+          }
+        }
+      }
+
+      long[] lineHashes = entry.getValue().mLineHashes;
+      if (lineHashes != null) {
+        out.writeInt(lineHashes.length);
+        out.writeInt(entry.getValue().mContentLength);
+        for (long lineHash : lineHashes) {
+          out.writeLong(lineHash);
+        }
+      } else {
+        out.writeInt(-1);
+      }
+    }
+  }
+
+  private static File getCacheFolder() {
+    return CheckstylePlugin.getDefault().getStateLocation().append(CACHE_FOLDER).toFile();
+  }
+
+  private static File getProjectCacheFolder(IProject project) {
+    return new File(getCacheFolder(), hash(project.getName().getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static void deleteRecursively(File file) {
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        deleteRecursively(child);
+      }
+    }
+    file.delete();
+  }
+
+  static void update(MessageDigest digest, String value) {
+    if (value != null) {
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+    digest.update((byte) 0);
+  }
+
+  private static void update(MessageDigest digest, InputStream in) {
+    if (in != null) {
+      byte[] buffer = new byte[8192];
+      int read;
+      try {
+        while ((read = in.read(buffer)) != -1) {
+          digest.update(buffer, 0, read);
+        }
+      } catch (IOException e) {
+        // cannot happen for the in-memory configuration streams
+        CheckstyleLog.log(e);
+      }
+    }
+    digest.update((byte) 0);
+  }
+
+  static String hash(byte[] bytes) {
+    return toHex(newDigest().digest(bytes));
+  }
+
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("MD5"); //$NON-NLS-1$
+    } catch (NoSuchAlgorithmException e) {
+      // MD5 is required to be present on every Java platform
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static String toHex(byte[] bytes) {
+    StringBuilder buf = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      buf.append(Character.forDigit((b >> 4) & 0xF, 16));
+      buf.append(Character.forDigit(b & 0xF, 16));
+    }
+    return buf.toString();
+  }
+
+  /**
+   * The cached results of a project and check configuration.
+   */
+  private static final class CachedResults {
+
+    /** The fingerprint of the check configuration the results were produced with. */
+    private final String mFingerprint;
+
+    /** The fingerprints of the checks the results were produced with. */
+    private Map<String, String> mModuleFingerprints;
+
+    /** The cached entries, keyed by the file location. */
+    private final Map<String, Entry> mEntries;
+
+    /** Flags if the results have been modified since they were read or last written. */
+    private boolean mDirty;
+
+    private CachedResults(String fingerprint, Map<String, String> moduleFingerprints,
+            Map<String, Entry> entries) {
+      mFingerprint = fingerprint;
+      mModuleFingerprints = moduleFingerprints;
+      mEntries = entries;
+    }
+  }
+
+  /**
+   * Writes the results of closed projects to disk and drops the results of deleted projects.
+   */
+  private static final class ProjectListener implements IResourceChangeListener {
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+
+      if (!(event.getResource() instanceof IProject)) {
+        return;
+      }
+
+      IProject project = (IProject) event.getResource();
+      if (event.getType() == IResourceChangeEvent.PRE_DELETE) {
+        clear(project);
+      } else {
+        synchronized (LOCK) {
+          removeResults(project, true);
+        }
+      }
+    }
+  }
+
+  /**
+   * The cached results of a single file.
+   */
+  static final class Entry {
+
+    private final String mContentHash;
+
+    private final List<Map<String, Object>> mMarkerAttributes;
+
+    private final long[] mLineHashes;
+
+    private final int mContentLength;
+
+    private Entry(String contentHash, List<Map<String, Object>> markerAttributes,
+            long[] lineHashes, int contentLength) {
+      mContentHash = contentHash;
+      mMarkerAttributes = Collections.unmodifiableList(markerAttributes);
+      mLineHashes = lineHashes;
+      mContentLength = contentLength;
+    }
+
+    /**
+     * Returns the attributes of the markers created by the cached audit.
+     *
+     * @return the marker attributes
+     */
+    List<Map<String, Object>> getMarkerAttributes() {
+      return mMarkerAttributes;
+    }
+
+    /**
+     * Returns the line hashes of the file at the time of the cached audit.
+     *
+     * @return the line hashes or <code>null</code> if none were stored for the file
+     */
+    long[] getLineHashes() {
+      return mLineHashes;
+    }
+
+    /**
+     * Returns the length of the file content at the time of the cached audit.
+     *
+     * @return the content length, only valid if line hashes were stored
+     */
+    int getContentLength() {
+      return mContentLength;
+    }
+  }
+}
@@ -24,15 +24,29 @@ import com.puppycrawl.tools.checkstyle.Checker;
 import com.puppycrawl.tools.checkstyle.api.AuditEvent;
 import com.puppycrawl.tools.checkstyle.api.AuditListener;
 import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.FileText;
 import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import net.sf.eclipsecs.core.CheckstylePluginPrefs;
 import net.sf.eclipsecs.core.Messages;
@@ -68,6 +82,12 @@ public class Auditor {
   /** The interval for updating the task info. */
   private static final int MONITOR_INTERVAL = 10;
 
+  /** The minimum number of files each thread of a parallel audit should process. */
+  private static final int MIN_FILES_PER_THREAD = 50;
+
+  /** Seconds to wait for the workers of a parallel audit to stop. */
+  private static final int WORKER_SHUTDOWN_TIMEOUT = 10;
+
   /** The check configuration the auditor uses. */
   private final ICheckConfiguration mCheckConfiguration;
 
@@ -83,6 +103,27 @@ public class Auditor {
   /** Add the check module id to the message. */
   private boolean mAddModuleId = false;
 
+  /** Replay the results of unchanged files from the audit result cache. */
+  private boolean mCacheResults = false;
+
+  /** Audit changed files with cached line hashes incrementally. */
+  private boolean mIncrementalAudit = false;
+
+  /** The audit result cache, <code>null</code> if results are not cached. */
+  private AuditResultCache mResultCache;
+
+  /** Flags if the audit is part of a full build. */
+  private boolean mFullBuild = false;
+
+  /**
+   * The cached markers of the unchanged checks, for the unchanged files which only need to be
+   * audited with the checks added or changed since, keyed by the file name.
+   */
+  private final Map<String, List<Map<String, Object>>> mModuleDeltaMarkers = new HashMap<>();
+
+  /** Buffers the markers created during the audit. */
+  private MarkerBuffer mMarkerBuffer;
+
   /** Reference to the file buffer manager. */
   private final ITextFileBufferManager mFileBufferManager = FileBuffers.getTextFileBufferManager();
 
@@ -100,6 +141,21 @@ public class Auditor {
     //
     mAddRuleName = CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_INCLUDE_RULE_NAMES);
     mAddModuleId = CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_INCLUDE_MODULE_IDS);
+    mCacheResults = CheckstylePluginPrefs
+            .getBoolean(CheckstylePluginPrefs.PREF_CACHE_AUDIT_RESULTS);
+    mIncrementalAudit = mCacheResults
+            && CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_INCREMENTAL_AUDIT);
+  }
+
+  /**
+   * Sets if the audit is part of a full build. Full builds write the audit result cache to disk
+   * and drop the cached results of files not audited anymore.
+   *
+   * @param fullBuild
+   *          <code>true</code> if the audit is part of a full build
+   */
+  public void setFullBuild(boolean fullBuild) {
+    mFullBuild = fullBuild;
   }
 
   /**
@@ -123,28 +179,79 @@ public class Auditor {
     }
 
     mMonitor = monitor;
+    mMarkerBuffer = new MarkerBuffer(
+            CheckstylePluginPrefs.getInt(CheckstylePluginPrefs.PREF_MARKER_FLUSH_SIZE),
+            CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_RECONCILE_MARKERS));
 
     Checker checker = null;
     CheckstyleAuditListener listener = null;
 
     try {
 
-      List<File> filesToAudit = getFilesList();
-
       // begin task
       monitor.beginTask(NLS.bind(Messages.Auditor_msgCheckingConfig, mCheckConfiguration.getName()),
-              filesToAudit.size());
+              mFiles.size());
 
-      // create checker
-      checker = CheckerFactory.createChecker(mCheckConfiguration, project);
+      List<File> filesToAudit = null;
+      if (mCacheResults) {
+        mResultCache = AuditResultCache.load(project, mCheckConfiguration);
+      }
 
-      // create and add listener
+      if (mResultCache != null) {
+
+        // replay the results of unchanged files from the cache
+        filesToAudit = replayCachedResults();
+      } else {
+        filesToAudit = getFilesList();
+      }
+
+      if (filesToAudit.isEmpty() && mModuleDeltaMarkers.isEmpty()) {
+        return;
+      }
+
+      // create listener
       listener = new CheckstyleAuditListener(project);
-      checker.addListener(listener);
 
-      // run the files through the checker
-      checker.process(filesToAudit);
+      if (!mModuleDeltaMarkers.isEmpty()) {
 
+        // run only the added and changed checks on the files whose other results are cached
+        filesToAudit.addAll(runModuleDeltaAudit(project, listener));
+        if (filesToAudit.isEmpty()) {
+          return;
+        }
+      }
+
+      if (mIncrementalAudit && mResultCache != null && !mResultCache.hasOutdatedModules()) {
+
+        // re-run only the line scoped checks on the changed lines where possible
+        filesToAudit = runIncrementalAudit(project, filesToAudit, listener);
+        if (filesToAudit.isEmpty()) {
+          return;
+        }
+      }
+
+      int threadCount = getAuditThreadCount(filesToAudit.size());
+      if (threadCount > 1) {
+
+        // run the files through several checkers concurrently
+        runParallelAudit(project, filesToAudit, threadCount, listener);
+      } else {
+
+        // borrow checker
+        checker = CheckerFactory.borrowChecker(mCheckConfiguration, project);
+        checker.addListener(listener);
+
+        // run the files through the checker
+        checker.process(filesToAudit);
+      }
+
+      // files skipped by Checkstyle have no violations
+      if (!monitor.isCanceled()) {
+        mMarkerBuffer.finishRemaining(mFiles.values());
+      }
+
+    } catch (CoreException e) {
+      CheckstylePluginException.rethrow(e);
     } catch (CheckstyleException e) {
       if (e.getCause() instanceof OperationCanceledException) {
         // user requested cancellation, keep silent
@@ -162,8 +269,489 @@ public class Auditor {
       // Cleanup listener and filter
       if (checker != null) {
         checker.removeListener(listener);
+        CheckerFactory.returnChecker(checker);
+      }
+      FileTextCapture.clear();
+
+      // create the markers still pending
+      try {
+        mMarkerBuffer.flush();
+      } catch (CoreException e) {
+        CheckstyleLog.log(e);
+      }
+
+      if (mResultCache != null) {
+        mResultCache.release(mFullBuild && !monitor.isCanceled() ? mFiles.keySet() : null);
+        mResultCache = null;
+      }
+      mModuleDeltaMarkers.clear();
+    }
+  }
+
+  /**
+   * Creates the markers of all files whose results are found in the audit result cache. If checks
+   * have been added or changed since the results were cached, the unchanged files are registered
+   * to be audited with these checks only.
+   *
+   * @return the files which still need to be audited with all checks
+   * @throws CheckstylePluginException
+   *           error creating the markers
+   */
+  private List<File> replayCachedResults() throws CheckstylePluginException {
+
+    List<File> filesToAudit = new ArrayList<>();
+
+    boolean limitMarkers = CheckstylePluginPrefs
+            .getBoolean(CheckstylePluginPrefs.PREF_LIMIT_MARKERS_PER_RESOURCE);
+    int markerLimit = CheckstylePluginPrefs.getInt(CheckstylePluginPrefs.PREF_MARKER_AMOUNT_LIMIT);
+
+    try {
+      for (Map.Entry<String, IFile> entry : mFiles.entrySet()) {
+
+        if (mMonitor.isCanceled()) {
+          mModuleDeltaMarkers.clear();
+          return Collections.emptyList();
+        }
+
+        IFile file = entry.getValue();
+        File location = file.getLocation().toFile();
+
+        List<Map<String, Object>> cachedMarkers = mResultCache
+                .getMarkerAttributes(entry.getKey(), location);
+        if (cachedMarkers == null) {
+          filesToAudit.add(location);
+          continue;
+        }
+
+        if (mResultCache.hasOutdatedModules()) {
+
+          // the cached markers must be complete to keep some of them
+          if (limitMarkers && cachedMarkers.size() >= markerLimit) {
+            filesToAudit.add(location);
+            continue;
+          }
+
+          cachedMarkers = mResultCache.getUpToDateMarkerAttributes(cachedMarkers);
+          if (!mResultCache.getChangedModules().isEmpty()) {
+            mModuleDeltaMarkers.put(location.getAbsolutePath(), cachedMarkers);
+            continue;
+          }
+
+          // checks have only been removed
+          mResultCache.putMarkerAttributes(entry.getKey(), location, cachedMarkers);
+        }
+
+        for (Map<String, Object> markerAttributes : cachedMarkers) {
+          mMarkerBuffer.add(file, new HashMap<>(markerAttributes));
+        }
+        mMarkerBuffer.finish(file);
+        mMonitor.worked(1);
+      }
+    } catch (CoreException e) {
+      CheckstylePluginException.rethrow(e);
+    }
+    return filesToAudit;
+  }
+
+  /**
+   * Runs the checks added or changed since the results were cached on the files registered by
+   * {@link #replayCachedResults()}. The markers of these checks are merged with the cached markers
+   * of the other checks.
+   *
+   * @param project
+   *          the project
+   * @param listener
+   *          the listener creating the markers
+   * @return the files which still need to be audited with all checks
+   * @throws CheckstyleException
+   *           error processing the files
+   * @throws CheckstylePluginException
+   *           the configuration could not be read
+   * @throws CoreException
+   *           error creating the markers
+   */
+  private List<File> runModuleDeltaAudit(IProject project, CheckstyleAuditListener listener)
+          throws CheckstyleException, CheckstylePluginException, CoreException {
+
+    List<File> files = new ArrayList<>();
+    for (String fileName : mModuleDeltaMarkers.keySet()) {
+      files.add(new File(fileName));
+    }
+
+    Checker checker = null;
+    try {
+      checker = CheckerFactory.createChecker(mResultCache.createChangedModulesConfiguration(),
+              project);
+    } catch (CheckstyleException e) {
+      // the regular audit reports the problem
+      return files;
+    }
+
+    try {
+      checker.addListener(new ModuleDeltaListener(listener, mResultCache.getChangedModules()));
+      checker.process(files);
+    } finally {
+      checker.destroy();
+      listener.cleanup();
+    }
+
+    // files skipped by Checkstyle have no violations
+    if (!mMonitor.isCanceled()) {
+      List<IFile> deltaFiles = new ArrayList<>();
+      for (File file : files) {
+        IFile deltaFile = getFile(file.getPath());
+        if (deltaFile != null) {
+          deltaFiles.add(deltaFile);
+        }
+      }
+      mMarkerBuffer.finishRemaining(deltaFiles);
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Audits the files with cached line hashes incrementally. The lines changed since the cached
+   * audit are determined by comparing the line hashes, the line scoped checks run on the changed
+   * lines only and their cached markers on the unchanged lines are kept. All other checks audit
+   * the whole file.
+   *
+   * @param project
+   *          the project
+   * @param files
+   *          the changed files
+   * @param listener
+   *          the listener creating the markers
+   * @return the files which still need to be audited the regular way
+   * @throws CheckstylePluginException
+   *           the configuration could not be read
+   */
+  private List<File> runIncrementalAudit(IProject project, List<File> files,
+          CheckstyleAuditListener listener) throws CheckstylePluginException {
+
+    boolean limitMarkers = CheckstylePluginPrefs
+            .getBoolean(CheckstylePluginPrefs.PREF_LIMIT_MARKERS_PER_RESOURCE);
+    int markerLimit = CheckstylePluginPrefs.getInt(CheckstylePluginPrefs.PREF_MARKER_AMOUNT_LIMIT);
+
+    List<File> remainingFiles = new ArrayList<>();
+    DocumentChecker checker = null;
+
+    try {
+      for (File file : files) {
+
+        if (mMonitor.isCanceled()) {
+          return Collections.emptyList();
+        }
+
+        String location = new Path(file.getPath()).toString();
+        AuditResultCache.Entry entry = mResultCache.getEntry(location);
+
+        // the cached markers must be complete to keep some of them
+        if (entry == null || entry.getLineHashes() == null
+                || limitMarkers && entry.getMarkerAttributes().size() >= markerLimit) {
+          remainingFiles.add(file);
+          continue;
+        }
+
+        if (checker == null) {
+          try {
+            checker = DocumentChecker.get(mCheckConfiguration, project);
+          } catch (CheckstyleException e) {
+            // the regular audit reports the problem
+            return files;
+          }
+          if (!checker.isLineRangeSupported()) {
+            return files;
+          }
+        }
+
+        try {
+          FileLines lines = FileLines.read(file, checker.getCharset());
+          mResultCache.putFileLines(location, lines);
+          auditLineRange(file, lines, entry, checker, listener);
+        } catch (IOException | CheckstyleException e) {
+          remainingFiles.add(file);
+        }
+      }
+    } finally {
+      listener.cleanup();
+    }
+    return remainingFiles;
+  }
+
+  /**
+   * Audits a single file incrementally.
+   *
+   * @param file
+   *          the file
+   * @param lines
+   *          the current lines of the file
+   * @param entry
+   *          the cached results of the file
+   * @param checker
+   *          the checker to run
+   * @param listener
+   *          the listener creating the markers
+   * @throws CheckstyleException
+   *           error processing the file
+   */
+  private void auditLineRange(File file, FileLines lines, AuditResultCache.Entry entry,
+          DocumentChecker checker, CheckstyleAuditListener listener) throws CheckstyleException {
+
+    long[] oldHashes = entry.getLineHashes();
+    long[] newHashes = lines.getLineHashes();
+
+    // the lines before and after the changed range are unchanged
+    int commonLines = Math.min(oldHashes.length, newHashes.length);
+    int prefixLines = 0;
+    while (prefixLines < commonLines && oldHashes[prefixLines] == newHashes[prefixLines]) {
+      prefixLines++;
+    }
+    int suffixLines = 0;
+    while (suffixLines < commonLines - prefixLines && oldHashes[oldHashes.length - 1
+            - suffixLines] == newHashes[newHashes.length - 1 - suffixLines]) {
+      suffixLines++;
+    }
+
+    List<AuditEvent> events = null;
+    synchronized (checker) {
+      events = checker.process(file, lines.getLines(), prefixLines,
+              newHashes.length - suffixLines);
+    }
+
+    // keep the markers of the line scoped checks on the unchanged lines, moving the ones behind the
+    // changed range
+    int lineShift = newHashes.length - oldHashes.length;
+    int charShift = lines.getLength() - entry.getContentLength();
+    int oldSuffixStart = oldHashes.length - suffixLines;
+
+    List<Map<String, Object>> keptMarkers = new ArrayList<>();
+    for (Map<String, Object> cachedMarker : entry.getMarkerAttributes()) {
+
+      if (!checker.getLineScopedModuleNames()
+              .contains(cachedMarker.get(CheckstyleMarker.MODULE_NAME))) {
+        continue;
+      }
+
+      // marker lines are one based
+      int line = getIntAttribute(cachedMarker, IMarker.LINE_NUMBER);
+      if (line <= prefixLines) {
+        keptMarkers.add(new HashMap<>(cachedMarker));
+      } else if (line > oldSuffixStart) {
+        Map<String, Object> markerAttributes = new HashMap<>(cachedMarker);
+        markerAttributes.put(IMarker.LINE_NUMBER, Integer.valueOf(line + lineShift));
+        if (markerAttributes.containsKey(IMarker.CHAR_START)) {
+          markerAttributes.put(IMarker.CHAR_START,
+                  Integer.valueOf(getIntAttribute(cachedMarker, IMarker.CHAR_START) + charShift));
+          markerAttributes.put(IMarker.CHAR_END,
+                  Integer.valueOf(getIntAttribute(cachedMarker, IMarker.CHAR_END) + charShift));
+        }
+        keptMarkers.add(markerAttributes);
+      }
+    }
+
+    String fileName = file.getAbsolutePath();
+    listener.fileStarted(new AuditEvent(this, fileName));
+    listener.setLineIndex(lines.getLineIndex());
+    for (AuditEvent event : events) {
+      listener.addError(event);
+    }
+    for (Map<String, Object> markerAttributes : keptMarkers) {
+      listener.addMarker(markerAttributes);
+    }
+    listener.fileFinished(new AuditEvent(this, fileName));
+  }
+
+  private static int getIntAttribute(Map<String, Object> markerAttributes, String name) {
+    Object value = markerAttributes.get(name);
+    return value instanceof Integer ? ((Integer) value).intValue() : 0;
+  }
+
+  /**
+   * Runs the audit with several checkers in parallel. The files are partitioned into shards, each
+   * shard is processed by its own checker on a worker thread. The audit events are handed back to
+   * the calling thread file by file and replayed to the marker creating listener, so markers are
+   * created the same way as on the serial path.
+   *
+   * @param project
+   *          the project
+   * @param filesToAudit
+   *          the files to audit
+   * @param threadCount
+   *          the number of worker threads
+   * @param listener
+   *          the listener creating the markers
+   * @throws CheckstyleException
+   *           error processing the audit
+   * @throws CheckstylePluginException
+   *           the configuration could not be read
+   */
+  private void runParallelAudit(IProject project, List<File> filesToAudit, int threadCount,
+          CheckstyleAuditListener listener) throws CheckstyleException, CheckstylePluginException {
+
+    List<List<File>> shards = partitionFiles(filesToAudit, threadCount);
+
+    // borrow the checkers on the calling thread, so configuration problems
+    // surface the same way as for the serial audit
+    List<Checker> checkers = new ArrayList<>();
+    try {
+      for (int i = 0; i < shards.size(); i++) {
+        checkers.add(CheckerFactory.borrowChecker(mCheckConfiguration, project));
+      }
+    } catch (CheckstyleException | CheckstylePluginException | RuntimeException e) {
+      for (Checker checker : checkers) {
+        CheckerFactory.returnChecker(checker);
+      }
+      throw e;
+    }
+
+    BlockingQueue<FileAuditResult> results = new LinkedBlockingQueue<>();
+    ExecutorService executor = Executors.newFixedThreadPool(shards.size(),
+            new AuditThreadFactory());
+
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+
+      for (int i = 0; i < shards.size(); i++) {
+        futures.add(executor.submit(new AuditWorker(checkers.get(i), shards.get(i), results)));
+      }
+
+      // replay the results of the workers as they come in
+      int runningWorkers = shards.size();
+      while (runningWorkers > 0) {
+
+        FileAuditResult result = results.take();
+        if (result == FileAuditResult.WORKER_DONE) {
+          runningWorkers--;
+          continue;
+        }
+
+        listener.fileStarted(result.mStartedEvent);
+        listener.setFileText(result.mFileText);
+        for (AuditEvent error : result.mErrors) {
+          listener.addError(error);
+        }
+        for (Throwable exception : result.mExceptions) {
+          listener.addException(result.mStartedEvent, exception);
+        }
+        listener.fileFinished(result.mFinishedEvent);
+      }
+
+      // propagate failures of the workers
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (OperationCanceledException e) {
+      // user requested cancellation, keep silent
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof OperationCanceledException) {
+        // user requested cancellation, keep silent
+      } else if (cause instanceof CheckstyleException) {
+        throw (CheckstyleException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else {
+        throw new CheckstyleException(cause.getMessage(), cause);
+      }
+    } finally {
+      executor.shutdownNow();
+      listener.cleanup();
+
+      // checkers of workers which did not stop in time cannot be reused
+      if (awaitTermination(executor)) {
+        for (Checker checker : checkers) {
+          CheckerFactory.returnChecker(checker);
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits for the workers of a parallel audit to stop.
+   *
+   * @param executor
+   *          the executor running the workers
+   * @return <code>true</code> if all workers stopped
+   */
+  private static boolean awaitTermination(ExecutorService executor) {
+    try {
+      return executor.awaitTermination(WORKER_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Determines the number of threads to audit the given number of files with.
+   *
+   * @param fileCount
+   *          the number of files to audit
+   * @return the number of threads, <code>1</code> for a serial audit
+   */
+  private static int getAuditThreadCount(int fileCount) {
+    int threadCount = CheckstylePluginPrefs.getInt(CheckstylePluginPrefs.PREF_AUDIT_THREADS);
+
+    // small audits are not worth the cost of additional checkers
+    return Math.max(1, Math.min(threadCount, fileCount / MIN_FILES_PER_THREAD));
+  }
+
+  /**
+   * Partitions the files into shards of roughly equal size. Files of the same directory are always
+   * kept in the same shard, so that checks correlating the files of a directory (like the
+   * TranslationCheck) see the same files as on the serial path.
+   *
+   * @param files
+   *          the files to partition
+   * @param shardCount
+   *          the maximum number of shards
+   * @return the shards, none of them empty
+   */
+  private static List<List<File>> partitionFiles(List<File> files, int shardCount) {
+
+    Map<File, List<File>> filesByDirectory = new HashMap<>();
+    for (File file : files) {
+      List<File> directoryFiles = filesByDirectory.get(file.getParentFile());
+      if (directoryFiles == null) {
+        directoryFiles = new ArrayList<>();
+        filesByDirectory.put(file.getParentFile(), directoryFiles);
+      }
+      directoryFiles.add(file);
+    }
+
+    // distribute the largest directories first to balance the shards
+    List<List<File>> directories = new ArrayList<>(filesByDirectory.values());
+    Collections.sort(directories, new Comparator<List<File>>() {
+      @Override
+      public int compare(List<File> o1, List<File> o2) {
+        return Integer.compare(o2.size(), o1.size());
+      }
+    });
+
+    List<List<File>> shards = new ArrayList<>();
+    for (int i = 0; i < shardCount; i++) {
+      shards.add(new ArrayList<File>());
+    }
+
+    for (List<File> directoryFiles : directories) {
+      List<File> smallestShard = shards.get(0);
+      for (List<File> shard : shards) {
+        if (shard.size() < smallestShard.size()) {
+          smallestShard = shard;
+        }
       }
+      smallestShard.addAll(directoryFiles);
     }
+
+    Iterator<List<File>> it = shards.iterator();
+    while (it.hasNext()) {
+      if (it.next().isEmpty()) {
+        it.remove();
+      }
+    }
+    return shards;
   }
 
   private void handleCheckstyleFailure(IProject project, CheckstyleException e)
@@ -221,6 +809,192 @@ public class Auditor {
     return files;
   }
 
+  /**
+   * The audit events of a single file, collected by a worker of the parallel audit.
+   */
+  private static final class FileAuditResult {
+
+    /** Marks that a worker has processed all its files. */
+    private static final FileAuditResult WORKER_DONE = new FileAuditResult(null,
+            Collections.<AuditEvent> emptyList(), Collections.<Throwable> emptyList(), null, null);
+
+    private final AuditEvent mStartedEvent;
+
+    private final List<AuditEvent> mErrors;
+
+    private final List<Throwable> mExceptions;
+
+    private final AuditEvent mFinishedEvent;
+
+    private final FileText mFileText;
+
+    private FileAuditResult(AuditEvent startedEvent, List<AuditEvent> errors,
+            List<Throwable> exceptions, AuditEvent finishedEvent, FileText fileText) {
+      mStartedEvent = startedEvent;
+      mErrors = errors;
+      mExceptions = exceptions;
+      mFinishedEvent = finishedEvent;
+      mFileText = fileText;
+    }
+  }
+
+  /**
+   * Runs one shard of the parallel audit through its own checker.
+   */
+  private final class AuditWorker implements Callable<Void>, AuditListener {
+
+    private final Checker mChecker;
+
+    private final List<File> mShard;
+
+    private final BlockingQueue<FileAuditResult> mResults;
+
+    private AuditEvent mStartedEvent;
+
+    private List<AuditEvent> mErrors;
+
+    private List<Throwable> mExceptions;
+
+    private FileText mFileText;
+
+    private AuditWorker(Checker checker, List<File> shard, BlockingQueue<FileAuditResult> results) {
+      mChecker = checker;
+      mShard = shard;
+      mResults = results;
+    }
+
+    @Override
+    public Void call() throws CheckstyleException {
+      mChecker.addListener(this);
+      try {
+        mChecker.process(mShard);
+      } catch (CheckstyleException e) {
+        if (e.getCause() instanceof OperationCanceledException) {
+          throw (OperationCanceledException) e.getCause();
+        }
+        throw e;
+      } finally {
+        mChecker.removeListener(this);
+        FileTextCapture.clear();
+        mResults.add(FileAuditResult.WORKER_DONE);
+      }
+      return null;
+    }
+
+    @Override
+    public void fileStarted(AuditEvent event) {
+      if (mMonitor.isCanceled() || Thread.currentThread().isInterrupted()) {
+        throw new OperationCanceledException();
+      }
+      mStartedEvent = event;
+      mErrors = new ArrayList<>();
+      mExceptions = new ArrayList<>();
+    }
+
+    @Override
+    public void addError(AuditEvent event) {
+      mErrors.add(event);
+
+      // hand the text read by the checker over for the marker offsets
+      if (mFileText == null) {
+        mFileText = FileTextCapture.get(event.getFileName());
+      }
+    }
+
+    @Override
+    public void addException(AuditEvent event, Throwable throwable) {
+      mExceptions.add(throwable);
+    }
+
+    @Override
+    public void fileFinished(AuditEvent event) {
+      mResults.add(new FileAuditResult(mStartedEvent, mErrors, mExceptions, event, mFileText));
+      mStartedEvent = null;
+      mErrors = null;
+      mExceptions = null;
+      mFileText = null;
+    }
+
+    @Override
+    public void auditStarted(AuditEvent event) {
+    }
+
+    @Override
+    public void auditFinished(AuditEvent event) {
+    }
+  }
+
+  /**
+   * Creates the daemon threads of the parallel audit.
+   */
+  private static final class AuditThreadFactory implements ThreadFactory {
+
+    private int mThreadCount;
+
+    @Override
+    public synchronized Thread newThread(Runnable r) {
+      Thread thread = new Thread(r, "Checkstyle Audit Worker " + ++mThreadCount); //$NON-NLS-1$
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+  /**
+   * Merges the violations of the added and changed checks with the cached markers of the other
+   * checks. Violations of all other modules, e.g. parse errors reported by the tree walker, are
+   * part of the cached markers already and dropped.
+   */
+  private final class ModuleDeltaListener implements AuditListener {
+
+    private final CheckstyleAuditListener mListener;
+
+    private final Set<String> mChangedModules;
+
+    private ModuleDeltaListener(CheckstyleAuditListener listener, Set<String> changedModules) {
+      mListener = listener;
+      mChangedModules = changedModules;
+    }
+
+    @Override
+    public void fileStarted(AuditEvent event) {
+      mListener.fileStarted(event);
+
+      List<Map<String, Object>> cachedMarkers = mModuleDeltaMarkers.get(event.getFileName());
+      if (cachedMarkers != null) {
+        for (Map<String, Object> markerAttributes : cachedMarkers) {
+          mListener.addMarker(new HashMap<>(markerAttributes));
+        }
+      }
+    }
+
+    @Override
+    public void addError(AuditEvent event) {
+      if (mChangedModules.contains(getModuleName(event.getSourceName()))) {
+        mListener.addError(event);
+      }
+    }
+
+    @Override
+    public void addException(AuditEvent event, Throwable throwable) {
+      mListener.addException(event, throwable);
+    }
+
+    @Override
+    public void fileFinished(AuditEvent event) {
+      mListener.fileFinished(event);
+    }
+
+    @Override
+    public void auditStarted(AuditEvent event) {
+      mListener.auditStarted(event);
+    }
+
+    @Override
+    public void auditFinished(AuditEvent event) {
+      mListener.auditFinished(event);
+    }
+  }
+
   /**
    * Implementation of the audit listener. This listener creates markers on the file resources if
    * checkstyle messages are reported.
@@ -236,15 +1010,21 @@ public class Auditor {
     /** The file currently being checked. */
     private IResource mResource;
 
-    /** Document model of the current file. */
+    /** Document model of the current file, if it is open in an editor. */
     private IDocument mDocument;
 
+    /** flags if the document of the current file has been looked up. */
+    private boolean mDocumentResolved;
+
+    /** the text of the current file as read by the checker, if known. */
+    private FileText mFileText;
+
+    /** the line index of the current file, created on first use. */
+    private LineIndex mLineIndex;
+
     /** internal counter used to time to actualisation of the monitor. */
     private int mMonitorCounter;
 
-    /** map containing the marker data. */
-    private final Map<String, Object> mMarkerAttributes = new HashMap<>();
-
     /** flags if the amount of markers should be limited. */
     private final boolean mLimitMarkers;
 
@@ -254,6 +1034,16 @@ public class Auditor {
     /** the count of markers generated for the current resource. */
     private int mMarkerCount;
 
+    /** creates the marker attributes of the audit events. */
+    private final MarkerTemplateCache mMarkerTemplates = new MarkerTemplateCache(mAddRuleName,
+            mAddModuleId);
+
+    /** the location of the current file, if its results are to be cached. */
+    private String mCacheLocation;
+
+    /** the attributes of the markers created for the current file, if they are to be cached. */
+    private List<Map<String, Object>> mCachedMarkers;
+
     /**
      * keep track which file paths have been connected with the BufferManager.
      */
@@ -278,6 +1068,15 @@ public class Auditor {
       // get the current IFile reference
       mResource = getFile(event.getFileName());
       mMarkerCount = 0;
+      mDocumentResolved = false;
+      mFileText = null;
+      mLineIndex = null;
+
+      // only results of the audited files themselves can be cached
+      if (mResultCache != null && mResource != null) {
+        mCacheLocation = new Path(event.getFileName()).toString();
+        mCachedMarkers = new ArrayList<>();
+      }
 
       if (mResource != null) {
 
@@ -307,59 +1106,79 @@ public class Auditor {
 
     @Override
     public void addError(AuditEvent error) {
-      try {
-        if (!mLimitMarkers || mMarkerCount < mMarkerLimit) {
+      if (!mLimitMarkers || mMarkerCount < mMarkerLimit) {
 
-          SeverityLevel severity = error.getSeverityLevel();
+        SeverityLevel severity = error.getSeverityLevel();
 
-          if (!severity.equals(SeverityLevel.IGNORE) && mResource != null) {
+        if (!severity.equals(SeverityLevel.IGNORE) && mResource != null) {
 
-            RuleMetadata metaData = MetadataFactory.getRuleMetadata(error.getSourceName());
+          Map<String, Object> markerAttributes = mMarkerTemplates.createMarkerAttributes(error);
 
-            // create generic metadata if none can be found
-            if (metaData == null) {
-              Module module = new Module(error.getSourceName());
-              metaData = MetadataFactory.createGenericMetadata(module);
-            }
+          // calculate offset for editor annotations
+          calculateMarkerOffset(error, markerAttributes);
 
-            mMarkerAttributes.put(CheckstyleMarker.MODULE_NAME, metaData.getInternalName());
-            mMarkerAttributes.put(CheckstyleMarker.MESSAGE_KEY,
-                    error.getLocalizedMessage().getKey());
-            mMarkerAttributes.put(IMarker.PRIORITY, Integer.valueOf(IMarker.PRIORITY_NORMAL));
-            mMarkerAttributes.put(IMarker.SEVERITY, Integer.valueOf(getSeverityValue(severity)));
-            mMarkerAttributes.put(IMarker.LINE_NUMBER, Integer.valueOf(error.getLine()));
-            mMarkerAttributes.put(IMarker.MESSAGE, getMessage(error));
+          // buffer a marker for the actual resource, the buffer creates
+          // the markers in bulk
+          mMarkerBuffer.add(mResource, markerAttributes);
 
-            // calculate offset for editor annotations
-            calculateMarkerOffset(error, mMarkerAttributes);
+          if (mCachedMarkers != null) {
+            mCachedMarkers.add(markerAttributes);
+          }
 
-            // enables own category under Java Problem Type
-            // setting for Problems view (RFE 1530366)
-            mMarkerAttributes.put("categoryId", Integer.valueOf(999)); //$NON-NLS-1$
+          mMarkerCount++;
+        }
+      }
+    }
 
-            // create a marker for the actual resource
-            IMarker marker = mResource.createMarker(CheckstyleMarker.MARKER_ID);
-            marker.setAttributes(mMarkerAttributes);
+    /**
+     * Adds a marker kept from the cached results of the current file.
+     *
+     * @param markerAttributes
+     *          the marker attributes
+     */
+    public void addMarker(Map<String, Object> markerAttributes) {
+      if ((!mLimitMarkers || mMarkerCount < mMarkerLimit) && mResource != null) {
 
-            mMarkerCount++;
+        mMarkerBuffer.add(mResource, markerAttributes);
 
-            // clear the marker attributes to reuse the map for the
-            // next error
-            mMarkerAttributes.clear();
-          }
+        if (mCachedMarkers != null) {
+          mCachedMarkers.add(markerAttributes);
         }
-      } catch (CoreException e) {
-        CheckstyleLog.log(e);
+
+        mMarkerCount++;
       }
     }
 
     @Override
     public void addException(AuditEvent event, Throwable throwable) {
       CheckstyleLog.log(throwable);
+
+      // results of a failed audit are not cached
+      mCachedMarkers = null;
     }
 
     @Override
     public void fileFinished(AuditEvent event) {
+
+      if (mCacheLocation != null) {
+        if (mCachedMarkers != null) {
+          mResultCache.putMarkerAttributes(mCacheLocation, new File(mCacheLocation),
+                  mCachedMarkers);
+        } else {
+          mResultCache.remove(mCacheLocation);
+        }
+        mCacheLocation = null;
+        mCachedMarkers = null;
+      }
+
+      if (mResource != null) {
+        try {
+          mMarkerBuffer.finish(mResource);
+        } catch (CoreException e) {
+          CheckstyleLog.log(e);
+        }
+      }
+
       // update monitor according to the monitor interval
       if (mMonitorCounter == MONITOR_INTERVAL) {
         mMonitor.worked(MONITOR_INTERVAL);
@@ -368,6 +1187,8 @@ public class Auditor {
 
       disconnectFileBuffer(mResource);
       mDocument = null;
+      mFileText = null;
+      mLineIndex = null;
     }
 
     @Override
@@ -379,12 +1200,34 @@ public class Auditor {
     public void auditStarted(AuditEvent event) {
     }
 
+    /**
+     * Sets the text of the current file as read by the checker.
+     *
+     * @param fileText
+     *          the file text, may be <code>null</code>
+     */
+    public void setFileText(FileText fileText) {
+      mFileText = fileText;
+    }
+
+    /**
+     * Sets the line index of the current file.
+     *
+     * @param lineIndex
+     *          the line index
+     */
+    public void setLineIndex(LineIndex lineIndex) {
+      mLineIndex = lineIndex;
+    }
+
     public void cleanup() {
 
       mDocument = null;
+      mFileText = null;
+      mLineIndex = null;
 
       // disconnect any leftover buffer paths, in case of an unexpected abortion
-      for (IPath p : mConnectedFileBufferPaths) {
+      for (IPath p : new ArrayList<>(mConnectedFileBufferPaths)) {
         disconnectFileBuffer(p);
       }
     }
@@ -399,34 +1242,39 @@ public class Auditor {
      */
     private void calculateMarkerOffset(AuditEvent error, Map<String, Object> markerAttributes) {
 
-      // lazy create the document for the current file
-      if (mDocument == null) {
-        mDocument = connectFileBuffer(mResource);
+      // the document of an open editor is used, as the markers are shown on it
+      if (!mDocumentResolved) {
+        mDocumentResolved = true;
+        if (isOpen(mResource)) {
+          mDocument = connectFileBuffer(mResource);
+        }
       }
 
-      // Provide offset information for the marker to make
-      // annotated source code possible
-      if (mDocument != null) {
-        try {
-
-          int line = error.getLine();
+      if (mDocument == null && mLineIndex == null) {
 
-          IRegion lineInformation = mDocument.getLineInformation(line == 0 ? 0 : line - 1);
-          int lineOffset = lineInformation.getOffset();
-          int lineLength = lineInformation.getLength();
-
-          // annotate from the error column until the end of
-          // the line
-          int offset = error.getLocalizedMessage().getColumnCharIndex();
-
-          markerAttributes.put(IMarker.CHAR_START, Integer.valueOf(lineOffset + offset));
-          markerAttributes.put(IMarker.CHAR_END, Integer.valueOf(lineOffset + lineLength));
-        } catch (BadLocationException e) {
-          // seems to happen quite often so its no use to log since we
-          // can't do anything about it
-          // CheckstyleLog.log(e);
+        // index the lines of the text the checker has read
+        if (mFileText == null) {
+          mFileText = FileTextCapture.get(error.getFileName());
+        }
+        if (mFileText != null) {
+          mLineIndex = new LineIndex(mFileText.getFullText());
+        } else {
+          // the text is unknown, read the file through a file buffer
+          mDocument = connectFileBuffer(mResource);
         }
       }
+
+      if (mDocument != null) {
+        Auditor.calculateMarkerOffset(error, mDocument, markerAttributes);
+      } else if (mLineIndex != null) {
+        Auditor.calculateMarkerOffset(error, mLineIndex, markerAttributes);
+      }
+    }
+
+    private boolean isOpen(IResource resource) {
+      // text file buffers exist only while the file is connected, e.g. by an editor
+      return resource instanceof IFile
+              && mFileBufferManager.getTextFileBuffer(resource.getFullPath()) != null;
     }
 
     private IDocument connectFileBuffer(IResource resource) {
@@ -471,60 +1319,93 @@ public class Auditor {
         CheckstyleLog.log(e);
       }
     }
+  }
 
-    private int getSeverityValue(SeverityLevel severity) {
-      int result = IMarker.SEVERITY_WARNING;
+  /**
+   * Returns the module name stored in the markers of the given audit event source.
+   *
+   * @param sourceName
+   *          the source name of an audit event, i.e. the class name of the module
+   * @return the module name
+   */
+  static String getModuleName(String sourceName) {
 
-      if (severity.equals(SeverityLevel.INFO)) {
-        result = IMarker.SEVERITY_INFO;
-      } else if (severity.equals(SeverityLevel.WARNING)) {
-        result = IMarker.SEVERITY_WARNING;
-      } else if (severity.equals(SeverityLevel.ERROR)) {
-        result = IMarker.SEVERITY_ERROR;
-      }
+    RuleMetadata metaData = MetadataFactory.getRuleMetadata(sourceName);
 
-      return result;
+    // create generic metadata if none can be found
+    if (metaData == null) {
+      Module module = new Module(sourceName);
+      metaData = MetadataFactory.createGenericMetadata(module);
     }
+    return metaData.getInternalName();
+  }
 
-    private String getMessage(AuditEvent error) {
+  /**
+   * Calculates the offset information for the editor annotations.
+   *
+   * @param error
+   *          the audit error
+   * @param document
+   *          the document of the audited file
+   * @param markerAttributes
+   *          the marker attributes
+   */
+  static void calculateMarkerOffset(AuditEvent error, IDocument document,
+          Map<String, Object> markerAttributes) {
 
-      String moduleId = error.getModuleId();
+    // Provide offset information for the marker to make
+    // annotated source code possible
+    try {
 
-      if (moduleId == null) {
-        RuleMetadata metaData = MetadataFactory.getRuleMetadata(error.getSourceName());
-        if (metaData != null) {
-          moduleId = metaData.getInternalName();
-        }
-      }
+      int line = error.getLine();
 
-      final String message = error.getMessage();
+      IRegion lineInformation = document.getLineInformation(line == 0 ? 0 : line - 1);
+      int lineOffset = lineInformation.getOffset();
+      int lineLength = lineInformation.getLength();
 
-      StringBuffer prefix = new StringBuffer();
-      if (mAddRuleName) {
-        prefix.append(getRuleName(error));
-      }
-      if (mAddModuleId && error.getModuleId() != null) {
-        if (prefix.length() > 0) {
-          prefix.append(" - "); //$NON-NLS-1$
-        }
-        prefix.append(error.getModuleId());
-      }
+      // annotate from the error column until the end of
+      // the line
+      int offset = error.getLocalizedMessage().getColumnCharIndex();
 
-      StringBuffer buf = new StringBuffer();
-      if (prefix.length() > 0) {
-        buf.append(prefix).append(": "); //$NON-NLS-1$
-      }
-      buf.append(message);
-
-      return buf.toString();
+      markerAttributes.put(IMarker.CHAR_START, Integer.valueOf(lineOffset + offset));
+      markerAttributes.put(IMarker.CHAR_END, Integer.valueOf(lineOffset + lineLength));
+    } catch (BadLocationException e) {
+      // seems to happen quite often so its no use to log since we
+      // can't do anything about it
+      // CheckstyleLog.log(e);
     }
+  }
 
-    private String getRuleName(AuditEvent error) {
-      RuleMetadata metaData = MetadataFactory.getRuleMetadata(error.getSourceName());
-      if (metaData == null) {
-        return Messages.Auditor_txtUnknownModule;
-      }
-      return metaData.getRuleName();
+  /**
+   * Calculates the offset information for the editor annotations from the line index of the
+   * audited file.
+   *
+   * @param error
+   *          the audit error
+   * @param lineIndex
+   *          the line index of the audited file
+   * @param markerAttributes
+   *          the marker attributes
+   */
+  static void calculateMarkerOffset(AuditEvent error, LineIndex lineIndex,
+          Map<String, Object> markerAttributes) {
+
+    int line = error.getLine();
+    int lineNo = line == 0 ? 0 : line - 1;
+
+    // like a bad location in a document
+    if (lineNo < 0 || lineNo >= lineIndex.getLineCount()) {
+      return;
     }
+
+    int lineOffset = lineIndex.getLineOffset(lineNo);
+    int lineLength = lineIndex.getLineLength(lineNo);
+
+    // annotate from the error column until the end of
+    // the line
+    int offset = error.getLocalizedMessage().getColumnCharIndex();
+
+    markerAttributes.put(IMarker.CHAR_START, Integer.valueOf(lineOffset + offset));
+    markerAttributes.put(IMarker.CHAR_END, Integer.valueOf(lineOffset + lineLength));
   }
 }
@@ -20,12 +20,11 @@
 
 package net.sf.eclipsecs.core.builder;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.io.Closeables;
 import com.puppycrawl.tools.checkstyle.Checker;
 import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
 import com.puppycrawl.tools.checkstyle.ConfigurationLoader.IgnoredModulesOptions;
+import com.puppycrawl.tools.checkstyle.ModuleFactory;
 import com.puppycrawl.tools.checkstyle.PackageNamesLoader;
 import com.puppycrawl.tools.checkstyle.PackageObjectFactory;
 import com.puppycrawl.tools.checkstyle.PackageObjectFactory.ModuleLoadOption;
@@ -34,44 +33,56 @@ import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
 import com.puppycrawl.tools.checkstyle.api.Configuration;
 
 import java.io.UnsupportedEncodingException;
+import java.lang.ref.SoftReference;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import net.sf.eclipsecs.core.CheckstylePlugin;
+import net.sf.eclipsecs.core.CheckstylePluginPrefs;
 import net.sf.eclipsecs.core.config.CheckstyleConfigurationFile;
 import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.config.ResolvedConfigurationCache;
 import net.sf.eclipsecs.core.config.configtypes.IContextAware;
 import net.sf.eclipsecs.core.util.CheckstylePluginException;
 
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.xml.sax.InputSource;
 
 /**
- * Factory class to create (and cache) checker objects.
+ * Factory class to create (and pool) checker objects.
+ *
+ * <p>
+ * Checkers are not thread safe, so every client borrows a checker for the exclusive use during an
+ * audit and returns it to the factory afterwards. Returned checkers are kept in a pool per project
+ * and check configuration, bounded in size and evicted after being idle for some time.
+ * </p>
  *
  * @author Lars Ködderitzsch
  */
 public final class CheckerFactory {
 
-  /** Map containing the configured checkers. */
-  private static Cache<String, Checker> sCheckerMap;
+  /** Time after which an idle checker is removed from its pool. */
+  private static final long IDLE_TIMEOUT = 10 * 60 * 1000; // 10 minutes
 
-  /** Map containing the modification times of configs. */
-  private static Map<String, Long> sModifiedMap;
+  /** Map containing the checker pools, keyed by project and configuration. */
+  private static Map<String, CheckerPool> sPools = new HashMap<>();
 
-  /*
-   * Initialize the cache.
-   */
-  static {
+  /** Map containing the pools the currently borrowed checkers belong to. */
+  private static Map<Checker, CheckerPool> sBorrowed = new ConcurrentHashMap<>();
 
-    sCheckerMap = CacheBuilder.newBuilder().softValues().build();
-
-    sModifiedMap = new ConcurrentHashMap<>();
-  }
+  /** Listener discarding the checkers of closed and deleted projects, registered on first use. */
+  private static IResourceChangeListener sProjectListener;
 
   /**
    * Hidden utility class constructor.
@@ -81,7 +92,8 @@ public final class CheckerFactory {
   }
 
   /**
-   * Creates a checker for a given configuration file.
+   * Borrows a checker for a given configuration file. The checker is for the exclusive use of the
+   * caller and must be handed back by {@link #returnChecker(Checker)} once the audit is finished.
    *
    * @param config
    *          the check configuration data
@@ -93,52 +105,65 @@ public final class CheckerFactory {
    * @throws CheckstylePluginException
    *           the configuration could not be read
    */
-  public static Checker createChecker(ICheckConfiguration config, IProject project)
+  public static Checker borrowChecker(ICheckConfiguration config, IProject project)
           throws CheckstyleException, CheckstylePluginException {
 
     String cacheKey = getCacheKey(config, project);
 
     CheckstyleConfigurationFile configFileData = config.getCheckstyleConfiguration();
-    Checker checker = tryCheckerCache(cacheKey, configFileData.getModificationStamp());
+    CheckerPool pool = getPool(cacheKey, configFileData);
+
+    Checker checker = pool.poll();
 
     // clear Checkstyle internal caches upon checker reuse
     if (checker != null) {
       checker.clearCache();
+    } else {
+      checker = createChecker(configFileData, project);
     }
 
-    // no cache hit
-    if (checker == null) {
-      PropertyResolver resolver = configFileData.getPropertyResolver();
-
-      // set the project context if the property resolver needs the
-      // context
-      if (resolver instanceof IContextAware) {
-        ((IContextAware) resolver).setProjectContext(project);
-      }
-
-      InputSource in = null;
-      try {
-        in = configFileData.getCheckConfigFileInputSource();
-        checker = createCheckerInternal(in, resolver, project);
-      } finally {
-        Closeables.closeQuietly(in.getByteStream());
-      }
+    sBorrowed.put(checker, pool);
+    return checker;
+  }
 
-      // store checker in cache
-      Long modified = Long.valueOf(configFileData.getModificationStamp());
-      sCheckerMap.put(cacheKey, checker);
-      sModifiedMap.put(cacheKey, modified);
+  /**
+   * Returns a checker obtained by {@link #borrowChecker(ICheckConfiguration, IProject)} to its
+   * pool. The caller must not use the checker afterwards.
+   *
+   * @param checker
+   *          the checker
+   */
+  public static void returnChecker(Checker checker) {
+    CheckerPool pool = sBorrowed.remove(checker);
+    if (pool != null) {
+      pool.offer(checker, getMaxPoolSize());
     }
-
-    return checker;
   }
 
   /**
    * Cleans up the checker cache.
    */
   public static void cleanup() {
-    sCheckerMap.invalidateAll();
-    sModifiedMap.clear();
+    synchronized (sPools) {
+      for (CheckerPool pool : sPools.values()) {
+        pool.dispose();
+      }
+      sPools.clear();
+    }
+    DocumentAuditor.cleanup();
+    ModuleFingerprints.cleanup();
+    ResolvedConfigurationCache.clear();
+    AuditResultCache.clearAll();
+  }
+
+  /**
+   * Stops listening for closed and deleted projects.
+   */
+  public static synchronized void dispose() {
+    if (sProjectListener != null) {
+      ResourcesPlugin.getWorkspace().removeResourceChangeListener(sProjectListener);
+      sProjectListener = null;
+    }
   }
 
   /**
@@ -152,78 +177,143 @@ public final class CheckerFactory {
    * @throws CheckstylePluginException
    *           error getting configuration file data
    */
-  private static String getCacheKey(ICheckConfiguration config, IProject project)
+  static String getCacheKey(ICheckConfiguration config, IProject project)
           throws CheckstylePluginException {
     CheckstyleConfigurationFile configFileData = config.getCheckstyleConfiguration();
 
     URL configLocation = configFileData.getResolvedConfigFileURL();
     String checkConfigName = config.getName() + "#" + (config.isGlobal() ? "Global" : "Local");
 
-    String cacheKey = project.getName() + "#" + configLocation + "#" + checkConfigName;
+    String cacheKey = getCacheKeyPrefix(project) + configLocation + "#" + checkConfigName;
+
+    // everything cached by the key is discarded once the project goes away
+    listenForChanges();
 
     return cacheKey;
   }
 
   /**
-   * Tries to reuse an already configured checker for this configuration.
+   * Returns the start of the cache keys of a project.
+   *
+   * @param project
+   *          the project
+   * @return the start of the cache keys
+   */
+  static String getCacheKeyPrefix(IProject project) {
+    return project.getName() + "#";
+  }
+
+  /**
+   * Discards the checker pools, document checkers and module fingerprints of a project.
+   */
+  private static void cleanup(IProject project) {
+
+    String prefix = getCacheKeyPrefix(project);
+    synchronized (sPools) {
+      Iterator<Map.Entry<String, CheckerPool>> it = sPools.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<String, CheckerPool> entry = it.next();
+        if (entry.getKey().startsWith(prefix)) {
+          entry.getValue().dispose();
+          it.remove();
+        }
+      }
+    }
+    DocumentChecker.cleanup(project);
+    ModuleFingerprints.cleanup(project);
+  }
+
+  private static synchronized void listenForChanges() {
+    if (sProjectListener == null) {
+      sProjectListener = new ProjectListener();
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(sProjectListener,
+              IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+    }
+  }
+
+  /**
+   * Returns the checker pool for the given cache key. The pool is replaced by an empty one if the
+   * configuration has been reloaded since the pool was created.
    *
-   * @param config
-   *          the configuration file
    * @param cacheKey
    *          the key for cache access
-   * @return the cached checker or null
+   * @param configFileData
+   *          the current configuration file data
+   * @return the checker pool
    */
-  private static Checker tryCheckerCache(String cacheKey, long modificationStamp) {
+  private static CheckerPool getPool(String cacheKey, CheckstyleConfigurationFile configFileData) {
 
-    // try the cache
-    Checker checker = sCheckerMap.getIfPresent(cacheKey);
+    synchronized (sPools) {
 
-    // if cache hit
-    if (checker != null) {
+      CheckerPool pool = sPools.get(cacheKey);
 
-      // compare modification times of the configs
-      Long oldTime = sModifiedMap.get(cacheKey);
-      Long newTime = Long.valueOf(modificationStamp);
+      // no match - the configuration changed
+      if (pool != null && pool.mConfigFileData != configFileData) {
+        pool.dispose();
+        pool = null;
+      }
 
-      // no match - remove checker from cache
-      if (oldTime == null || oldTime.compareTo(newTime) != 0) {
-        checker = null;
-        sCheckerMap.invalidate(cacheKey);
-        sModifiedMap.remove(cacheKey);
+      if (pool == null) {
+        pool = new CheckerPool(configFileData);
+        sPools.put(cacheKey, pool);
       }
+      return pool;
     }
-    return checker;
   }
 
   /**
-   * Creates a new checker and configures it with the given configuration file.
+   * Returns the maximum number of idle checkers kept per pool. Parallel audits need at least one
+   * checker per audit thread.
+   *
+   * @return the maximum pool size
+   */
+  private static int getMaxPoolSize() {
+    return Math.max(CheckstylePluginPrefs.getInt(CheckstylePluginPrefs.PREF_CHECKER_POOL_SIZE),
+            CheckstylePluginPrefs.getInt(CheckstylePluginPrefs.PREF_AUDIT_THREADS));
+  }
+
+  /**
+   * Creates a new checker from the given configuration file data.
    *
-   * @param input
-   *          the input source for the configuration file
-   * @param configFileUri
-   *          the URI of the configuration file, or <code>null</code> if it could not be determined
-   * @param propResolver
-   *          a property resolver null
+   * @param configFileData
+   *          the resolved configuration file data
    * @param project
    *          the project
    * @return the newly created Checker
    * @throws CheckstyleException
    *           an exception during the creation of the checker occured
+   * @throws CheckstylePluginException
+   *           the configuration could not be read
    */
-  private static Checker createCheckerInternal(InputSource input, PropertyResolver propResolver,
+  private static Checker createChecker(CheckstyleConfigurationFile configFileData,
           IProject project) throws CheckstyleException, CheckstylePluginException {
 
     // load configuration
-    final Configuration configuration = ConfigurationLoader.loadConfiguration(input, propResolver,
-            IgnoredModulesOptions.OMIT);
+    final Configuration configuration = loadConfiguration(configFileData, project);
 
-    ClassLoader moduleClassLoader = CheckstylePlugin.getDefault().getAddonExtensionClassLoader();
-    Set<String> packageNames = PackageNamesLoader.getPackageNames(moduleClassLoader);
+    return createChecker(configuration, project);
+  }
+
+  /**
+   * Creates a new checker from the given Checkstyle configuration. The checker is not pooled, the
+   * caller must destroy it once the audit is finished.
+   *
+   * @param configuration
+   *          the loaded configuration
+   * @param project
+   *          the project
+   * @return the newly created Checker
+   * @throws CheckstyleException
+   *           an exception during the creation of the checker occured
+   * @throws CheckstylePluginException
+   *           the charset of the project could not be determined
+   */
+  static Checker createChecker(Configuration configuration, IProject project)
+          throws CheckstyleException, CheckstylePluginException {
 
     // create and configure checker
     Checker checker = new Checker();
-    checker.setModuleFactory(new PackageObjectFactory(packageNames, moduleClassLoader,
-            ModuleLoadOption.TRY_IN_ALL_REGISTERED_PACKAGES));
+    checker.setModuleFactory(createModuleFactory());
     try {
       checker.setCharset(project.getDefaultCharset());
     } catch (UnsupportedEncodingException e) {
@@ -237,6 +327,10 @@ public final class CheckerFactory {
     checker.setLocaleLanguage(platformLocale.getLanguage());
     checker.setLocaleCountry(platformLocale.getCountry());
 
+    // capture the text of the processed files for the audit listener, added
+    // first so it sees every file even if a later check fails
+    checker.addFileSetCheck(new FileTextCapture());
+
     checker.configure(configuration);
 
     // reset the basedir if it is set so it won't get into the plugins way
@@ -247,4 +341,177 @@ public final class CheckerFactory {
 
     return checker;
   }
+
+  /**
+   * Loads the Checkstyle configuration from the given configuration file data.
+   *
+   * @param configFileData
+   *          the resolved configuration file data
+   * @param project
+   *          the project
+   * @return the loaded configuration
+   * @throws CheckstyleException
+   *           the configuration file had errors
+   */
+  static Configuration loadConfiguration(CheckstyleConfigurationFile configFileData,
+          IProject project) throws CheckstyleException {
+
+    // the resolver is shared by all projects using the configuration, its project context must
+    // not change until the configuration has been loaded
+    synchronized (configFileData) {
+
+      PropertyResolver resolver = configFileData.getPropertyResolver();
+
+      // set the project context if the property resolver needs the
+      // context
+      if (resolver instanceof IContextAware) {
+        ((IContextAware) resolver).setProjectContext(project);
+      }
+
+      InputSource in = null;
+      try {
+        in = configFileData.getCheckConfigFileInputSource();
+        return ConfigurationLoader.loadConfiguration(in, resolver, IgnoredModulesOptions.OMIT);
+      } finally {
+        Closeables.closeQuietly(in.getByteStream());
+      }
+    }
+  }
+
+  /**
+   * Creates the factory for Checkstyle modules, which also knows the modules of plugin extensions.
+   *
+   * @return the module factory
+   * @throws CheckstyleException
+   *           error loading the package names
+   */
+  static ModuleFactory createModuleFactory() throws CheckstyleException {
+
+    ClassLoader moduleClassLoader = CheckstylePlugin.getDefault().getAddonExtensionClassLoader();
+    Set<String> packageNames = PackageNamesLoader.getPackageNames(moduleClassLoader);
+
+    return new PackageObjectFactory(packageNames, moduleClassLoader,
+            ModuleLoadOption.TRY_IN_ALL_REGISTERED_PACKAGES);
+  }
+
+  /**
+   * Pool of the idle checkers of one project and check configuration. Idle checkers are softly
+   * referenced, so they can be reclaimed under memory pressure.
+   */
+  private static final class CheckerPool {
+
+    /** The configuration file data the checkers were created from. */
+    private final CheckstyleConfigurationFile mConfigFileData;
+
+    /** The idle checkers, the most recently returned first. */
+    private final Deque<IdleChecker> mIdleCheckers = new ArrayDeque<>();
+
+    /** Flags if the pool has been discarded. */
+    private boolean mDisposed;
+
+    private CheckerPool(CheckstyleConfigurationFile configFileData) {
+      mConfigFileData = configFileData;
+    }
+
+    /**
+     * Takes an idle checker from the pool.
+     *
+     * @return the checker or <code>null</code> if the pool holds no idle checker
+     */
+    private synchronized Checker poll() {
+      evictIdleCheckers();
+
+      IdleChecker idle;
+      while ((idle = mIdleCheckers.pollFirst()) != null) {
+        Checker checker = idle.mChecker.get();
+        if (checker != null) {
+          return checker;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Puts a checker back into the pool. The checker is destroyed if the pool is full or has been
+     * discarded.
+     *
+     * @param checker
+     *          the checker
+     * @param maxSize
+     *          the maximum number of idle checkers
+     */
+    private synchronized void offer(Checker checker, int maxSize) {
+      evictIdleCheckers();
+
+      if (!mDisposed && mIdleCheckers.size() < maxSize) {
+        mIdleCheckers.addFirst(new IdleChecker(checker));
+      } else {
+        checker.destroy();
+      }
+    }
+
+    /**
+     * Discards the pool and destroys its idle checkers. Checkers still borrowed are destroyed when
+     * they are returned.
+     */
+    private synchronized void dispose() {
+      mDisposed = true;
+
+      IdleChecker idle;
+      while ((idle = mIdleCheckers.pollFirst()) != null) {
+        idle.destroy();
+      }
+    }
+
+    private void evictIdleCheckers() {
+      long now = System.currentTimeMillis();
+
+      // the least recently returned checkers are at the end
+      Iterator<IdleChecker> it = mIdleCheckers.descendingIterator();
+      while (it.hasNext()) {
+        IdleChecker idle = it.next();
+        if (now - idle.mIdleSince > IDLE_TIMEOUT || idle.mChecker.get() == null) {
+          it.remove();
+          idle.destroy();
+        }
+      }
+    }
+  }
+
+  /**
+   * An idle checker in a pool.
+   */
+  private static final class IdleChecker {
+
+    private final SoftReference<Checker> mChecker;
+
+    private final long mIdleSince = System.currentTimeMillis();
+
+    private IdleChecker(Checker checker) {
+      mChecker = new SoftReference<>(checker);
+    }
+
+    /**
+     * Destroys the checker, unless it has already been reclaimed.
+     */
+    private void destroy() {
+      Checker checker = mChecker.get();
+      if (checker != null) {
+        checker.destroy();
+      }
+    }
+  }
+
+  /**
+   * Discards the cached checkers of closed and deleted projects.
+   */
+  private static class ProjectListener implements IResourceChangeListener {
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+      if (event.getResource() instanceof IProject) {
+        cleanup((IProject) event.getResource());
+      }
+    }
+  }
 }
@@ -24,20 +24,25 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import net.sf.eclipsecs.core.CheckstylePlugin;
 import net.sf.eclipsecs.core.CheckstylePluginPrefs;
 import net.sf.eclipsecs.core.Messages;
 import net.sf.eclipsecs.core.config.ICheckConfiguration;
 import net.sf.eclipsecs.core.jobs.AuditorJob;
+import net.sf.eclipsecs.core.jobs.BuildFileSetsJob;
 import net.sf.eclipsecs.core.jobs.BuildProjectJob;
 import net.sf.eclipsecs.core.nature.CheckstyleNature;
 import net.sf.eclipsecs.core.projectconfig.FileSet;
+import net.sf.eclipsecs.core.projectconfig.FileSetMatcher;
 import net.sf.eclipsecs.core.projectconfig.IProjectConfiguration;
 import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
-import net.sf.eclipsecs.core.projectconfig.filters.IFilter;
+import net.sf.eclipsecs.core.projectconfig.filters.FilterChain;
 import net.sf.eclipsecs.core.util.CheckstylePluginException;
 
 import org.eclipse.core.resources.IContainer;
@@ -46,10 +51,14 @@ import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
@@ -77,7 +86,6 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
   public static void buildProject(final IProject project) {
     // uses the new Jobs API to run the build in the background
     BuildProjectJob buildJob = new BuildProjectJob(project, IncrementalProjectBuilder.FULL_BUILD);
-    buildJob.setRule(ResourcesPlugin.getWorkspace().getRoot());
     buildJob.schedule();
   }
 
@@ -94,6 +102,19 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
     buildProjects(Arrays.asList(projects));
   }
 
+  /**
+   * Audits the files of all file sets using the given check configurations, e.g. after the
+   * configurations changed. Other files of the projects using the configurations are not audited.
+   *
+   * @param checkConfigs
+   *          the check configurations
+   */
+  public static void buildFileSets(Collection<? extends ICheckConfiguration> checkConfigs) {
+    if (!checkConfigs.isEmpty()) {
+      new BuildFileSetsJob(checkConfigs).schedule();
+    }
+  }
+
   /**
    * Builds all checkstyle enabled projects that are open from the given collection of projects.
    *
@@ -123,7 +144,6 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
     BuildProjectJob buildJob = new BuildProjectJob(
             checkstyleProjects.toArray(new IProject[checkstyleProjects.size()]),
             IncrementalProjectBuilder.FULL_BUILD);
-    buildJob.setRule(ResourcesPlugin.getWorkspace().getRoot());
     buildJob.schedule();
   }
 
@@ -161,7 +181,7 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
       // get the delta of the latest changes
       IResourceDelta resourceDelta = getDelta(project);
 
-      IFilter[] filters = config.getFilters().toArray(new IFilter[config.getFilters().size()]);
+      FilterChain filters = new FilterChain(project, config.getFilters());
 
       // find the files for the build
       if (resourceDelta != null) {
@@ -201,6 +221,9 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
   @Override
   protected void clean(IProgressMonitor monitor) throws CoreException {
     getProject().deleteMarkers(CheckstyleMarker.MARKER_ID, false, IResource.DEPTH_INFINITE);
+
+    // an explicit clean forces a complete audit on the next build
+    AuditResultCache.clear(getProject());
   }
 
   /**
@@ -228,8 +251,12 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
     // System.out.println(new java.util.Date() + " kind: " + kind + " files:
     // " + resources.size());
 
+    // reconciled markers of audited files are updated by the auditors
+    boolean reconcileMarkers = CheckstylePluginPrefs
+            .getBoolean(CheckstylePluginPrefs.PREF_RECONCILE_MARKERS);
+
     // on full build remove all previous checkstyle markers
-    if (kind == IncrementalProjectBuilder.FULL_BUILD) {
+    if (kind == IncrementalProjectBuilder.FULL_BUILD && !reconcileMarkers) {
       project.deleteMarkers(CheckstyleMarker.MARKER_ID, false, IResource.DEPTH_INFINITE);
     }
 
@@ -247,6 +274,9 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
       List<FileSet> fileSets = configuration.getFileSets();
 
       Map<ICheckConfiguration, Auditor> audits = new HashMap<>();
+      Map<FileSet, Auditor> fileSetAudits = new IdentityHashMap<>();
+
+      Set<IResource> auditedFiles = new HashSet<>();
 
       for (FileSet fileSet : fileSets) {
 
@@ -268,31 +298,51 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
         if (audit == null) {
 
           audit = new Auditor(checkConfig);
+          audit.setFullBuild(kind == IncrementalProjectBuilder.FULL_BUILD);
           audits.put(checkConfig, audit);
         }
+        fileSetAudits.put(fileSet, audit);
+      }
 
-        // check which files belong to the file set
-        for (IResource resource : resources) {
+      // check which file sets the files belong to, all file sets are
+      // decided at once by the matcher
+      FileSetMatcher matcher = configuration.getFileSetMatcher();
+      for (IResource resource : resources) {
 
-          if (resource instanceof IFile) {
-            IFile file = (IFile) resource;
+        if (resource instanceof IFile) {
+          IFile file = (IFile) resource;
 
-            // if file set includes file add to the audit
-            if (fileSet.includesFile(file)) {
+          // add the file to the audits of the enabled file sets including it
+          boolean included = false;
+          for (FileSet fileSet : matcher.getFileSets(file)) {
+            Auditor audit = fileSetAudits.get(fileSet);
+            if (audit != null) {
               audit.addFile(file);
+              included = true;
+            }
+          }
 
-              // remove markers on this file
-              file.deleteMarkers(CheckstyleMarker.MARKER_ID, false, IResource.DEPTH_ZERO);
+          if (included) {
+            auditedFiles.add(file);
 
-              // remove markers from package to prevent
-              // packagehtml messages from accumulatin
-              file.getParent().deleteMarkers(CheckstyleMarker.MARKER_ID, false,
-                      IResource.DEPTH_ZERO);
+            // remove markers on this file
+            if (!reconcileMarkers) {
+              file.deleteMarkers(CheckstyleMarker.MARKER_ID, false, IResource.DEPTH_ZERO);
             }
+
+            // remove markers from package to prevent
+            // packagehtml messages from accumulatin
+            file.getParent().deleteMarkers(CheckstyleMarker.MARKER_ID, false,
+                    IResource.DEPTH_ZERO);
           }
         }
       }
 
+      // on full build remove the markers of everything not audited anymore
+      if (kind == IncrementalProjectBuilder.FULL_BUILD && reconcileMarkers) {
+        deleteMarkersExcept(project, auditedFiles);
+      }
+
       // run all auditors
       for (Auditor audit : audits.values()) {
         if (monitor.isCanceled()) {
@@ -314,6 +364,33 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
     }
   }
 
+  /**
+   * Deletes all Checkstyle markers of the project, except the markers of the given resources.
+   *
+   * @param project
+   *          the project
+   * @param keep
+   *          the resources whose markers are kept
+   * @throws CoreException
+   *           error deleting the markers
+   */
+  private static void deleteMarkersExcept(final IProject project, final Set<IResource> keep)
+          throws CoreException {
+
+    List<IMarker> obsoleteMarkers = new ArrayList<>();
+    for (IMarker marker : project.findMarkers(CheckstyleMarker.MARKER_ID, false,
+            IResource.DEPTH_INFINITE)) {
+      if (!keep.contains(marker.getResource())) {
+        obsoleteMarkers.add(marker);
+      }
+    }
+
+    if (!obsoleteMarkers.isEmpty()) {
+      project.getWorkspace()
+              .deleteMarkers(obsoleteMarkers.toArray(new IMarker[obsoleteMarkers.size()]));
+    }
+  }
+
   /**
    * Get the files for the build by analyzing the resource delta.
    *
@@ -325,45 +402,48 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
    * @throws CoreException
    *           an unexpected error occurred
    */
-  private Collection<IResource> getResources(final IResourceDelta delta, final IFilter[] filters)
+  private Collection<IResource> getResources(final IResourceDelta delta, final FilterChain filters)
           throws CoreException {
 
-    List<IResource> resources = new ArrayList<>();
-
-    IResourceDelta[] affectedChildren = delta.getAffectedChildren();
-
-    for (int i = 0; i < affectedChildren.length; i++) {
-
-      IResourceDelta childDelta = affectedChildren[i];
-
-      // check if a resource has changed
-      int deltaKind = childDelta.getKind();
-      if ((deltaKind == IResourceDelta.ADDED) || (deltaKind == IResourceDelta.CHANGED)) {
+    final List<IResource> resources = new ArrayList<>();
+    final List<String> removedLocations = new ArrayList<>();
 
-        IResource child = childDelta.getResource();
+    delta.accept(new IResourceDeltaVisitor() {
 
-        // filter resources
-        boolean goesThrough = true;
-        for (int j = 0; j < filters.length; j++) {
+      @Override
+      public boolean visit(IResourceDelta childDelta) {
 
-          if (filters[j].isEnabled() && !filters[j].accept(child)) {
-            goesThrough = false;
-            break;
+        // drop the cached audit results of deleted files, together with their folder
+        int deltaKind = childDelta.getKind();
+        if (deltaKind == IResourceDelta.REMOVED) {
+          IPath location = childDelta.getResource().getLocation();
+          if (location != null) {
+            removedLocations.add(location.toString());
           }
+          return false;
         }
 
-        // the child has made it through the filters
-        if (goesThrough) {
+        // check if a resource has changed
+        if ((deltaKind != IResourceDelta.ADDED) && (deltaKind != IResourceDelta.CHANGED)) {
+          return false;
+        }
+
+        IResource resource = childDelta.getResource();
 
-          // add to the resources to check
-          resources.add(child);
+        // recurse over containers, unless a filter rejects everything inside
+        if (resource instanceof IContainer) {
+          return !filters.rejectsAll((IContainer) resource);
         }
 
-        // recurse over containers
-        if (child instanceof IContainer) {
-          resources.addAll(getResources(childDelta, filters));
+        if (filters.accept(resource)) {
+          resources.add(resource);
         }
+        return false;
       }
+    });
+
+    if (!removedLocations.isEmpty()) {
+      AuditResultCache.removeFiles(getProject(), removedLocations);
     }
     return resources;
   }
@@ -379,40 +459,29 @@ public class CheckstyleBuilder extends IncrementalProjectBuilder {
    * @throws CoreException
    *           an unexpected error occurred
    */
-  private Collection<IResource> getResources(final IContainer container, final IFilter[] filters)
+  private Collection<IResource> getResources(final IContainer container, final FilterChain filters)
           throws CoreException {
 
-    List<IResource> resources = new ArrayList<>();
+    final List<IResource> resources = new ArrayList<>();
 
-    IResource[] children = container.members();
+    // proxies avoid creating resource handles for everything not needed
+    container.accept(new IResourceProxyVisitor() {
 
-    // loop over children resources
-    for (int i = 0; i < children.length; i++) {
+      @Override
+      public boolean visit(IResourceProxy proxy) {
 
-      IResource child = children[i];
-
-      // filter resources
-      boolean goesThrough = true;
-      for (int j = 0; j < filters.length; j++) {
-
-        if (filters[j].isEnabled() && !filters[j].accept(child)) {
-          goesThrough = false;
-          break;
+        if (proxy.getType() == IResource.FILE) {
+          IResource file = proxy.requestResource();
+          if (filters.accept(file)) {
+            resources.add(file);
+          }
+          return false;
         }
-      }
-
-      // the child has made it through the filters
-      if (goesThrough) {
 
-        // add to the resources to check
-        resources.add(child);
+        // recurse over containers, unless a filter rejects everything inside
+        return !filters.rejectsAll((IContainer) proxy.requestResource());
       }
-
-      // recurse over containers
-      if (child instanceof IContainer) {
-        resources.addAll(getResources((IContainer) child, filters));
-      }
-    }
+    }, IResource.NONE);
     return resources;
   }
 
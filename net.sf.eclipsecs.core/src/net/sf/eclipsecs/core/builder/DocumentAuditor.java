@@ -0,0 +1,194 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.builder;
+
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.eclipsecs.core.CheckstylePluginPrefs;
+import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.nature.CheckstyleNature;
+import net.sf.eclipsecs.core.projectconfig.FileSet;
+import net.sf.eclipsecs.core.projectconfig.IProjectConfiguration;
+import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
+import net.sf.eclipsecs.core.projectconfig.filters.IFilter;
+import net.sf.eclipsecs.core.util.CheckstylePluginException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+
+/**
+ * Audits the contents of a document, e.g. the unsaved buffer of an editor, without going through
+ * the file system or the builder. The modules of the check configuration are fed with the text of
+ * the document directly, the results are returned as marker attributes instead of creating
+ * markers.
+ */
+public class DocumentAuditor {
+
+  /** The check configuration the auditor uses. */
+  private final ICheckConfiguration mCheckConfiguration;
+
+  /** Add the check rule name to the message. */
+  private final boolean mAddRuleName;
+
+  /** Add the check module id to the message. */
+  private final boolean mAddModuleId;
+
+  /**
+   * Creates a document auditor.
+   *
+   * @param checkConfiguration
+   *          the check configuraton to use during audit.
+   */
+  public DocumentAuditor(ICheckConfiguration checkConfiguration) {
+    mCheckConfiguration = checkConfiguration;
+    mAddRuleName = CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_INCLUDE_RULE_NAMES);
+    mAddModuleId = CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_INCLUDE_MODULE_IDS);
+  }
+
+  /**
+   * Returns the check configurations a file is audited with by the builder, that is the
+   * configurations of all enabled file sets including the file. The result is empty if Checkstyle
+   * is not enabled for the project of the file or if the file is excluded by a filter.
+   *
+   * @param file
+   *          the file
+   * @return the check configurations
+   * @throws CheckstylePluginException
+   *           error reading the project configuration
+   */
+  public static Set<ICheckConfiguration> getCheckConfigurations(IFile file)
+          throws CheckstylePluginException {
+
+    IProject project = file.getProject();
+    try {
+      if (!project.isAccessible() || !project.hasNature(CheckstyleNature.NATURE_ID)) {
+        return Collections.emptySet();
+      }
+    } catch (CoreException e) {
+      CheckstylePluginException.rethrow(e);
+    }
+
+    IProjectConfiguration configuration = ProjectConfigurationFactory.getConfiguration(project);
+
+    for (IFilter filter : configuration.getFilters()) {
+      if (filter.isEnabled() && !filter.accept(file)) {
+        return Collections.emptySet();
+      }
+    }
+
+    Set<ICheckConfiguration> checkConfigs = new LinkedHashSet<>();
+    for (FileSet fileSet : configuration.getFileSetMatcher().getFileSets(file)) {
+      if (fileSet.isEnabled() && fileSet.getCheckConfig() != null) {
+        checkConfigs.add(fileSet.getCheckConfig());
+      }
+    }
+    return checkConfigs;
+  }
+
+  /**
+   * Audits the given document as the contents of the given file. The document must not be
+   * modified while the audit is running, callers are expected to pass a copy of a document being
+   * edited.
+   *
+   * @param file
+   *          the file the document belongs to
+   * @param document
+   *          the document
+   * @return the attributes of the markers the audit would create, including the offsets within
+   *         the document
+   * @throws CheckstyleException
+   *           error processing the document, e.g. because it does not parse
+   * @throws CheckstylePluginException
+   *           the configuration could not be read
+   */
+  public List<Map<String, Object>> audit(IFile file, IDocument document)
+          throws CheckstyleException, CheckstylePluginException {
+
+    IPath location = file.getLocation();
+    if (location == null) {
+      return Collections.emptyList();
+    }
+
+    List<String> lines = getLines(document);
+
+    DocumentChecker checker = DocumentChecker.get(mCheckConfiguration, file.getProject());
+    List<AuditEvent> events = null;
+    synchronized (checker) {
+      events = checker.process(location.toFile(), lines);
+    }
+
+    boolean limitMarkers = CheckstylePluginPrefs
+            .getBoolean(CheckstylePluginPrefs.PREF_LIMIT_MARKERS_PER_RESOURCE);
+    int markerLimit = CheckstylePluginPrefs.getInt(CheckstylePluginPrefs.PREF_MARKER_AMOUNT_LIMIT);
+
+    List<Map<String, Object>> markers = new ArrayList<>();
+    MarkerTemplateCache markerTemplates = new MarkerTemplateCache(mAddRuleName, mAddModuleId);
+    for (AuditEvent event : events) {
+
+      if (limitMarkers && markers.size() >= markerLimit) {
+        break;
+      }
+
+      if (!event.getSeverityLevel().equals(SeverityLevel.IGNORE)) {
+        Map<String, Object> markerAttributes = markerTemplates.createMarkerAttributes(event);
+        Auditor.calculateMarkerOffset(event, document, markerAttributes);
+        markers.add(markerAttributes);
+      }
+    }
+    return markers;
+  }
+
+  /**
+   * Discards the cached document checkers.
+   */
+  public static void cleanup() {
+    DocumentChecker.cleanup();
+  }
+
+  private static List<String> getLines(IDocument document) throws CheckstylePluginException {
+
+    int lineCount = document.getNumberOfLines();
+    List<String> lines = new ArrayList<>(lineCount);
+    try {
+      for (int i = 0; i < lineCount; i++) {
+        IRegion line = document.getLineInformation(i);
+        lines.add(document.get(line.getOffset(), line.getLength()));
+      }
+    } catch (BadLocationException e) {
+      CheckstylePluginException.rethrow(e);
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,448 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.builder;
+
+import com.puppycrawl.tools.checkstyle.DefaultContext;
+import com.puppycrawl.tools.checkstyle.ModuleFactory;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AutomaticBean;
+import com.puppycrawl.tools.checkstyle.api.BeforeExecutionFileFilter;
+import com.puppycrawl.tools.checkstyle.api.BeforeExecutionFileFilterSet;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.api.FileSetCheck;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+import com.puppycrawl.tools.checkstyle.api.Filter;
+import com.puppycrawl.tools.checkstyle.api.FilterSet;
+import com.puppycrawl.tools.checkstyle.api.LocalizedMessage;
+import com.puppycrawl.tools.checkstyle.api.MessageDispatcher;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+import com.puppycrawl.tools.checkstyle.checks.regexp.RegexpSinglelineCheck;
+import com.puppycrawl.tools.checkstyle.checks.sizes.LineLengthCheck;
+import com.puppycrawl.tools.checkstyle.checks.whitespace.FileTabCharacterCheck;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import net.sf.eclipsecs.core.CheckstylePlugin;
+import net.sf.eclipsecs.core.config.CheckstyleConfigurationFile;
+import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.util.CheckstylePluginException;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Runs the file set checks of a configuration on text. This does the work of a
+ * <code>Checker</code>, which can only process files read from disk.
+ *
+ * <p>
+ * Checks whose violations depend on single lines only, like the line length check, can be run on a
+ * range of lines. This lets an incremental audit keep the violations of the unchanged lines.
+ * </p>
+ *
+ * <p>
+ * A document checker is not thread safe, callers must synchronize on it.
+ * </p>
+ */
+final class DocumentChecker implements MessageDispatcher {
+
+  /** The tab width Checkstyle uses if the configuration does not set one. */
+  private static final String DEFAULT_TAB_WIDTH = "8"; //$NON-NLS-1$
+
+  /** The document checkers, keyed like the checker pools. */
+  private static Map<String, DocumentChecker> sCheckers = new HashMap<>();
+
+  /** The configuration file data the checker was created from. */
+  private final CheckstyleConfigurationFile mConfigFileData;
+
+  /** The charset of the project. */
+  private final String mCharset;
+
+  /** The file set checks of the configuration. */
+  private final List<FileSetCheck> mFileSetChecks = new ArrayList<>();
+
+  /** The file set checks whose violations depend on single lines only. */
+  private final Set<FileSetCheck> mLineScopedChecks = Collections
+          .newSetFromMap(new IdentityHashMap<FileSetCheck, Boolean>());
+
+  /** The marker module names of the line scoped checks. */
+  private final Set<String> mLineScopedModuleNames = new HashSet<>();
+
+  /** The filters of the configuration. */
+  private final FilterSet mFilters = new FilterSet();
+
+  /** The before execution file filters of the configuration. */
+  private final BeforeExecutionFileFilterSet mBeforeExecutionFileFilters =
+          new BeforeExecutionFileFilterSet();
+
+  /** The events of the current audit. */
+  private final List<AuditEvent> mEvents = new ArrayList<>();
+
+  /** Flags if the checker has been replaced or discarded and its checks are destroyed. */
+  private boolean mDestroyed;
+
+  private DocumentChecker(CheckstyleConfigurationFile configFileData, IProject project)
+          throws CheckstyleException, CheckstylePluginException {
+
+    mConfigFileData = configFileData;
+
+    Configuration configuration = CheckerFactory.loadConfiguration(configFileData, project);
+    ModuleFactory moduleFactory = CheckerFactory.createModuleFactory();
+
+    String charset = null;
+    try {
+      charset = project.getDefaultCharset();
+    } catch (CoreException e) {
+      CheckstylePluginException.rethrow(e);
+    }
+    mCharset = charset;
+
+    LocalizedMessage.setLocale(CheckstylePlugin.getPlatformLocale());
+
+    // the same context a checker provides to its modules
+    DefaultContext context = new DefaultContext();
+    context.add("charset", mCharset); //$NON-NLS-1$
+    context.add("moduleFactory", moduleFactory); //$NON-NLS-1$
+    context.add("severity", getAttribute(configuration, "severity", //$NON-NLS-1$ //$NON-NLS-2$
+            SeverityLevel.ERROR.getName()));
+    context.add("tabWidth", //$NON-NLS-1$
+            getAttribute(configuration, "tabWidth", DEFAULT_TAB_WIDTH)); //$NON-NLS-1$
+
+    Set<String> otherModuleNames = new HashSet<>();
+
+    for (Configuration childConfiguration : configuration.getChildren()) {
+
+      Object child = moduleFactory.createModule(childConfiguration.getName());
+      if (child instanceof AutomaticBean) {
+        ((AutomaticBean) child).contextualize(context);
+        ((AutomaticBean) child).configure(childConfiguration);
+      }
+
+      if (child instanceof FileSetCheck) {
+        FileSetCheck fileSetCheck = (FileSetCheck) child;
+        fileSetCheck.init();
+        fileSetCheck.setMessageDispatcher(this);
+        mFileSetChecks.add(fileSetCheck);
+
+        String moduleName = Auditor.getModuleName(child.getClass().getName());
+        if (isLineScoped(fileSetCheck, childConfiguration)) {
+          mLineScopedChecks.add(fileSetCheck);
+          mLineScopedModuleNames.add(moduleName);
+        } else {
+          otherModuleNames.add(moduleName);
+        }
+      } else if (child instanceof BeforeExecutionFileFilter) {
+        mBeforeExecutionFileFilters.addBeforeExecutionFileFilter(
+                (BeforeExecutionFileFilter) child);
+      } else if (child instanceof Filter) {
+        mFilters.addFilter((Filter) child);
+      }
+      // audit listeners of the configuration are not notified of document audits
+    }
+
+    // the markers of a module can only be kept if all its instances are line scoped
+    mLineScopedModuleNames.removeAll(otherModuleNames);
+  }
+
+  /**
+   * Returns the document checker for the given check configuration and project. The checker is
+   * replaced when the configuration has been reloaded, the replaced checker is destroyed.
+   *
+   * @param config
+   *          the check configuration
+   * @param project
+   *          the project
+   * @return the document checker
+   * @throws CheckstyleException
+   *           error creating the checker
+   * @throws CheckstylePluginException
+   *           the configuration could not be read
+   */
+  static DocumentChecker get(ICheckConfiguration config, IProject project)
+          throws CheckstyleException, CheckstylePluginException {
+
+    String cacheKey = CheckerFactory.getCacheKey(config, project);
+    CheckstyleConfigurationFile configFileData = config.getCheckstyleConfiguration();
+
+    DocumentChecker checker = null;
+    DocumentChecker replaced = null;
+    synchronized (sCheckers) {
+
+      checker = sCheckers.get(cacheKey);
+
+      // the configuration has been reloaded
+      if (checker == null || checker.mConfigFileData != configFileData) {
+        replaced = checker;
+        checker = new DocumentChecker(configFileData, project);
+        sCheckers.put(cacheKey, checker);
+      }
+    }
+
+    // waits for a running audit of the replaced checker to finish
+    if (replaced != null) {
+      replaced.destroy();
+    }
+    return checker;
+  }
+
+  /**
+   * Discards the cached document checkers.
+   */
+  static void cleanup() {
+    List<DocumentChecker> checkers = null;
+    synchronized (sCheckers) {
+      checkers = new ArrayList<>(sCheckers.values());
+      sCheckers.clear();
+    }
+    for (DocumentChecker checker : checkers) {
+      checker.destroy();
+    }
+  }
+
+  /**
+   * Discards the cached document checkers of a project.
+   *
+   * @param project
+   *          the project
+   */
+  static void cleanup(IProject project) {
+
+    String prefix = CheckerFactory.getCacheKeyPrefix(project);
+    List<DocumentChecker> checkers = new ArrayList<>();
+    synchronized (sCheckers) {
+      Iterator<Map.Entry<String, DocumentChecker>> it = sCheckers.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<String, DocumentChecker> entry = it.next();
+        if (entry.getKey().startsWith(prefix)) {
+          checkers.add(entry.getValue());
+          it.remove();
+        }
+      }
+    }
+    for (DocumentChecker checker : checkers) {
+      checker.destroy();
+    }
+  }
+
+  /**
+   * Returns the charset the checker reads files with.
+   *
+   * @return the charset of the project
+   */
+  String getCharset() {
+    return mCharset;
+  }
+
+  /**
+   * Returns if the checker can run its line scoped checks on a range of lines. This requires line
+   * scoped checks to exist and no filters to be configured, since filters like suppression comments
+   * or line based suppressions can change the violations outside the range.
+   *
+   * @return <code>true</code> if line ranges can be processed
+   */
+  boolean isLineRangeSupported() {
+    return !mLineScopedModuleNames.isEmpty() && mFilters.getFilters().isEmpty();
+  }
+
+  /**
+   * Returns the marker module names of the modules whose violations depend on single lines only.
+   *
+   * @return the module names
+   */
+  Set<String> getLineScopedModuleNames() {
+    return mLineScopedModuleNames;
+  }
+
+  /**
+   * Processes the lines of a file.
+   *
+   * @param file
+   *          the file the lines belong to
+   * @param lines
+   *          the lines
+   * @return the audit events of the file
+   * @throws CheckstyleException
+   *           error processing the lines
+   */
+  List<AuditEvent> process(File file, List<String> lines) throws CheckstyleException {
+    return process(file, lines, 0, lines.size());
+  }
+
+  /**
+   * Processes the lines of a file, running the line scoped checks on the given range of lines only.
+   * All other checks process the whole file.
+   *
+   * @param file
+   *          the file the lines belong to
+   * @param lines
+   *          the lines
+   * @param firstLine
+   *          the zero based index of the first line to run the line scoped checks on
+   * @param endLine
+   *          the zero based index after the last line to run the line scoped checks on
+   * @return the audit events of the file
+   * @throws CheckstyleException
+   *           error processing the lines
+   */
+  List<AuditEvent> process(File file, List<String> lines, int firstLine, int endLine)
+          throws CheckstyleException {
+
+    // a caller still holding a replaced checker falls back to a regular audit
+    if (mDestroyed) {
+      throw new CheckstyleException("The document checker has been discarded"); //$NON-NLS-1$
+    }
+
+    String fileName = file.getAbsolutePath();
+    if (!mBeforeExecutionFileFilters.accept(fileName)) {
+      return Collections.emptyList();
+    }
+
+    mEvents.clear();
+    try {
+      FileText text = new FileText(file, lines);
+
+      // the line scoped checks see the lines outside the range as empty lines, which keeps the
+      // line numbers intact
+      FileText rangeText = text;
+      if (firstLine > 0 || endLine < lines.size()) {
+        String emptyLine = ""; //$NON-NLS-1$
+        List<String> rangeLines = new ArrayList<>(Collections.nCopies(lines.size(), emptyLine));
+        for (int i = firstLine; i < endLine; i++) {
+          rangeLines.set(i, lines.get(i));
+        }
+        rangeText = new FileText(file, rangeLines);
+      }
+
+      for (FileSetCheck fileSetCheck : mFileSetChecks) {
+        fileSetCheck.beginProcessing(mCharset);
+        try {
+          if (rangeText != text && mLineScopedChecks.contains(fileSetCheck)) {
+            fireErrors(fileName, getErrorsInRange(fileSetCheck.process(file, rangeText),
+                    firstLine, endLine));
+          } else {
+            fireErrors(fileName, fileSetCheck.process(file, text));
+          }
+        } finally {
+          fileSetCheck.finishProcessing();
+        }
+      }
+
+      // file set checks may report errors of other files when they finish
+      List<AuditEvent> events = new ArrayList<>();
+      for (AuditEvent event : mEvents) {
+        if (fileName.equals(event.getFileName())) {
+          events.add(event);
+        }
+      }
+      return events;
+    } finally {
+      mEvents.clear();
+    }
+  }
+
+  /**
+   * Destroys the checks of the checker, like a <code>Checker</code> does when it is destroyed.
+   */
+  private synchronized void destroy() {
+    if (!mDestroyed) {
+      mDestroyed = true;
+      for (FileSetCheck fileSetCheck : mFileSetChecks) {
+        fileSetCheck.destroy();
+      }
+    }
+  }
+
+  @Override
+  public void fireFileStarted(String fileName) {
+    // NOOP
+  }
+
+  @Override
+  public void fireErrors(String fileName, SortedSet<LocalizedMessage> errors) {
+    for (LocalizedMessage error : errors) {
+      AuditEvent event = new AuditEvent(this, fileName, error);
+      if (mFilters.accept(event)) {
+        mEvents.add(event);
+      }
+    }
+  }
+
+  @Override
+  public void fireFileFinished(String fileName) {
+    // NOOP
+  }
+
+  /**
+   * Determines if the violations of a check depend on single lines only. Only a few well known
+   * checks qualify, some of them just in certain configurations.
+   */
+  private static boolean isLineScoped(FileSetCheck fileSetCheck, Configuration configuration)
+          throws CheckstyleException {
+
+    if (fileSetCheck instanceof LineLengthCheck) {
+      return true;
+    } else if (fileSetCheck instanceof FileTabCharacterCheck) {
+      // otherwise only the first tab of the file is reported
+      return Boolean.parseBoolean(getAttribute(configuration, "eachLine", null)); //$NON-NLS-1$
+    } else if (fileSetCheck instanceof RegexpSinglelineCheck) {
+      // the match counts refer to the whole file
+      return isZero(getAttribute(configuration, "minimum", null)) //$NON-NLS-1$
+              && isZero(getAttribute(configuration, "maximum", null)); //$NON-NLS-1$
+    }
+    return false;
+  }
+
+  private static boolean isZero(String value) {
+    return value == null || "0".equals(value.trim()); //$NON-NLS-1$
+  }
+
+  private static SortedSet<LocalizedMessage> getErrorsInRange(SortedSet<LocalizedMessage> errors,
+          int firstLine, int endLine) {
+
+    SortedSet<LocalizedMessage> errorsInRange = new TreeSet<>();
+    for (LocalizedMessage error : errors) {
+      if (error.getLineNo() > firstLine && error.getLineNo() <= endLine) {
+        errorsInRange.add(error);
+      }
+    }
+    return errorsInRange;
+  }
+
+  private static String getAttribute(Configuration configuration, String name,
+          String defaultValue) throws CheckstyleException {
+    if (Arrays.asList(configuration.getAttributeNames()).contains(name)) {
+      return configuration.getAttribute(name);
+    }
+    return defaultValue;
+  }
+}
@@ -0,0 +1,153 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.builder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The lines of a text file together with their line index. Lines are separated the same way
+ * Checkstyle does, by <code>\n</code>, <code>\r\n</code> or <code>\r</code>.
+ */
+final class FileLines {
+
+  /** The lines, without the line delimiters. */
+  private final List<String> mLines;
+
+  /** The hashes of the lines, including the line delimiters. */
+  private final long[] mLineHashes;
+
+  /** The line index of the text. */
+  private final LineIndex mLineIndex;
+
+  /**
+   * Splits the given text into lines.
+   *
+   * @param text
+   *          the text
+   */
+  FileLines(String text) {
+
+    mLineIndex = new LineIndex(text);
+
+    // the offset of the line index within the text, a byte order mark is not indexed
+    int base = text.length() - mLineIndex.getLength();
+
+    int lineCount = mLineIndex.getLineCount();
+    List<String> lines = new ArrayList<>(lineCount);
+    mLineHashes = new long[lineCount];
+    MessageDigest digest = AuditResultCache.newDigest();
+    for (int i = 0; i < lineCount; i++) {
+
+      int start = base + mLineIndex.getLineOffset(i);
+      int end = start + mLineIndex.getLineLength(i);
+      int next = base + mLineIndex.getNextLineOffset(i);
+
+      // Checkstyle keeps the byte order mark in the first line
+      String line = text.substring(i == 0 ? 0 : start, end);
+      mLineHashes[i] = hash(digest, line, next - end);
+      lines.add(line);
+    }
+    mLines = Collections.unmodifiableList(lines);
+  }
+
+  /**
+   * Reads the lines of a file.
+   *
+   * @param file
+   *          the file
+   * @param charset
+   *          the charset of the file
+   * @return the lines of the file
+   * @throws IOException
+   *           error reading the file
+   */
+  static FileLines read(File file, String charset) throws IOException {
+    return new FileLines(new String(Files.readAllBytes(file.toPath()), charset));
+  }
+
+  /**
+   * Returns the lines, without the line delimiters.
+   *
+   * @return the lines
+   */
+  List<String> getLines() {
+    return mLines;
+  }
+
+  /**
+   * Returns the number of lines.
+   *
+   * @return the number of lines
+   */
+  int getLineCount() {
+    return mLines.size();
+  }
+
+  /**
+   * Returns the line index of the text.
+   *
+   * @return the line index
+   */
+  LineIndex getLineIndex() {
+    return mLineIndex;
+  }
+
+  /**
+   * Returns the hashes of the lines, including their line delimiters.
+   *
+   * @return the line hashes, must not be modified
+   */
+  long[] getLineHashes() {
+    return mLineHashes;
+  }
+
+  /**
+   * Hashes a line and the length of its delimiter, using the first 64 bits of the MD5 digest.
+   */
+  private static long hash(MessageDigest digest, String line, int delimiterLength) {
+
+    digest.update(line.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) delimiterLength);
+
+    byte[] bytes = digest.digest();
+    long hash = 0;
+    for (int i = 0; i < Long.BYTES; i++) {
+      hash = (hash << 8) | (bytes[i] & 0xFF);
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the length of the text, as used for the marker offsets.
+   *
+   * @return the length
+   */
+  int getLength() {
+    return mLineIndex.getLength();
+  }
+}
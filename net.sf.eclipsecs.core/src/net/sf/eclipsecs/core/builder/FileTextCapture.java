@@ -0,0 +1,64 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.builder;
+
+import com.puppycrawl.tools.checkstyle.api.AbstractFileSetCheck;
+import com.puppycrawl.tools.checkstyle.api.FileText;
+
+import java.io.File;
+
+/**
+ * File set check which remembers the text of the file processed last by the current thread. This
+ * gives the audit listener access to the content the checker has already read and decoded, e.g. to
+ * compute the marker offsets, without reading the file again. The check reports no violations.
+ */
+final class FileTextCapture extends AbstractFileSetCheck {
+
+  /** The text of the file processed last by the current thread. */
+  private static final ThreadLocal<FileText> CURRENT_TEXT = new ThreadLocal<>();
+
+  @Override
+  protected void processFiltered(File file, FileText fileText) {
+    CURRENT_TEXT.set(fileText);
+  }
+
+  /**
+   * Returns the text of the given file, if it is the file processed last by the current thread.
+   *
+   * @param fileName
+   *          the name of the file as reported in the audit events
+   * @return the file text or <code>null</code> if the text of the file has not been captured
+   */
+  static FileText get(String fileName) {
+    FileText fileText = CURRENT_TEXT.get();
+    if (fileText != null && fileText.getFile().getPath().equals(fileName)) {
+      return fileText;
+    }
+    return null;
+  }
+
+  /**
+   * Releases the text captured for the current thread.
+   */
+  static void clear() {
+    CURRENT_TEXT.remove();
+  }
+}
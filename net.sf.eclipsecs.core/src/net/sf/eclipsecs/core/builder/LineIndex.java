@@ -0,0 +1,141 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.builder;
+
+import java.util.Arrays;
+
+/**
+ * The offsets the lines of a text start and end at, lines separated the same way Checkstyle and
+ * Eclipse documents do, by <code>\n</code>, <code>\r\n</code> or <code>\r</code>. A leading byte
+ * order mark is not counted, since Eclipse documents do not contain it either.
+ */
+final class LineIndex {
+
+  /** The byte order mark as decoded character. */
+  private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+  /** The offsets of the line starts. */
+  private final int[] mLineStarts;
+
+  /** The offsets of the line ends, excluding the line delimiters. */
+  private final int[] mLineEnds;
+
+  /** The length of the text. */
+  private final int mLength;
+
+  /**
+   * Indexes the lines of the given text.
+   *
+   * @param text
+   *          the text
+   */
+  LineIndex(CharSequence text) {
+
+    int[] starts = new int[64];
+    int[] ends = new int[64];
+    int lineCount = 0;
+
+    int length = text.length();
+    int start = length > 0 && text.charAt(0) == BYTE_ORDER_MARK ? 1 : 0;
+    int base = start;
+    while (start < length) {
+
+      int end = start;
+      while (end < length && text.charAt(end) != '\n' && text.charAt(end) != '\r') {
+        end++;
+      }
+
+      int next = end;
+      if (next < length && text.charAt(next) == '\r') {
+        next++;
+      }
+      if (next < length && text.charAt(next) == '\n') {
+        next++;
+      }
+
+      if (lineCount == starts.length) {
+        starts = Arrays.copyOf(starts, lineCount * 2);
+        ends = Arrays.copyOf(ends, lineCount * 2);
+      }
+      starts[lineCount] = start - base;
+      ends[lineCount] = end - base;
+      lineCount++;
+
+      start = next;
+    }
+
+    mLineStarts = Arrays.copyOf(starts, lineCount);
+    mLineEnds = Arrays.copyOf(ends, lineCount);
+    mLength = length - base;
+  }
+
+  /**
+   * Returns the number of lines. A line delimiter at the end of the text does not start another
+   * line.
+   *
+   * @return the number of lines
+   */
+  int getLineCount() {
+    return mLineStarts.length;
+  }
+
+  /**
+   * Returns the offset the line with the given index starts at.
+   *
+   * @param index
+   *          the zero based line index
+   * @return the offset of the line start
+   */
+  int getLineOffset(int index) {
+    return mLineStarts[index];
+  }
+
+  /**
+   * Returns the length of the line with the given index, excluding the line delimiter.
+   *
+   * @param index
+   *          the zero based line index
+   * @return the length of the line
+   */
+  int getLineLength(int index) {
+    return mLineEnds[index] - mLineStarts[index];
+  }
+
+  /**
+   * Returns the offset after the line delimiter of the line with the given index.
+   *
+   * @param index
+   *          the zero based line index
+   * @return the offset of the next line start or the length of the text for the last line
+   */
+  int getNextLineOffset(int index) {
+    return index + 1 < mLineStarts.length ? mLineStarts[index + 1] : mLength;
+  }
+
+  /**
+   * Returns the length of the text, without a leading byte order mark.
+   *
+   * @return the length
+   */
+  int getLength() {
+    return mLength;
+  }
+}
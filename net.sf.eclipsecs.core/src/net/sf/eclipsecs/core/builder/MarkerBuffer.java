@@ -0,0 +1,275 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Buffers Checkstyle markers and creates them in bulk within a single workspace operation, so that
+ * a whole batch of markers results in one resource change notification instead of one per marker.
+ *
+ * <p>
+ * Markers are buffered per resource. In reconciling mode the buffered markers of a file are
+ * compared against the Checkstyle markers already present on the file: identical markers are kept,
+ * changed markers are updated, and only the remaining ones are created or deleted.
+ * </p>
+ */
+final class MarkerBuffer {
+
+  /** The marker attributes identifying a violation. */
+  private static final String[] IDENTITY_ATTRIBUTES = { CheckstyleMarker.MODULE_NAME,
+      CheckstyleMarker.MESSAGE_KEY, IMarker.LINE_NUMBER, IMarker.CHAR_START, IMarker.CHAR_END };
+
+  /** The number of buffered markers which triggers a flush. */
+  private final int mFlushSize;
+
+  /** Flags if the buffered markers are reconciled with the existing markers. */
+  private final boolean mReconcile;
+
+  /** The markers of the resources being audited. */
+  private final Map<IResource, List<Map<String, Object>>> mPendingMarkers = new HashMap<>();
+
+  /** The markers of the resources whose audit has finished. */
+  private final Map<IResource, List<Map<String, Object>>> mFinishedMarkers = new LinkedHashMap<>();
+
+  /** The number of markers of the finished resources. */
+  private int mFinishedMarkerCount;
+
+  /** All resources finished so far. */
+  private final Set<IResource> mAllFinished = new HashSet<>();
+
+  /**
+   * Creates a marker buffer.
+   *
+   * @param flushSize
+   *          the number of buffered markers which triggers a flush
+   * @param reconcile
+   *          <code>true</code> if the markers of a file are to be reconciled with its existing
+   *          markers, <code>false</code> if they are just created
+   */
+  MarkerBuffer(int flushSize, boolean reconcile) {
+    mFlushSize = Math.max(1, flushSize);
+    mReconcile = reconcile;
+  }
+
+  /**
+   * Adds a marker to the buffer. The attribute map is taken over by the buffer and must not be
+   * modified afterwards.
+   *
+   * @param resource
+   *          the resource to create the marker on
+   * @param attributes
+   *          the marker attributes
+   */
+  void add(IResource resource, Map<String, Object> attributes) {
+    getPendingMarkers(resource).add(attributes);
+  }
+
+  /**
+   * Signals that all markers of the given resource have been added. The markers of the resource
+   * become eligible for flushing, which happens as soon as enough markers have been collected.
+   *
+   * @param resource
+   *          the resource
+   * @throws CoreException
+   *           error creating the markers of a full buffer
+   */
+  void finish(IResource resource) throws CoreException {
+
+    List<Map<String, Object>> markers = getPendingMarkers(resource);
+    mPendingMarkers.remove(resource);
+    mAllFinished.add(resource);
+
+    List<Map<String, Object>> finished = mFinishedMarkers.get(resource);
+    if (finished == null) {
+      mFinishedMarkers.put(resource, markers);
+    } else {
+      finished.addAll(markers);
+    }
+    mFinishedMarkerCount += markers.size();
+
+    if (mFinishedMarkerCount >= mFlushSize) {
+      flush();
+    }
+  }
+
+  /**
+   * Finishes all given resources which have not been finished yet, which makes them end up without
+   * any Checkstyle marker. This applies to files skipped by Checkstyle itself, e.g. by a file
+   * filter of the configuration.
+   *
+   * @param resources
+   *          the resources of the audit
+   * @throws CoreException
+   *           error creating the markers of a full buffer
+   */
+  void finishRemaining(Collection<? extends IResource> resources) throws CoreException {
+    for (IResource resource : resources) {
+      if (!mAllFinished.contains(resource)) {
+        finish(resource);
+      }
+    }
+  }
+
+  /**
+   * Creates the buffered markers of all finished resources. Markers of unfinished resources are
+   * created as well, unless the buffer is reconciling, since an incomplete set of markers must not
+   * replace the existing markers of a file.
+   *
+   * @throws CoreException
+   *           error creating the markers
+   */
+  void flush() throws CoreException {
+
+    if (!mReconcile) {
+      for (Map.Entry<IResource, List<Map<String, Object>>> entry : mPendingMarkers.entrySet()) {
+        List<Map<String, Object>> finished = mFinishedMarkers.get(entry.getKey());
+        if (finished == null) {
+          mFinishedMarkers.put(entry.getKey(), entry.getValue());
+        } else {
+          finished.addAll(entry.getValue());
+        }
+      }
+    }
+    mPendingMarkers.clear();
+
+    if (mFinishedMarkers.isEmpty()) {
+      return;
+    }
+
+    IWorkspaceRunnable createMarkers = new IWorkspaceRunnable() {
+
+      @Override
+      public void run(IProgressMonitor monitor) throws CoreException {
+        for (Map.Entry<IResource, List<Map<String, Object>>> entry : mFinishedMarkers
+                .entrySet()) {
+
+          IResource resource = entry.getKey();
+          if (!resource.exists()) {
+            continue;
+          }
+
+          if (mReconcile && resource.getType() == IResource.FILE) {
+            reconcileMarkers(resource, entry.getValue());
+          } else {
+            createMarkers(resource, entry.getValue());
+          }
+        }
+      }
+    };
+
+    try {
+      ResourcesPlugin.getWorkspace().run(createMarkers, null, IWorkspace.AVOID_UPDATE, null);
+    } finally {
+      mFinishedMarkers.clear();
+      mFinishedMarkerCount = 0;
+    }
+  }
+
+  private List<Map<String, Object>> getPendingMarkers(IResource resource) {
+    List<Map<String, Object>> markers = mPendingMarkers.get(resource);
+    if (markers == null) {
+      markers = new ArrayList<>();
+      mPendingMarkers.put(resource, markers);
+    }
+    return markers;
+  }
+
+  private static void createMarkers(IResource resource, List<Map<String, Object>> markers)
+          throws CoreException {
+    for (Map<String, Object> attributes : markers) {
+      IMarker marker = resource.createMarker(CheckstyleMarker.MARKER_ID);
+      marker.setAttributes(attributes);
+    }
+  }
+
+  /**
+   * Brings the Checkstyle markers of the resource in line with the given markers, touching only
+   * markers which actually changed.
+   */
+  private static void reconcileMarkers(IResource resource, List<Map<String, Object>> markers)
+          throws CoreException {
+
+    // index the existing markers by their identity
+    Map<List<Object>, List<IMarker>> existingMarkers = new HashMap<>();
+    for (IMarker marker : resource.findMarkers(CheckstyleMarker.MARKER_ID, false,
+            IResource.DEPTH_ZERO)) {
+
+      List<Object> identity = Arrays.asList(marker.getAttributes(IDENTITY_ATTRIBUTES));
+      List<IMarker> sameIdentity = existingMarkers.get(identity);
+      if (sameIdentity == null) {
+        sameIdentity = new ArrayList<>(1);
+        existingMarkers.put(identity, sameIdentity);
+      }
+      sameIdentity.add(marker);
+    }
+
+    for (Map<String, Object> attributes : markers) {
+
+      List<Object> identity = getIdentity(attributes);
+      List<IMarker> sameIdentity = existingMarkers.get(identity);
+
+      if (sameIdentity == null || sameIdentity.isEmpty()) {
+        IMarker marker = resource.createMarker(CheckstyleMarker.MARKER_ID);
+        marker.setAttributes(attributes);
+      } else {
+        IMarker marker = sameIdentity.remove(sameIdentity.size() - 1);
+        if (!attributes.equals(marker.getAttributes())) {
+          marker.setAttributes(attributes);
+        }
+      }
+    }
+
+    // remove the markers of violations which are gone
+    List<IMarker> obsoleteMarkers = new ArrayList<>();
+    for (List<IMarker> sameIdentity : existingMarkers.values()) {
+      obsoleteMarkers.addAll(sameIdentity);
+    }
+    if (!obsoleteMarkers.isEmpty()) {
+      resource.getWorkspace().deleteMarkers(
+              obsoleteMarkers.toArray(new IMarker[obsoleteMarkers.size()]));
+    }
+  }
+
+  private static List<Object> getIdentity(Map<String, Object> attributes) {
+    Object[] identity = new Object[IDENTITY_ATTRIBUTES.length];
+    for (int i = 0; i < IDENTITY_ATTRIBUTES.length; i++) {
+      identity[i] = attributes.get(IDENTITY_ATTRIBUTES[i]);
+    }
+    return Arrays.asList(identity);
+  }
+}
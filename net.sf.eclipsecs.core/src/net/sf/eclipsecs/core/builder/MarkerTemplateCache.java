@@ -0,0 +1,193 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.builder;
+
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.SeverityLevel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import net.sf.eclipsecs.core.Messages;
+import net.sf.eclipsecs.core.config.meta.MetadataFactory;
+import net.sf.eclipsecs.core.config.meta.RuleMetadata;
+
+import org.eclipse.core.resources.IMarker;
+
+/**
+ * Creates the marker attributes for audit events. Everything which depends only on the module
+ * reporting an event, that is the module metadata, the message prefix with rule name and module id
+ * and the marker severity, is resolved once per module and kept as a template. The attributes of
+ * a single event are filled into a copy of the template.
+ *
+ * <p>
+ * A cache is meant to be used for a single audit and is not thread safe.
+ * </p>
+ */
+final class MarkerTemplateCache {
+
+  /** Add the check rule name to the message. */
+  private final boolean mAddRuleName;
+
+  /** Add the check module id to the message. */
+  private final boolean mAddModuleId;
+
+  /** The marker templates, keyed by the reporting module. */
+  private final Map<TemplateKey, Template> mTemplates = new HashMap<>();
+
+  /**
+   * Creates a marker template cache.
+   *
+   * @param addRuleName
+   *          <code>true</code> if the rule name is to be added to the message
+   * @param addModuleId
+   *          <code>true</code> if the module id is to be added to the message
+   */
+  MarkerTemplateCache(boolean addRuleName, boolean addModuleId) {
+    mAddRuleName = addRuleName;
+    mAddModuleId = addModuleId;
+  }
+
+  /**
+   * Creates the marker attributes for a Checkstyle audit error, without the offset information.
+   *
+   * @param error
+   *          the audit error
+   * @return the marker attributes
+   */
+  Map<String, Object> createMarkerAttributes(AuditEvent error) {
+
+    TemplateKey key = new TemplateKey(error.getSourceName(), error.getModuleId(),
+            error.getSeverityLevel());
+    Template template = mTemplates.get(key);
+    if (template == null) {
+      template = createTemplate(key);
+      mTemplates.put(key, template);
+    }
+
+    Map<String, Object> markerAttributes = new HashMap<>(template.mAttributes);
+    markerAttributes.put(CheckstyleMarker.MESSAGE_KEY, error.getLocalizedMessage().getKey());
+    markerAttributes.put(IMarker.LINE_NUMBER, Integer.valueOf(error.getLine()));
+    markerAttributes.put(IMarker.MESSAGE, template.mMessagePrefix != null
+            ? template.mMessagePrefix + error.getMessage()
+            : error.getMessage());
+    return markerAttributes;
+  }
+
+  private Template createTemplate(TemplateKey key) {
+
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put(CheckstyleMarker.MODULE_NAME, Auditor.getModuleName(key.mSourceName));
+    attributes.put(IMarker.PRIORITY, Integer.valueOf(IMarker.PRIORITY_NORMAL));
+    attributes.put(IMarker.SEVERITY, Integer.valueOf(getSeverityValue(key.mSeverity)));
+
+    // enables own category under Java Problem Type
+    // setting for Problems view (RFE 1530366)
+    attributes.put("categoryId", Integer.valueOf(999)); //$NON-NLS-1$
+
+    StringBuffer prefix = new StringBuffer();
+    if (mAddRuleName) {
+      prefix.append(getRuleName(key.mSourceName));
+    }
+    if (mAddModuleId && key.mModuleId != null) {
+      if (prefix.length() > 0) {
+        prefix.append(" - "); //$NON-NLS-1$
+      }
+      prefix.append(key.mModuleId);
+    }
+    if (prefix.length() > 0) {
+      prefix.append(": "); //$NON-NLS-1$
+    }
+
+    return new Template(attributes, prefix.length() > 0 ? prefix.toString() : null);
+  }
+
+  private static int getSeverityValue(SeverityLevel severity) {
+    int result = IMarker.SEVERITY_WARNING;
+
+    if (severity.equals(SeverityLevel.INFO)) {
+      result = IMarker.SEVERITY_INFO;
+    } else if (severity.equals(SeverityLevel.WARNING)) {
+      result = IMarker.SEVERITY_WARNING;
+    } else if (severity.equals(SeverityLevel.ERROR)) {
+      result = IMarker.SEVERITY_ERROR;
+    }
+
+    return result;
+  }
+
+  private static String getRuleName(String sourceName) {
+    RuleMetadata metaData = MetadataFactory.getRuleMetadata(sourceName);
+    if (metaData == null) {
+      return Messages.Auditor_txtUnknownModule;
+    }
+    return metaData.getRuleName();
+  }
+
+  /**
+   * Identifies the module an audit event is reported by.
+   */
+  private static final class TemplateKey {
+
+    private final String mSourceName;
+
+    private final String mModuleId;
+
+    private final SeverityLevel mSeverity;
+
+    private TemplateKey(String sourceName, String moduleId, SeverityLevel severity) {
+      mSourceName = sourceName;
+      mModuleId = moduleId;
+      mSeverity = severity;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof TemplateKey)) {
+        return false;
+      }
+      TemplateKey rhs = (TemplateKey) obj;
+      return mSourceName.equals(rhs.mSourceName) && Objects.equals(mModuleId, rhs.mModuleId)
+              && mSeverity == rhs.mSeverity;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(mSourceName, mModuleId, mSeverity);
+    }
+  }
+
+  /**
+   * The marker attributes shared by all events of a module.
+   */
+  private static final class Template {
+
+    private final Map<String, Object> mAttributes;
+
+    private final String mMessagePrefix;
+
+    private Template(Map<String, Object> attributes, String messagePrefix) {
+      mAttributes = attributes;
+      mMessagePrefix = messagePrefix;
+    }
+  }
+}
@@ -0,0 +1,505 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.builder;
+
+import com.google.common.io.Files;
+import com.puppycrawl.tools.checkstyle.DefaultConfiguration;
+import com.puppycrawl.tools.checkstyle.ModuleFactory;
+import com.puppycrawl.tools.checkstyle.TreeWalker;
+import com.puppycrawl.tools.checkstyle.api.AbstractCheck;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.puppycrawl.tools.checkstyle.api.FileSetCheck;
+import com.puppycrawl.tools.checkstyle.checks.SuppressWarningsHolder;
+import com.puppycrawl.tools.checkstyle.checks.TranslationCheck;
+import com.puppycrawl.tools.checkstyle.checks.UniquePropertiesCheck;
+import com.puppycrawl.tools.checkstyle.checks.javadoc.JavadocPackageCheck;
+import com.puppycrawl.tools.checkstyle.utils.CommonUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.eclipsecs.core.config.CheckstyleConfigurationFile;
+import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.util.CheckstylePluginException;
+
+import org.eclipse.core.resources.IProject;
+
+/**
+ * The fingerprints of the modules of a resolved Checkstyle configuration. Checks are fingerprinted
+ * on their own, grouped by the module name stored in their markers, so the cached results of the
+ * unchanged checks can be kept when single checks of a configuration are added or changed.
+ * Everything else, like the attributes of the checker and the tree walker or the filters, can
+ * influence the results of all checks and makes up the base fingerprint.
+ *
+ * <p>
+ * The files referenced by the attributes of a module, like suppression or import control files,
+ * are part of the fingerprint of the module. Their contents are hashed again whenever they
+ * changed on disk. They are resolved the way Checkstyle resolves them, so relative paths are
+ * looked up in the working directory. Files referenced by remote URLs cannot be fingerprinted.
+ * </p>
+ */
+final class ModuleFingerprints {
+
+  /** The checks whose violations depend on other files than the checked one. */
+  private static final Set<String> CROSS_FILE_CHECKS = new TreeSet<>(Arrays.asList(
+          TranslationCheck.class.getName(), JavadocPackageCheck.class.getName(),
+          UniquePropertiesCheck.class.getName()));
+
+  /** The URI schemes of remote files. */
+  private static final Set<String> REMOTE_SCHEMES = new TreeSet<>(
+          Arrays.asList("http", "https", "ftp")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+  /** The module fingerprints, keyed like the checker pools. */
+  private static Map<String, ModuleFingerprints> sFingerprints = new HashMap<>();
+
+  /** The content hashes of the referenced files, keyed by the file path. */
+  private static Map<String, FileHash> sFileHashes = new ConcurrentHashMap<>();
+
+  /** The configuration file data the fingerprints were computed from. */
+  private final CheckstyleConfigurationFile mConfigFileData;
+
+  /** The resolved configuration. */
+  private final Configuration mConfiguration;
+
+  /** The fingerprint of everything besides the checks, without the referenced files. */
+  private final String mBaseFingerprint;
+
+  /** The files referenced by the modules which are not checks. */
+  private final List<File> mBaseFiles = new ArrayList<>();
+
+  /** The fingerprints of the checks without the referenced files, by marker module name. */
+  private final Map<String, String> mModuleFingerprints;
+
+  /** The files referenced by the checks, by marker module name. */
+  private final Map<String, List<File>> mModuleFiles = new HashMap<>();
+
+  /** Flags if the configuration contains checks looking at several files at once. */
+  private boolean mCrossFileChecks;
+
+  /** Flags if modules reference remote files, like suppressions loaded over http. */
+  private boolean mRemoteReferences;
+
+  /** The marker module names of the check configurations. */
+  private final Map<Configuration, String> mCheckModuleNames = new IdentityHashMap<>();
+
+  /** The configurations of the tree walkers. */
+  private final Set<Configuration> mTreeWalkers = Collections
+          .newSetFromMap(new IdentityHashMap<Configuration, Boolean>());
+
+  private ModuleFingerprints(CheckstyleConfigurationFile configFileData, IProject project)
+          throws CheckstyleException {
+
+    mConfigFileData = configFileData;
+    mConfiguration = CheckerFactory.loadConfiguration(configFileData, project);
+
+    ModuleFactory moduleFactory = CheckerFactory.createModuleFactory();
+    Map<String, MessageDigest> moduleDigests = new TreeMap<>();
+
+    MessageDigest baseDigest = AuditResultCache.newDigest();
+    updateModule(baseDigest, mConfiguration, mBaseFiles);
+
+    for (Configuration child : mConfiguration.getChildren()) {
+
+      Object module = moduleFactory.createModule(child.getName());
+      mCrossFileChecks |= CROSS_FILE_CHECKS.contains(module.getClass().getName());
+
+      if (module instanceof TreeWalker) {
+
+        mTreeWalkers.add(child);
+        updateModule(baseDigest, child, mBaseFiles);
+
+        for (Configuration treeWalkerChild : child.getChildren()) {
+
+          Object check = moduleFactory.createModule(treeWalkerChild.getName());
+
+          // the suppress warnings holder feeds the suppress warnings filter
+          if (check instanceof AbstractCheck && !(check instanceof SuppressWarningsHolder)) {
+            addCheck(moduleDigests, child, treeWalkerChild, check);
+          } else {
+            updateTree(baseDigest, treeWalkerChild, mBaseFiles);
+          }
+        }
+      } else if (module instanceof FileSetCheck) {
+        addCheck(moduleDigests, mConfiguration, child, module);
+      } else {
+        updateTree(baseDigest, child, mBaseFiles);
+      }
+    }
+
+    mBaseFingerprint = AuditResultCache.toHex(baseDigest.digest());
+
+    Map<String, String> moduleFingerprints = new TreeMap<>();
+    for (Map.Entry<String, MessageDigest> entry : moduleDigests.entrySet()) {
+      moduleFingerprints.put(entry.getKey(), AuditResultCache.toHex(entry.getValue().digest()));
+    }
+    mModuleFingerprints = Collections.unmodifiableMap(moduleFingerprints);
+  }
+
+  /**
+   * Returns the module fingerprints of the given check configuration and project. The
+   * fingerprints are computed again when the configuration has been reloaded.
+   *
+   * @param config
+   *          the check configuration
+   * @param project
+   *          the project
+   * @return the module fingerprints
+   * @throws CheckstyleException
+   *           error loading the configuration or its modules
+   * @throws CheckstylePluginException
+   *           the configuration could not be read
+   */
+  static ModuleFingerprints get(ICheckConfiguration config, IProject project)
+          throws CheckstyleException, CheckstylePluginException {
+
+    String cacheKey = CheckerFactory.getCacheKey(config, project);
+    CheckstyleConfigurationFile configFileData = config.getCheckstyleConfiguration();
+
+    synchronized (sFingerprints) {
+
+      ModuleFingerprints fingerprints = sFingerprints.get(cacheKey);
+
+      // the configuration has been reloaded
+      if (fingerprints == null || fingerprints.mConfigFileData != configFileData) {
+        fingerprints = new ModuleFingerprints(configFileData, project);
+        sFingerprints.put(cacheKey, fingerprints);
+      }
+      return fingerprints;
+    }
+  }
+
+  /**
+   * Discards the cached module fingerprints.
+   */
+  static void cleanup() {
+    synchronized (sFingerprints) {
+      sFingerprints.clear();
+    }
+    sFileHashes.clear();
+  }
+
+  /**
+   * Discards the cached module fingerprints of a project.
+   *
+   * @param project
+   *          the project
+   */
+  static void cleanup(IProject project) {
+    String prefix = CheckerFactory.getCacheKeyPrefix(project);
+    synchronized (sFingerprints) {
+      Iterator<String> it = sFingerprints.keySet().iterator();
+      while (it.hasNext()) {
+        if (it.next().startsWith(prefix)) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns if the configuration contains checks whose violations depend on other files than the
+   * checked one, like the translation check. The results of these checks cannot be cached file by
+   * file.
+   *
+   * @return <code>true</code> if the configuration contains such checks
+   */
+  boolean hasCrossFileChecks() {
+    return mCrossFileChecks;
+  }
+
+  /**
+   * Returns if modules reference remote files. Changes of these files cannot be detected, so the
+   * results of the configuration cannot be cached.
+   *
+   * @return <code>true</code> if modules reference remote files
+   */
+  boolean hasRemoteReferences() {
+    return mRemoteReferences;
+  }
+
+  /**
+   * Returns the fingerprint of everything besides the checks, including the current contents of
+   * the referenced files.
+   *
+   * @return the base fingerprint
+   */
+  String getBaseFingerprint() {
+    return withFiles(mBaseFingerprint, mBaseFiles);
+  }
+
+  /**
+   * Returns the fingerprints of the checks, including the current contents of the referenced
+   * files. All instances of a check make up one fingerprint, since their markers cannot be told
+   * apart.
+   *
+   * @return the fingerprints by marker module name
+   */
+  Map<String, String> getModuleFingerprints() {
+
+    if (mModuleFiles.isEmpty()) {
+      return mModuleFingerprints;
+    }
+
+    Map<String, String> moduleFingerprints = new TreeMap<>(mModuleFingerprints);
+    for (Map.Entry<String, List<File>> entry : mModuleFiles.entrySet()) {
+      moduleFingerprints.put(entry.getKey(),
+              withFiles(mModuleFingerprints.get(entry.getKey()), entry.getValue()));
+    }
+    return Collections.unmodifiableMap(moduleFingerprints);
+  }
+
+  /**
+   * Creates a configuration which only contains the given checks, besides all modules which are not
+   * checks, like filters. Tree walkers without any of the checks are left out.
+   *
+   * @param moduleNames
+   *          the marker module names of the checks to keep
+   * @return the reduced configuration
+   */
+  Configuration createReducedConfiguration(Set<String> moduleNames) {
+
+    DefaultConfiguration reduced = copyModule(mConfiguration);
+
+    for (Configuration child : mConfiguration.getChildren()) {
+
+      if (mTreeWalkers.contains(child)) {
+
+        DefaultConfiguration treeWalker = copyModule(child);
+        boolean hasChecks = false;
+        for (Configuration treeWalkerChild : child.getChildren()) {
+          String moduleName = mCheckModuleNames.get(treeWalkerChild);
+          if (moduleName == null || moduleNames.contains(moduleName)) {
+            treeWalker.addChild(treeWalkerChild);
+            hasChecks |= moduleName != null;
+          }
+        }
+        if (hasChecks) {
+          reduced.addChild(treeWalker);
+        }
+      } else {
+        String moduleName = mCheckModuleNames.get(child);
+        if (moduleName == null || moduleNames.contains(moduleName)) {
+          reduced.addChild(child);
+        }
+      }
+    }
+    return reduced;
+  }
+
+  private void addCheck(Map<String, MessageDigest> moduleDigests, Configuration parent,
+          Configuration configuration, Object check) throws CheckstyleException {
+
+    String moduleName = Auditor.getModuleName(check.getClass().getName());
+    mCheckModuleNames.put(configuration, moduleName);
+    mCrossFileChecks |= CROSS_FILE_CHECKS.contains(check.getClass().getName());
+
+    MessageDigest digest = moduleDigests.get(moduleName);
+    if (digest == null) {
+      digest = AuditResultCache.newDigest();
+      moduleDigests.put(moduleName, digest);
+    }
+
+    List<File> files = new ArrayList<>();
+
+    // a check moved to another parent module behaves differently
+    AuditResultCache.update(digest, parent.getName());
+    updateTree(digest, configuration, files);
+
+    if (!files.isEmpty()) {
+      List<File> moduleFiles = mModuleFiles.get(moduleName);
+      if (moduleFiles == null) {
+        moduleFiles = new ArrayList<>();
+        mModuleFiles.put(moduleName, moduleFiles);
+      }
+      moduleFiles.addAll(files);
+    }
+  }
+
+  /**
+   * Adds a module with all its child modules to the digest.
+   */
+  private void updateTree(MessageDigest digest, Configuration configuration,
+          List<File> files) throws CheckstyleException {
+
+    updateModule(digest, configuration, files);
+
+    Configuration[] children = configuration.getChildren();
+    AuditResultCache.update(digest, String.valueOf(children.length));
+    for (Configuration child : children) {
+      updateTree(digest, child, files);
+    }
+  }
+
+  /**
+   * Adds the name, the attributes and the custom messages of a module to the digest. Attribute
+   * values naming an existing local file are collected as referenced files.
+   */
+  private void updateModule(MessageDigest digest, Configuration configuration,
+          List<File> files) throws CheckstyleException {
+
+    AuditResultCache.update(digest, configuration.getName());
+
+    for (String name : new TreeSet<>(Arrays.asList(configuration.getAttributeNames()))) {
+      String value = configuration.getAttribute(name);
+      AuditResultCache.update(digest, name);
+      AuditResultCache.update(digest, value);
+
+      File file = getReferencedFile(value);
+      if (file != null) {
+        files.add(file);
+      }
+    }
+
+    for (Map.Entry<String, String> message : new TreeMap<>(configuration.getMessages())
+            .entrySet()) {
+      AuditResultCache.update(digest, message.getKey());
+      AuditResultCache.update(digest, message.getValue());
+    }
+  }
+
+  /**
+   * Returns the local file named by an attribute value, resolved like Checkstyle resolves
+   * suppression or import control files, if it exists. Remote references are flagged.
+   */
+  private File getReferencedFile(String value) {
+
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+
+    URI uri = null;
+    try {
+      uri = CommonUtil.getUriByFilename(value);
+    } catch (CheckstyleException | IllegalArgumentException e) {
+      // not a file reference
+      return null;
+    }
+
+    String scheme = String.valueOf(uri.getScheme()).toLowerCase(Locale.ENGLISH);
+    if ("file".equals(scheme)) { //$NON-NLS-1$
+      try {
+        File file = new File(uri);
+        return file.isFile() ? file : null;
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    } else if (REMOTE_SCHEMES.contains(scheme)) {
+      mRemoteReferences = true;
+    }
+
+    // resources of jars and bundles do not change while they are loaded
+    return null;
+  }
+
+  /**
+   * Combines a fingerprint with the current contents of the given files.
+   */
+  private static String withFiles(String fingerprint, List<File> files) {
+
+    if (files.isEmpty()) {
+      return fingerprint;
+    }
+
+    MessageDigest digest = AuditResultCache.newDigest();
+    AuditResultCache.update(digest, fingerprint);
+    for (File file : files) {
+      AuditResultCache.update(digest, file.getPath());
+      AuditResultCache.update(digest, getFileHash(file));
+    }
+    return AuditResultCache.toHex(digest.digest());
+  }
+
+  /**
+   * Returns the hash of the contents of a file, computed again only if the file changed.
+   */
+  private static String getFileHash(File file) {
+
+    long lastModified = file.lastModified();
+    long length = file.length();
+
+    FileHash fileHash = sFileHashes.get(file.getPath());
+    if (fileHash == null || fileHash.mLastModified != lastModified
+            || fileHash.mLength != length) {
+
+      String hash = null;
+      try {
+        hash = AuditResultCache.hash(Files.toByteArray(file));
+      } catch (IOException e) {
+        // a file which cannot be read changes the fingerprint as well
+        hash = "unreadable"; //$NON-NLS-1$
+      }
+      fileHash = new FileHash(lastModified, length, hash);
+      sFileHashes.put(file.getPath(), fileHash);
+    }
+    return fileHash.mHash;
+  }
+
+  private static DefaultConfiguration copyModule(Configuration configuration) {
+
+    DefaultConfiguration copy = new DefaultConfiguration(configuration.getName());
+    try {
+      for (String name : configuration.getAttributeNames()) {
+        copy.addAttribute(name, configuration.getAttribute(name));
+      }
+    } catch (CheckstyleException e) {
+      // cannot happen for attribute names reported by the configuration
+      throw new IllegalStateException(e);
+    }
+    for (Map.Entry<String, String> message : configuration.getMessages().entrySet()) {
+      copy.addMessage(message.getKey(), message.getValue());
+    }
+    return copy;
+  }
+
+  /**
+   * The content hash of a referenced file together with the file state it was computed for.
+   */
+  private static final class FileHash {
+
+    private final long mLastModified;
+
+    private final long mLength;
+
+    private final String mHash;
+
+    private FileHash(long lastModified, long length, String hash) {
+      mLastModified = lastModified;
+      mLength = length;
+      mHash = hash;
+    }
+  }
+}
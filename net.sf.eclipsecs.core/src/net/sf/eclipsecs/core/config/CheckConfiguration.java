@@ -60,12 +60,6 @@ public class CheckConfiguration implements ICheckConfiguration {
   /** Map containing additional data for this check configuration. */
   private Map<String, String> mAdditionalData;
 
-  /** Cached data of the Checkstyle configuration file. */
-  private CheckstyleConfigurationFile mCheckstyleConfigurationFile;
-
-  /** Time stamp when the cached configuration file data expires. */
-  private long mExpirationTime = 0;
-
   /**
    * Creates a check configuration instance.
    *
@@ -155,14 +149,7 @@ public class CheckConfiguration implements ICheckConfiguration {
 
   @Override
   public CheckstyleConfigurationFile getCheckstyleConfiguration() throws CheckstylePluginException {
-    final long currentTime = System.currentTimeMillis();
-
-    if ((mCheckstyleConfigurationFile == null) || (currentTime > mExpirationTime)) {
-      mCheckstyleConfigurationFile = getType().getCheckstyleConfiguration(this);
-      mExpirationTime = currentTime + 1000 * 60 * 60; // 1 hour
-    }
-
-    return mCheckstyleConfigurationFile;
+    return ResolvedConfigurationCache.get(this);
   }
 
   @Override
@@ -48,6 +48,7 @@ import net.sf.eclipsecs.core.Messages;
 import net.sf.eclipsecs.core.config.configtypes.BuiltInConfigurationType;
 import net.sf.eclipsecs.core.config.configtypes.ConfigurationTypes;
 import net.sf.eclipsecs.core.config.configtypes.IConfigurationType;
+import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
 import net.sf.eclipsecs.core.util.CheckstyleLog;
 import net.sf.eclipsecs.core.util.CheckstylePluginException;
 
@@ -159,12 +160,19 @@ public final class CheckConfigurationFactory {
       sDefaultCheckConfig = null;
       sDefaultBuiltInConfig = null;
       sConfigurations.clear();
+
+      // edited configurations keep their identity, their cached data is outdated
+      ResolvedConfigurationCache.clear();
+
       loadBuiltinConfigurations();
       loadFromPersistence();
 
     } catch (CheckstylePluginException e) {
       CheckstyleLog.log(e);
     }
+
+    // the project configurations refer to the check configurations just replaced
+    ProjectConfigurationFactory.invalidateAll();
   }
 
   /**
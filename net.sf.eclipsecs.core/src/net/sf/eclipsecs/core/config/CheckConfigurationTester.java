@@ -75,33 +75,32 @@ public class CheckConfigurationTester {
 
     CheckstyleConfigurationFile configFile = mCheckConfiguration.getCheckstyleConfiguration();
 
-    PropertyResolver resolver = configFile.getPropertyResolver();
+    MissingPropertyCollector collector = new MissingPropertyCollector();
 
-    // set the project context if the property resolver needs the
-    // context
-    if (mContextProject != null && resolver instanceof IContextAware) {
-      ((IContextAware) resolver).setProjectContext(mContextProject);
-    }
+    // the resolver is shared with concurrent builds, it must not be modified
+    synchronized (configFile) {
 
-    MissingPropertyCollector collector = new MissingPropertyCollector();
+      PropertyResolver resolver = configFile.getPropertyResolver();
+
+      // set the project context if the property resolver needs the
+      // context
+      if (mContextProject != null && resolver instanceof IContextAware) {
+        ((IContextAware) resolver).setProjectContext(mContextProject);
+      }
 
-    if (resolver instanceof MultiPropertyResolver) {
-      ((MultiPropertyResolver) resolver).addPropertyResolver(collector);
-    } else {
       MultiPropertyResolver multiResolver = new MultiPropertyResolver();
       multiResolver.addPropertyResolver(resolver);
       multiResolver.addPropertyResolver(collector);
-      resolver = multiResolver;
-    }
 
-    InputSource in = null;
-    try {
-      in = configFile.getCheckConfigFileInputSource();
-      ConfigurationLoader.loadConfiguration(in, resolver, IgnoredModulesOptions.EXECUTE);
-    } catch (CheckstyleException e) {
-      CheckstylePluginException.rethrow(e);
-    } finally {
-      Closeables.closeQuietly(in.getByteStream());
+      InputSource in = null;
+      try {
+        in = configFile.getCheckConfigFileInputSource();
+        ConfigurationLoader.loadConfiguration(in, multiResolver, IgnoredModulesOptions.EXECUTE);
+      } catch (CheckstyleException e) {
+        CheckstylePluginException.rethrow(e);
+      } finally {
+        Closeables.closeQuietly(in.getByteStream());
+      }
     }
 
     return collector.getUnresolvedProperties();
@@ -282,6 +282,10 @@ public class CheckConfigurationWorkingCopy implements ICheckConfiguration, Clone
       mHasConfigChanged = true;
 
       // throw away the cached Checkstyle configurations
+      ResolvedConfigurationCache.invalidate(this);
+      if (mCheckConfiguration != null) {
+        ResolvedConfigurationCache.invalidate(mCheckConfiguration);
+      }
       CheckConfigurationFactory.refresh();
     } catch (IOException | URISyntaxException e) {
       CheckstylePluginException.rethrow(e);
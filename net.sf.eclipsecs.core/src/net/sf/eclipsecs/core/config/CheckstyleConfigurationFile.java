@@ -41,6 +41,10 @@ public class CheckstyleConfigurationFile {
 
   private long mModificationStamp;
 
+  private long mAdditionalPropertyBundleModificationStamp;
+
+  private String mEntityTag;
+
   private URL mResolvedConfigFileURL;
 
   private PropertyResolver mPropertyResolver;
@@ -120,6 +124,46 @@ public class CheckstyleConfigurationFile {
     this.mModificationStamp = modificationStamp;
   }
 
+  /**
+   * Returns the modification timestamp of the additional property bundle or 0 if none can be
+   * determined.
+   * 
+   * @return the modification timestamp of the additional property bundle
+   */
+  public long getAdditionalPropertyBundleModificationStamp() {
+    return mAdditionalPropertyBundleModificationStamp;
+  }
+
+  /**
+   * Sets the modification timestamp of the additional property bundle.
+   * 
+   * @param modificationStamp
+   *          the modification timestamp
+   */
+  public void setAdditionalPropertyBundleModificationStamp(long modificationStamp) {
+    mAdditionalPropertyBundleModificationStamp = modificationStamp;
+  }
+
+  /**
+   * Returns the HTTP entity tag the Checkstyle configuration file was served with or
+   * <code>null</code> if there is none.
+   * 
+   * @return the entity tag
+   */
+  public String getEntityTag() {
+    return mEntityTag;
+  }
+
+  /**
+   * Sets the HTTP entity tag of the Checkstyle configuration file.
+   * 
+   * @param entityTag
+   *          the entity tag
+   */
+  public void setEntityTag(String entityTag) {
+    mEntityTag = entityTag;
+  }
+
   /**
    * Returns the resolved URL of the Checkstyle configuration file. Clients are expected to
    * <b>not</b> use this to access the underlying Checkstyle configuration file
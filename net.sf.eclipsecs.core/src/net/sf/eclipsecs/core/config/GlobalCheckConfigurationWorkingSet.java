@@ -213,23 +213,26 @@ public class GlobalCheckConfigurationWorkingSet implements ICheckConfigurationWo
 
     Set<IProject> projects = new HashSet<>();
 
-    CheckConfigurationWorkingCopy[] workingCopies = this.getWorkingCopies();
-    for (int i = 0; i < workingCopies.length; i++) {
+    for (ICheckConfiguration checkConfig : getChangedConfigurations()) {
+      projects.addAll(ProjectConfigurationFactory.getProjectsUsingConfig(checkConfig));
+    }
 
-      // skip non dirty configurations
-      if (!workingCopies[i].hasConfigurationChanged()) {
-        continue;
-      }
+    return projects;
+  }
 
-      List<IProject> usingProjects = ProjectConfigurationFactory
-              .getProjectsUsingConfig(workingCopies[i]);
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<ICheckConfiguration> getChangedConfigurations() {
 
-      for (IProject proj : usingProjects) {
-        projects.add(proj);
+    List<ICheckConfiguration> changed = new ArrayList<>();
+    for (CheckConfigurationWorkingCopy workingCopy : mWorkingCopies) {
+      if (workingCopy.hasConfigurationChanged()) {
+        changed.add(workingCopy);
       }
     }
-
-    return projects;
+    return changed;
   }
 
   /**
@@ -115,4 +115,11 @@ public interface ICheckConfigurationWorkingSet {
    *           unexprected error
    */
   Collection<IProject> getAffectedProjects() throws CheckstylePluginException;
+
+  /**
+   * Returns the check configurations of the working set whose Checkstyle configuration changed.
+   * 
+   * @return the changed check configurations
+   */
+  Collection<ICheckConfiguration> getChangedConfigurations();
 }
\ No newline at end of file
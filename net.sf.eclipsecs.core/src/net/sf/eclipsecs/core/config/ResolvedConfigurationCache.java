@@ -0,0 +1,129 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.eclipsecs.core.CheckstylePluginPrefs;
+import net.sf.eclipsecs.core.config.configtypes.ConfigurationType;
+import net.sf.eclipsecs.core.config.configtypes.IConfigurationType;
+import net.sf.eclipsecs.core.util.CheckstylePluginException;
+
+/**
+ * Cache of the resolved Checkstyle configuration file data, shared by all check configurations of
+ * the same identity.
+ *
+ * <p>
+ * A cached entry is handed out without any I/O until the revalidation interval has passed. Then the
+ * configuration type is asked if the entry is still current, which is a cheap check like comparing
+ * the file modification time or a conditional HTTP request. Only if the configuration source
+ * changed the data is loaded again. Remote configurations have their own, much longer interval,
+ * since their check blocks on the network.
+ * </p>
+ */
+public final class ResolvedConfigurationCache {
+
+  /** The cache entries, keyed by the check configurations. */
+  private static Map<ICheckConfiguration, Entry> sEntries = new ConcurrentHashMap<>();
+
+  /**
+   * Hidden utility class constructor.
+   */
+  private ResolvedConfigurationCache() {
+    // noop
+  }
+
+  /**
+   * Returns the resolved configuration file data of the given check configuration.
+   *
+   * @param checkConfiguration
+   *          the check configuration
+   * @return the configuration file data
+   * @throws CheckstylePluginException
+   *           error loading the configuration file data
+   */
+  static CheckstyleConfigurationFile get(ICheckConfiguration checkConfiguration)
+          throws CheckstylePluginException {
+
+    Entry entry = sEntries.get(checkConfiguration);
+    if (entry == null) {
+      Entry newEntry = new Entry();
+      entry = sEntries.putIfAbsent(checkConfiguration, newEntry);
+      if (entry == null) {
+        entry = newEntry;
+      }
+    }
+    return entry.get(checkConfiguration);
+  }
+
+  /**
+   * Removes the cached data of the given check configuration.
+   *
+   * @param checkConfiguration
+   *          the check configuration
+   */
+  public static void invalidate(ICheckConfiguration checkConfiguration) {
+    sEntries.remove(checkConfiguration);
+  }
+
+  /**
+   * Removes all cached data.
+   */
+  public static void clear() {
+    sEntries.clear();
+  }
+
+  /**
+   * The cached data of one check configuration.
+   */
+  private static final class Entry {
+
+    /** The configuration file data. */
+    private CheckstyleConfigurationFile mData;
+
+    /** Time stamp of the last validation of the data. */
+    private long mValidationTime;
+
+    private synchronized CheckstyleConfigurationFile get(ICheckConfiguration checkConfiguration)
+            throws CheckstylePluginException {
+
+      IConfigurationType type = checkConfiguration.getType();
+
+      long currentTime = System.currentTimeMillis();
+      int interval = CheckstylePluginPrefs.getInt(
+              type instanceof ConfigurationType && ((ConfigurationType) type).isRemote()
+                      ? CheckstylePluginPrefs.PREF_REMOTE_CONFIG_REVALIDATION_INTERVAL
+                      : CheckstylePluginPrefs.PREF_CONFIG_REVALIDATION_INTERVAL);
+
+      if (mData != null && currentTime - mValidationTime < interval * 1000L) {
+        return mData;
+      }
+
+      if (mData == null || !(type instanceof ConfigurationType)
+              || !((ConfigurationType) type).isCurrent(checkConfiguration, mData)) {
+        mData = type.getCheckstyleConfiguration(checkConfiguration);
+      }
+      mValidationTime = currentTime;
+      return mData;
+    }
+  }
+}
@@ -35,6 +35,7 @@ import java.util.ResourceBundle;
 
 import net.sf.eclipsecs.core.config.CheckstyleConfigurationFile;
 import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.config.ResolvedConfigurationCache;
 import net.sf.eclipsecs.core.util.CheckstylePluginException;
 
 import org.eclipse.core.runtime.URIUtil;
@@ -134,6 +135,8 @@ public abstract class ConfigurationType implements IConfigurationType {
       byte[] additionalPropertiesBytes = getAdditionPropertiesBundleBytes(
               data.getResolvedConfigFileURL());
       data.setAdditionalPropertyBundleBytes(additionalPropertiesBytes);
+      data.setAdditionalPropertyBundleModificationStamp(getFileModificationStamp(
+              getAdditionalPropertiesBundleURL(data.getResolvedConfigFileURL())));
 
       // get the property resolver
       PropertyResolver resolver = getPropertyResolver(checkConfiguration, data);
@@ -146,6 +149,60 @@ public abstract class ConfigurationType implements IConfigurationType {
     return data;
   }
 
+  /**
+   * Returns if checking the configuration source with
+   * {@link #isCurrent(ICheckConfiguration, CheckstyleConfigurationFile)} requires a connection to
+   * a remote server, so it should be done much less often than checking a local file.
+   *
+   * @return <code>true</code> if the configuration source is remote
+   */
+  public boolean isRemote() {
+    return false;
+  }
+
+  /**
+   * Checks if configuration file data obtained by
+   * {@link #getCheckstyleConfiguration(ICheckConfiguration)} still reflects the configuration
+   * source. Implementors are expected to not read the configuration contents, but to use cheap
+   * checks like comparing modification times.
+   *
+   * <p>
+   * Configuration files on the file system are checked by their modification time and the one of the
+   * additional property bundle. Other locations, e.g. plugin bundle entries, are considered to not
+   * change.
+   * </p>
+   *
+   * @param checkConfiguration
+   *          the actual check configuration
+   * @param data
+   *          the configuration file data obtained before
+   * @return <code>true</code> if the data is current, <code>false</code> if it needs to be loaded
+   *         again
+   * @throws CheckstylePluginException
+   *           error checking the configuration source
+   */
+  public boolean isCurrent(ICheckConfiguration checkConfiguration,
+          CheckstyleConfigurationFile data) throws CheckstylePluginException {
+
+    try {
+
+      URL url = resolveLocation(checkConfiguration);
+      if (!isSameLocation(url, data.getResolvedConfigFileURL())) {
+        return false;
+      }
+
+      File file = toFile(url);
+      if (file != null) {
+        return file.lastModified() == data.getModificationStamp()
+                && getFileModificationStamp(getAdditionalPropertiesBundleURL(url)) == data
+                        .getAdditionalPropertyBundleModificationStamp();
+      }
+    } catch (IOException e) {
+      CheckstylePluginException.rethrow(e);
+    }
+    return true;
+  }
+
   /**
    * Returns the URL of the checkstyle configuration file. Implementors are not expected to open any
    * connection to the URL.
@@ -160,6 +217,32 @@ public abstract class ConfigurationType implements IConfigurationType {
 
   protected byte[] getAdditionPropertiesBundleBytes(URL checkConfigURL) {
 
+    try {
+
+      URL propertyFileURL = getAdditionalPropertiesBundleURL(checkConfigURL);
+      URLConnection connection = propertyFileURL.openConnection();
+
+      return getBytesFromURLConnection(connection);
+    } catch (IOException e) {
+      // we won't load the bundle then
+      // disabled logging bug #1647602
+      // CheckstyleLog.log(ioe);
+    }
+    return null;
+  }
+
+  /**
+   * Returns the URL of the additional property bundle, which is located next to the configuration
+   * file and named like it.
+   *
+   * @param checkConfigURL
+   *          the URL of the configuration file
+   * @return the URL of the property bundle
+   * @throws IOException
+   *           the bundle URL is malformed
+   */
+  protected URL getAdditionalPropertiesBundleURL(URL checkConfigURL) throws IOException {
+
     String location = checkConfigURL.toString();
 
     // Strip file extension
@@ -173,18 +256,44 @@ public abstract class ConfigurationType implements IConfigurationType {
 
     propsLocation = propsLocation + ".properties"; //$NON-NLS-1$
 
-    try {
+    return new URL(propsLocation);
+  }
 
-      URL propertyFileURL = new URL(propsLocation);
-      URLConnection connection = propertyFileURL.openConnection();
+  /**
+   * Checks if two resolved configuration file URLs denote the same location. URLs are compared by
+   * their string form, since <code>URL.equals()</code> resolves host names.
+   *
+   * @param url1
+   *          the first URL
+   * @param url2
+   *          the second URL, may be <code>null</code>
+   * @return <code>true</code> if both URLs denote the same location
+   */
+  protected static boolean isSameLocation(URL url1, URL url2) {
+    return url2 != null && url1.toString().equals(url2.toString());
+  }
 
-      return getBytesFromURLConnection(connection);
-    } catch (IOException e) {
-      // we won't load the bundle then
-      // disabled logging bug #1647602
-      // CheckstyleLog.log(ioe);
+  /**
+   * Returns the modification time of the file denoted by the URL.
+   *
+   * @param url
+   *          the URL
+   * @return the modification time or 0 if the URL denotes no existing file on the file system
+   */
+  protected static long getFileModificationStamp(URL url) {
+    File file = toFile(url);
+    return file != null ? file.lastModified() : 0;
+  }
+
+  private static File toFile(URL url) {
+    if (!"file".equals(url.getProtocol())) { //$NON-NLS-1$
+      return null;
+    }
+    try {
+      return URIUtil.toFile(URIUtil.toURI(url));
+    } catch (URISyntaxException e) {
+      return null;
     }
-    return null;
   }
 
   /**
@@ -237,10 +346,9 @@ public abstract class ConfigurationType implements IConfigurationType {
   }
 
   @Override
-  @SuppressWarnings("unused")
   public void notifyCheckConfigRemoved(ICheckConfiguration checkConfiguration)
           throws CheckstylePluginException {
-    // standard is that nothing happens
+    ResolvedConfigurationCache.invalidate(checkConfiguration);
   }
 
   @Override
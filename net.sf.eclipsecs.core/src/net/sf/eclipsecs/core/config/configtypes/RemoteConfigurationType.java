@@ -116,8 +116,9 @@ public class RemoteConfigurationType extends ConfigurationType {
           // get the configuration file data
           configurationFileData = getBytesFromURLConnection(connection);
 
-          // get last modification timestamp
+          // get last modification timestamp and entity tag for revalidation
           data.setModificationStamp(connection.getLastModified());
+          data.setEntityTag(connection.getHeaderField("ETag")); //$NON-NLS-1$
 
           originalFileSuccess = true;
         } catch (IOException e) {
@@ -180,6 +181,71 @@ public class RemoteConfigurationType extends ConfigurationType {
     return new URL(checkConfiguration.getLocation());
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isRemote() {
+    return true;
+  }
+
+  /**
+   * Revalidates the configuration by a conditional request, which transfers the configuration
+   * contents only if they changed. If the remote configuration cannot be reached the data at hand
+   * is considered current.
+   */
+  @Override
+  public boolean isCurrent(ICheckConfiguration checkConfiguration,
+          CheckstyleConfigurationFile data) throws CheckstylePluginException {
+
+    synchronized (Authenticator.class) {
+
+      Authenticator oldAuthenticator = RemoteConfigAuthenticator.getDefault();
+      try {
+
+        URL url = resolveLocation(checkConfiguration);
+        if (!isSameLocation(url, data.getResolvedConfigFileURL())) {
+          return false;
+        }
+
+        // without any validator the configuration must be loaded again
+        if (data.getEntityTag() == null && data.getModificationStamp() == 0) {
+          return false;
+        }
+
+        Authenticator.setDefault(new RemoteConfigAuthenticator(url));
+
+        URLConnection connection = url.openConnection();
+        connection.setConnectTimeout(10000);
+        connection.setReadTimeout(10000);
+
+        if (!(connection instanceof HttpURLConnection)) {
+          return connection.getLastModified() == data.getModificationStamp();
+        }
+
+        HttpURLConnection httpConn = (HttpURLConnection) connection;
+        httpConn.setInstanceFollowRedirects(true);
+        if (data.getEntityTag() != null) {
+          httpConn.setRequestProperty("If-None-Match", data.getEntityTag()); //$NON-NLS-1$
+        }
+        if (data.getModificationStamp() != 0) {
+          httpConn.setIfModifiedSince(data.getModificationStamp());
+        }
+
+        try {
+          return httpConn.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED;
+        } finally {
+          httpConn.disconnect();
+        }
+      } catch (IOException e) {
+        // keep using the configuration at hand while the remote one is not available
+        return true;
+      } finally {
+        Authenticator.setDefault(oldAuthenticator);
+      }
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
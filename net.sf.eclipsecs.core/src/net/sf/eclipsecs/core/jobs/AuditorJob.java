@@ -59,6 +59,8 @@ public class AuditorJob extends WorkspaceJob implements ISchedulingRule {
 
     this.mProject = project;
     this.mAuditor = auditor;
+
+    setRule(this);
   }
 
   /**
@@ -74,7 +76,21 @@ public class AuditorJob extends WorkspaceJob implements ISchedulingRule {
    */
   @Override
   public boolean isConflicting(ISchedulingRule arg0) {
-    return arg0 instanceof AuditorJob || arg0 instanceof RunCheckstyleOnFilesJob;
+
+    // checkers are pooled per audit, so only audits of the same project conflict
+    if (arg0 instanceof AuditorJob) {
+      return mProject.equals(((AuditorJob) arg0).mProject);
+    }
+    return arg0 instanceof RunCheckstyleOnFilesJob && arg0.isConflicting(this);
+  }
+
+  /**
+   * Returns the project audited by this job.
+   *
+   * @return the project
+   */
+  IProject getProject() {
+    return mProject;
   }
 
   @Override
@@ -0,0 +1,156 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+package net.sf.eclipsecs.core.jobs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.eclipsecs.core.CheckstylePlugin;
+import net.sf.eclipsecs.core.Messages;
+import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.nature.CheckstyleNature;
+import net.sf.eclipsecs.core.projectconfig.FileSet;
+import net.sf.eclipsecs.core.projectconfig.FileSetMatcher;
+import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
+import net.sf.eclipsecs.core.util.CheckstylePluginException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Job which audits the files of the file sets using some check configurations, e.g. after the
+ * configurations have been changed. Only the files included by these file sets are audited instead
+ * of building the projects using the configurations as a whole.
+ */
+public class BuildFileSetsJob extends Job {
+
+  /** The check configurations whose file sets are audited. */
+  private final List<ICheckConfiguration> mCheckConfigs;
+
+  /**
+   * Creates the job for the given check configurations.
+   *
+   * @param checkConfigs
+   *          the check configurations
+   */
+  public BuildFileSetsJob(Collection<? extends ICheckConfiguration> checkConfigs) {
+    super(Messages.BuildFileSetsJob_title);
+    mCheckConfigs = new ArrayList<>(checkConfigs);
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+
+    try {
+
+      // the file sets using any of the configurations, by project
+      Map<IProject, List<FileSet>> projectFileSets = new LinkedHashMap<>();
+      for (ICheckConfiguration checkConfig : mCheckConfigs) {
+        for (Map.Entry<IProject, List<FileSet>> entry : ProjectConfigurationFactory
+                .getFileSetsUsingConfig(checkConfig).entrySet()) {
+
+          List<FileSet> fileSets = projectFileSets.get(entry.getKey());
+          if (fileSets == null) {
+            fileSets = new ArrayList<>();
+            projectFileSets.put(entry.getKey(), fileSets);
+          }
+          fileSets.addAll(entry.getValue());
+        }
+      }
+
+      monitor.beginTask(getName(), projectFileSets.size());
+
+      List<IFile> files = new ArrayList<>();
+      for (Map.Entry<IProject, List<FileSet>> entry : projectFileSets.entrySet()) {
+
+        if (monitor.isCanceled()) {
+          return Status.CANCEL_STATUS;
+        }
+
+        IProject project = entry.getKey();
+        if (project.isOpen() && project.hasNature(CheckstyleNature.NATURE_ID)) {
+          collectFiles(project, entry.getValue(), files, monitor);
+        }
+        monitor.worked(1);
+      }
+
+      if (!files.isEmpty()) {
+        new RunCheckstyleOnFilesJob(files).schedule();
+      }
+      return Status.OK_STATUS;
+    } catch (OperationCanceledException e) {
+      return Status.CANCEL_STATUS;
+    } catch (CoreException e) {
+      return e.getStatus();
+    } catch (CheckstylePluginException e) {
+      return new Status(IStatus.ERROR, CheckstylePlugin.PLUGIN_ID, IStatus.ERROR,
+              e.getLocalizedMessage(), e);
+    } finally {
+      monitor.done();
+    }
+  }
+
+  /**
+   * Collects the files of the project included by the enabled ones of the given file sets.
+   */
+  private static void collectFiles(IProject project, final List<FileSet> fileSets,
+          final List<IFile> files, final IProgressMonitor monitor)
+          throws CheckstylePluginException, CoreException {
+
+    final FileSetMatcher matcher = ProjectConfigurationFactory.getConfiguration(project)
+            .getFileSetMatcher();
+
+    project.accept(new IResourceProxyVisitor() {
+
+      @Override
+      public boolean visit(IResourceProxy proxy) {
+
+        if (monitor.isCanceled()) {
+          throw new OperationCanceledException();
+        }
+
+        if (proxy.getType() == IResource.FILE) {
+
+          // all file sets are decided at once by the matcher
+          String path = proxy.requestFullPath().removeFirstSegments(1).toString();
+          for (FileSet fileSet : matcher.getFileSets(path)) {
+            if (fileSet.isEnabled() && fileSets.contains(fileSet)) {
+              files.add((IFile) proxy.requestResource());
+              break;
+            }
+          }
+        }
+        return true;
+      }
+    }, IResource.NONE);
+  }
+}
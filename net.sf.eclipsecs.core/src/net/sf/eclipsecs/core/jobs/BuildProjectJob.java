@@ -20,24 +20,43 @@
 
 package net.sf.eclipsecs.core.jobs;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.eclipsecs.core.CheckstylePlugin;
 import net.sf.eclipsecs.core.Messages;
+import net.sf.eclipsecs.core.builder.CheckstyleBuilder;
 import net.sf.eclipsecs.core.nature.CheckstyleNature;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.IJobChangeListener;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.osgi.util.NLS;
 
 /**
- * Operation which builds a project.
+ * Operation which builds a project. Several projects are built concurrently, each by its own job
+ * scheduled with the project as scheduling rule, so only the Checkstyle builder of each project
+ * runs and the workspace is not locked as a whole.
  *
  * @author Lars Ködderitzsch
  */
 public class BuildProjectJob extends Job {
 
+  /** Interval in milliseconds in which the progress of the project builds is checked. */
+  private static final long POLL_INTERVAL = 100;
+
   /** the project to build. */
   private IProject[] mProjects;
 
@@ -76,24 +95,106 @@ public class BuildProjectJob extends Job {
   @Override
   public IStatus run(IProgressMonitor monitor) {
 
-    IStatus status = null;
+    List<Job> runningBuilds = new ArrayList<>();
 
     try {
 
+      // build only if open and checkstyle active for the project
+      Deque<IProject> pendingProjects = new ArrayDeque<>();
       for (int i = 0; i < mProjects.length; i++) {
-
-        // build only if open and checkstyle active for the project
         if (mProjects[i].isOpen() && mProjects[i].hasNature(CheckstyleNature.NATURE_ID)) {
-          mProjects[i].build(mKind, monitor);
+          pendingProjects.add(mProjects[i]);
         }
       }
-      status = Status.OK_STATUS;
+
+      monitor.beginTask(getName(), pendingProjects.size());
+
+      final BlockingQueue<Job> finishedBuilds = new LinkedBlockingQueue<>();
+      IJobChangeListener listener = new JobChangeAdapter() {
+        @Override
+        public void done(IJobChangeEvent event) {
+          finishedBuilds.add(event.getJob());
+        }
+      };
+
+      int maxConcurrentBuilds = Math.max(1, Runtime.getRuntime().availableProcessors());
+      MultiStatus status = new MultiStatus(CheckstylePlugin.PLUGIN_ID, IStatus.OK, getName(),
+              null);
+
+      while (!pendingProjects.isEmpty() || !runningBuilds.isEmpty()) {
+
+        if (monitor.isCanceled()) {
+          return Status.CANCEL_STATUS;
+        }
+
+        while (runningBuilds.size() < maxConcurrentBuilds && !pendingProjects.isEmpty()) {
+          IProject project = pendingProjects.removeFirst();
+          monitor.subTask(NLS.bind(Messages.BuildProjectJob_msgBuildProject, project.getName()));
+
+          Job build = new ProjectBuildJob(project, mKind);
+          build.addJobChangeListener(listener);
+          runningBuilds.add(build);
+          build.schedule();
+        }
+
+        Job finished = finishedBuilds.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+        if (finished != null) {
+          runningBuilds.remove(finished);
+          monitor.worked(1);
+
+          IStatus result = finished.getResult();
+          if (result != null && result.getSeverity() != IStatus.OK
+                  && result.getSeverity() != IStatus.CANCEL) {
+            status.add(result);
+          }
+        }
+      }
+
+      return status.isOK() ? Status.OK_STATUS : status;
     } catch (CoreException e) {
-      status = e.getStatus();
+      return e.getStatus();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Status.CANCEL_STATUS;
     } finally {
+
+      // builds still running have been cancelled
+      for (Job build : runningBuilds) {
+        build.cancel();
+      }
       monitor.done();
     }
+  }
+
+  /**
+   * Job running the Checkstyle builder of a single project.
+   */
+  private static class ProjectBuildJob extends Job {
 
-    return status;
+    private final IProject mProject;
+
+    private final int mKind;
+
+    ProjectBuildJob(IProject project, int kind) {
+      super(NLS.bind(Messages.BuildProjectJob_msgBuildProject, project.getName()));
+      mProject = project;
+      mKind = kind;
+
+      // the Checkstyle builder only needs its own project
+      setRule(project);
+      setSystem(true);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      try {
+        mProject.build(mKind, CheckstyleBuilder.BUILDER_ID, null, monitor);
+        return Status.OK_STATUS;
+      } catch (CoreException e) {
+        return e.getStatus();
+      } finally {
+        monitor.done();
+      }
+    }
   }
 }
@@ -0,0 +1,126 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.jobs;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import net.sf.eclipsecs.core.Messages;
+import net.sf.eclipsecs.core.builder.CheckerFactory;
+import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.nature.CheckstyleNature;
+import net.sf.eclipsecs.core.projectconfig.FileSet;
+import net.sf.eclipsecs.core.projectconfig.IProjectConfiguration;
+import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
+import net.sf.eclipsecs.core.util.CheckstyleLog;
+import net.sf.eclipsecs.core.util.CheckstylePluginException;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Low priority job which creates the checkers of all Checkstyle enabled projects in advance, so
+ * the first build after startup does not have to load the check configurations. The checkers are
+ * returned to the pools of the {@link CheckerFactory} right away.
+ */
+public class PrewarmCheckersJob extends Job {
+
+  /**
+   * Creates the job.
+   */
+  public PrewarmCheckersJob() {
+    super(Messages.PrewarmCheckersJob_title);
+    setPriority(Job.DECORATE);
+    setSystem(true);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+
+    long start = System.currentTimeMillis();
+    int prepared = 0;
+
+    IProject[] projects = ResourcesPlugin.getWorkspace().getRoot().getProjects();
+    monitor.beginTask(Messages.PrewarmCheckersJob_title, projects.length);
+    try {
+      for (IProject project : projects) {
+
+        if (monitor.isCanceled()) {
+          return Status.CANCEL_STATUS;
+        }
+
+        for (ICheckConfiguration config : getCheckConfigurations(project)) {
+
+          if (monitor.isCanceled()) {
+            return Status.CANCEL_STATUS;
+          }
+
+          try {
+            Checker checker = CheckerFactory.borrowChecker(config, project);
+            CheckerFactory.returnChecker(checker);
+            prepared++;
+          } catch (CheckstyleException | CheckstylePluginException e) {
+            // broken configurations are reported by the build
+          }
+        }
+        monitor.worked(1);
+      }
+    } finally {
+      monitor.done();
+    }
+
+    CheckstyleLog.info(NLS.bind(Messages.PrewarmCheckersJob_msgFinished, prepared,
+            System.currentTimeMillis() - start));
+    return Status.OK_STATUS;
+  }
+
+  private static Set<ICheckConfiguration> getCheckConfigurations(IProject project) {
+
+    Set<ICheckConfiguration> checkConfigs = new LinkedHashSet<>();
+    try {
+      if (!project.isAccessible() || !project.hasNature(CheckstyleNature.NATURE_ID)) {
+        return checkConfigs;
+      }
+
+      IProjectConfiguration configuration = ProjectConfigurationFactory.getConfiguration(project);
+      for (FileSet fileSet : configuration.getFileSets()) {
+        if (fileSet.isEnabled() && fileSet.getCheckConfig() != null) {
+          checkConfigs.add(fileSet.getCheckConfig());
+        }
+      }
+    } catch (CoreException | CheckstylePluginException e) {
+      // the project is skipped, the build reports the problem
+    }
+    return checkConfigs;
+  }
+}
@@ -21,17 +21,20 @@
 package net.sf.eclipsecs.core.jobs;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import net.sf.eclipsecs.core.CheckstylePlugin;
 import net.sf.eclipsecs.core.Messages;
 import net.sf.eclipsecs.core.builder.CheckstyleBuilder;
 import net.sf.eclipsecs.core.projectconfig.IProjectConfiguration;
 import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
-import net.sf.eclipsecs.core.projectconfig.filters.IFilter;
+import net.sf.eclipsecs.core.projectconfig.filters.FilterChain;
 import net.sf.eclipsecs.core.util.CheckstylePluginException;
 
 import org.eclipse.core.resources.IFile;
@@ -93,7 +96,24 @@ public class RunCheckstyleOnFilesJob extends WorkspaceJob implements IScheduling
    */
   @Override
   public boolean isConflicting(ISchedulingRule arg0) {
-    return arg0 instanceof RunCheckstyleOnFilesJob || arg0 instanceof AuditorJob;
+
+    // checkers are pooled per audit, so only audits of the same projects conflict
+    if (arg0 == this) {
+      return true;
+    } else if (arg0 instanceof RunCheckstyleOnFilesJob) {
+      return !Collections.disjoint(getProjects(), ((RunCheckstyleOnFilesJob) arg0).getProjects());
+    } else if (arg0 instanceof AuditorJob) {
+      return getProjects().contains(((AuditorJob) arg0).getProject());
+    }
+    return false;
+  }
+
+  private Set<IProject> getProjects() {
+    Set<IProject> projects = new HashSet<>();
+    for (IFile file : mFilesToCheck) {
+      projects.add(file.getProject());
+    }
+    return projects;
   }
 
   /**
@@ -113,7 +133,7 @@ public class RunCheckstyleOnFilesJob extends WorkspaceJob implements IScheduling
 
         IProjectConfiguration checkConfig = ProjectConfigurationFactory.getConfiguration(project);
 
-        filter(files, checkConfig);
+        filter(project, files, checkConfig);
 
         CheckstyleBuilder builder = new CheckstyleBuilder();
         builder.handleBuildSelection(files, checkConfig, monitor, project,
@@ -148,19 +168,15 @@ public class RunCheckstyleOnFilesJob extends WorkspaceJob implements IScheduling
     return projectFilesMap;
   }
 
-  private void filter(final List<IFile> files, final IProjectConfiguration projectConfig) {
-
-    List<IFilter> filters = projectConfig.getFilters();
-    for (IFilter filter : filters) {
-
-      Iterator<IFile> filesIt = files.iterator();
-      while (filesIt.hasNext()) {
+  private void filter(final IProject project, final List<IFile> files,
+          final IProjectConfiguration projectConfig) {
 
-        IFile file = filesIt.next();
+    FilterChain filters = new FilterChain(project, projectConfig.getFilters());
 
-        if (filter.isEnabled() && !filter.accept(file)) {
-          filesIt.remove();
-        }
+    Iterator<IFile> filesIt = files.iterator();
+    while (filesIt.hasNext()) {
+      if (!filters.accept(filesIt.next())) {
+        filesIt.remove();
       }
     }
   }
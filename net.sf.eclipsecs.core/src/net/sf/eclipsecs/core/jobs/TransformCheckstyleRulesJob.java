@@ -89,25 +89,29 @@ public class TransformCheckstyleRulesJob extends WorkspaceJob {
 
         CheckstyleConfigurationFile configFile = checkConfig.getCheckstyleConfiguration();
 
-        PropertyResolver resolver = configFile.getPropertyResolver();
+        // the resolver is shared with concurrent builds of other projects
+        synchronized (configFile) {
 
-        // set the project context if the property resolver needs the
-        // context
-        if (resolver instanceof IContextAware) {
-          ((IContextAware) resolver).setProjectContext(mProject);
-        }
+          PropertyResolver resolver = configFile.getPropertyResolver();
+
+          // set the project context if the property resolver needs the
+          // context
+          if (resolver instanceof IContextAware) {
+            ((IContextAware) resolver).setProjectContext(mProject);
+          }
 
-        InputSource in = null;
-        try {
-          in = configFile.getCheckConfigFileInputSource();
+          InputSource in = null;
+          try {
+            in = configFile.getCheckConfigFileInputSource();
 
-          Configuration configuration = ConfigurationLoader.loadConfiguration(in, resolver,
-                  IgnoredModulesOptions.OMIT);
+            Configuration configuration = ConfigurationLoader.loadConfiguration(in, resolver,
+                    IgnoredModulesOptions.OMIT);
 
-          // flatten the nested configuration tree into a list
-          recurseConfiguration(configuration, rules);
-        } finally {
-          Closeables.closeQuietly(in.getByteStream());
+            // flatten the nested configuration tree into a list
+            recurseConfiguration(configuration, rules);
+          } finally {
+            Closeables.closeQuietly(in.getByteStream());
+          }
         }
       }
 
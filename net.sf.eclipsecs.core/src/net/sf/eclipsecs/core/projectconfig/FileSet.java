@@ -24,6 +24,7 @@ import com.google.common.base.MoreObjects;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Objects;
 
 import net.sf.eclipsecs.core.config.ICheckConfiguration;
@@ -149,21 +150,17 @@ public class FileSet implements Cloneable {
    *         is not included in the file set.
    */
   public boolean includesFile(IFile file) {
-    boolean result = false;
     String filePath = file.getProjectRelativePath().toString();
 
-    for (FileMatchPattern pattern : mFileMatchPatterns) {
-      boolean matches = pattern.isMatch(filePath);
-      if (matches) {
-        if (pattern.isIncludePattern()) {
-          result = true;
-        } else {
-          result = false;
-        }
+    // the last matching pattern decides
+    ListIterator<FileMatchPattern> it = mFileMatchPatterns.listIterator(mFileMatchPatterns.size());
+    while (it.hasPrevious()) {
+      FileMatchPattern pattern = it.previous();
+      if (pattern.isMatch(filePath)) {
+        return pattern.isIncludePattern();
       }
     }
-
-    return result;
+    return false;
   }
 
   @Override
@@ -0,0 +1,318 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.projectconfig;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IFile;
+
+/**
+ * Decides which file sets include a file, for all file sets of a project configuration at once.
+ *
+ * <p>
+ * The patterns of all file sets are compiled once. Many patterns start with a literal, like
+ * <code>^src/main/</code>. The literal prefixes of anchored patterns are kept in a trie, so a
+ * single walk over the path rules out every anchored pattern that cannot match. The literals of
+ * unanchored patterns are checked with a plain substring search. Only the remaining candidates
+ * are run as regular expressions, starting with the last pattern of a file set, since the last
+ * matching pattern decides. The decisions are memoized per path.
+ * </p>
+ *
+ * <p>
+ * The matcher takes a snapshot of the file sets, later changes of the file sets are not reflected.
+ * </p>
+ */
+public final class FileSetMatcher {
+
+  /** The maximum number of memoized paths, the memo is cleared when it grows beyond. */
+  private static final int MAX_MEMOIZED_PATHS = 100000;
+
+  /** The characters which end the literal prefix of a regular expression. */
+  private static final String META_CHARS = ".[]()*+?{}|\\^$"; //$NON-NLS-1$
+
+  /** The characters quantifying the preceding character. */
+  private static final String QUANTIFIERS = "*+?{"; //$NON-NLS-1$
+
+  /** The characters which may be escaped to be matched literally. */
+  private static final String ESCAPABLE_CHARS = ".[]()*+?{}|\\^$/-"; //$NON-NLS-1$
+
+  /** The compiled file sets. */
+  private final List<FileSet> mFileSets;
+
+  /** The patterns of every file set, in reverse order. */
+  private final List<CompiledPattern[]> mPatterns;
+
+  /** The trie of the literal prefixes of the anchored patterns. */
+  private final TrieNode mPrefixTrie = new TrieNode();
+
+  /** The unanchored patterns with a literal which must be contained in a matching path. */
+  private final List<CompiledPattern> mLiteralPatterns = new ArrayList<>();
+
+  /** The total number of compiled patterns. */
+  private final int mPatternCount;
+
+  /** The memoized decisions, the file sets including a path keyed by the path. */
+  private final Map<String, List<FileSet>> mMemo = new ConcurrentHashMap<>();
+
+  /**
+   * Compiles the given file sets.
+   *
+   * @param fileSets
+   *          the file sets
+   */
+  public FileSetMatcher(List<FileSet> fileSets) {
+
+    mFileSets = new ArrayList<>(fileSets);
+    mPatterns = new ArrayList<>(fileSets.size());
+
+    int patternCount = 0;
+    for (FileSet fileSet : mFileSets) {
+
+      List<FileMatchPattern> fileMatchPatterns = fileSet.getFileMatchPatterns();
+      CompiledPattern[] patterns = new CompiledPattern[fileMatchPatterns.size()];
+      for (int i = 0; i < patterns.length; i++) {
+
+        FileMatchPattern fileMatchPattern = fileMatchPatterns.get(i);
+        CompiledPattern pattern = new CompiledPattern(patternCount++,
+                fileMatchPattern.getMatchPattern(), fileMatchPattern.isIncludePattern());
+        patterns[patterns.length - 1 - i] = pattern;
+
+        if (pattern.mLiteral != null) {
+          if (pattern.mAnchored) {
+            mPrefixTrie.add(pattern.mLiteral, pattern);
+          } else {
+            mLiteralPatterns.add(pattern);
+          }
+        }
+      }
+      mPatterns.add(patterns);
+    }
+    mPatternCount = patternCount;
+  }
+
+  /**
+   * Returns the file sets which include the given file.
+   *
+   * @param file
+   *          the file
+   * @return the including file sets, in the order of the compiled file sets
+   */
+  public List<FileSet> getFileSets(IFile file) {
+    return getFileSets(file.getProjectRelativePath().toString());
+  }
+
+  /**
+   * Returns the file sets which include the file with the given project relative path.
+   *
+   * @param path
+   *          the project relative path of the file
+   * @return the including file sets, in the order of the compiled file sets
+   */
+  public List<FileSet> getFileSets(String path) {
+
+    List<FileSet> fileSets = mMemo.get(path);
+    if (fileSets == null) {
+      fileSets = match(path);
+
+      if (mMemo.size() >= MAX_MEMOIZED_PATHS) {
+        mMemo.clear();
+      }
+      mMemo.put(path, fileSets);
+    }
+    return fileSets;
+  }
+
+  /**
+   * Tests if the given file set includes the given file.
+   *
+   * @param fileSet
+   *          one of the compiled file sets
+   * @param file
+   *          the file
+   * @return <code>true</code> if the file set includes the file
+   */
+  public boolean includesFile(FileSet fileSet, IFile file) {
+    for (FileSet includingFileSet : getFileSets(file)) {
+      if (includingFileSet == fileSet) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<FileSet> match(String path) {
+
+    // patterns whose literal is missing from the path cannot match
+    BitSet excluded = new BitSet(mPatternCount);
+    for (CompiledPattern pattern : mPrefixTrie.getAll()) {
+      excluded.set(pattern.mIndex);
+    }
+    for (CompiledPattern pattern : mPrefixTrie.getPrefixesOf(path)) {
+      excluded.clear(pattern.mIndex);
+    }
+    for (CompiledPattern pattern : mLiteralPatterns) {
+      if (!path.contains(pattern.mLiteral)) {
+        excluded.set(pattern.mIndex);
+      }
+    }
+
+    List<FileSet> fileSets = null;
+    for (int i = 0, size = mFileSets.size(); i < size; i++) {
+
+      // the last matching pattern decides
+      for (CompiledPattern pattern : mPatterns.get(i)) {
+        if (!excluded.get(pattern.mIndex) && pattern.mPattern.matcher(path).find()) {
+          if (pattern.mInclude) {
+            if (fileSets == null) {
+              fileSets = new ArrayList<>();
+            }
+            fileSets.add(mFileSets.get(i));
+          }
+          break;
+        }
+      }
+    }
+    return fileSets != null ? Collections.unmodifiableList(fileSets)
+            : Collections.<FileSet> emptyList();
+  }
+
+  /**
+   * Returns the literal a path matched by the given regular expression must start with (if the
+   * expression is anchored) or contain. The literal ends at the first character with a special
+   * meaning.
+   *
+   * @param regex
+   *          the regular expression
+   * @param start
+   *          the index to start at
+   * @return the literal, <code>null</code> if there is none
+   */
+  private static String getLiteral(String regex, int start) {
+
+    // alternatives do not share a literal
+    if (regex.indexOf('|') >= 0) {
+      return null;
+    }
+
+    StringBuilder literal = new StringBuilder();
+    int i = start;
+    while (i < regex.length()) {
+
+      char c = regex.charAt(i);
+      char literalChar;
+      int next;
+      if (c == '\\' && i + 1 < regex.length()
+              && ESCAPABLE_CHARS.indexOf(regex.charAt(i + 1)) >= 0) {
+        literalChar = regex.charAt(i + 1);
+        next = i + 2;
+      } else if (META_CHARS.indexOf(c) < 0) {
+        literalChar = c;
+        next = i + 1;
+      } else {
+        break;
+      }
+
+      // a quantified character is not required
+      if (next < regex.length() && QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+        break;
+      }
+      literal.append(literalChar);
+      i = next;
+    }
+    return literal.length() > 0 ? literal.toString() : null;
+  }
+
+  /**
+   * A compiled file match pattern.
+   */
+  private static final class CompiledPattern {
+
+    private final int mIndex;
+
+    private final Pattern mPattern;
+
+    private final boolean mInclude;
+
+    private final boolean mAnchored;
+
+    private final String mLiteral;
+
+    private CompiledPattern(int index, String regex, boolean include) {
+      mIndex = index;
+      mPattern = Pattern.compile(regex);
+      mInclude = include;
+      mAnchored = regex.startsWith("^"); //$NON-NLS-1$
+      mLiteral = getLiteral(regex, mAnchored ? 1 : 0);
+    }
+  }
+
+  /**
+   * A node of the literal prefix trie.
+   */
+  private static final class TrieNode {
+
+    private final Map<Character, TrieNode> mChildren = new HashMap<>();
+
+    private final List<CompiledPattern> mPatterns = new ArrayList<>();
+
+    private final List<CompiledPattern> mAllPatterns = new ArrayList<>();
+
+    private void add(String prefix, CompiledPattern pattern) {
+      mAllPatterns.add(pattern);
+
+      TrieNode node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        Character c = Character.valueOf(prefix.charAt(i));
+        TrieNode child = node.mChildren.get(c);
+        if (child == null) {
+          child = new TrieNode();
+          node.mChildren.put(c, child);
+        }
+        node = child;
+      }
+      node.mPatterns.add(pattern);
+    }
+
+    private List<CompiledPattern> getAll() {
+      return mAllPatterns;
+    }
+
+    private List<CompiledPattern> getPrefixesOf(String path) {
+
+      List<CompiledPattern> patterns = new ArrayList<>();
+      TrieNode node = this;
+      for (int i = 0; i < path.length() && node != null; i++) {
+        node = node.mChildren.get(Character.valueOf(path.charAt(i)));
+        if (node != null) {
+          patterns.addAll(node.mPatterns);
+        }
+      }
+      return patterns;
+    }
+  }
+}
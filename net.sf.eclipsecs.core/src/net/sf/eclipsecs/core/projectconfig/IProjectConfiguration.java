@@ -57,6 +57,13 @@ public interface IProjectConfiguration {
    */
   List<FileSet> getFileSets();
 
+  /**
+   * Returns a matcher deciding which of the file sets include a file.
+   * 
+   * @return the file set matcher
+   */
+  FileSetMatcher getFileSetMatcher();
+
   /**
    * Gets the filters of this file set.
    * 
@@ -193,6 +193,21 @@ public class LocalCheckConfigurationWorkingSet implements ICheckConfigurationWor
     return projects;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Collection<ICheckConfiguration> getChangedConfigurations() {
+
+    List<ICheckConfiguration> changed = new ArrayList<>();
+    for (CheckConfigurationWorkingCopy workingCopy : mWorkingCopies) {
+      if (workingCopy.hasConfigurationChanged()) {
+        changed.add(workingCopy);
+      }
+    }
+    return changed;
+  }
+
   /**
    * Notifies the check configurations that have been deleted.
    *
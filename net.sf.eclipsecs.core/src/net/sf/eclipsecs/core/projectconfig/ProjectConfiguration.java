@@ -29,7 +29,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 
-import net.sf.eclipsecs.core.config.CheckConfigurationWorkingCopy;
 import net.sf.eclipsecs.core.config.ICheckConfiguration;
 import net.sf.eclipsecs.core.projectconfig.filters.IFilter;
 
@@ -55,6 +54,9 @@ public class ProjectConfiguration implements Cloneable, IProjectConfiguration {
   /** the filters. */
   private List<IFilter> mFilters;
 
+  /** the matcher of the file sets, created on first use. */
+  private volatile FileSetMatcher mFileSetMatcher;
+
   /** Flags if the simple file set editor should be used. */
   private boolean mUseSimpleConfig = true;
 
@@ -128,6 +130,14 @@ public class ProjectConfiguration implements Cloneable, IProjectConfiguration {
     return mFileSets;
   }
 
+  @Override
+  public FileSetMatcher getFileSetMatcher() {
+    if (mFileSetMatcher == null) {
+      mFileSetMatcher = new FileSetMatcher(mFileSets);
+    }
+    return mFileSetMatcher;
+  }
+
   @Override
   public List<IFilter> getFilters() {
     return mFilters;
@@ -157,10 +167,7 @@ public class ProjectConfiguration implements Cloneable, IProjectConfiguration {
     boolean result = false;
 
     for (FileSet fileSet : getFileSets()) {
-      ICheckConfiguration checkConfig = fileSet.getCheckConfig();
-      if (configuration.equals(checkConfig) || (checkConfig instanceof CheckConfigurationWorkingCopy
-              && configuration.equals(((CheckConfigurationWorkingCopy) checkConfig)
-                      .getSourceCheckConfiguration()))) {
+      if (ProjectConfigurationFactory.isConfigUsed(configuration, fileSet)) {
         result = true;
         break;
       }
@@ -183,6 +190,7 @@ public class ProjectConfiguration implements Cloneable, IProjectConfiguration {
         clonedFileSets.add(fileSet.clone());
       }
       clone.mFileSets = clonedFileSets;
+      clone.mFileSetMatcher = null;
 
       // clone filters
       List<IFilter> clonedFilters = new ArrayList<>();
@@ -24,13 +24,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.sf.eclipsecs.core.Messages;
 import net.sf.eclipsecs.core.config.CheckConfiguration;
 import net.sf.eclipsecs.core.config.CheckConfigurationFactory;
+import net.sf.eclipsecs.core.config.CheckConfigurationWorkingCopy;
 import net.sf.eclipsecs.core.config.ICheckConfiguration;
 import net.sf.eclipsecs.core.config.ResolvableProperty;
 import net.sf.eclipsecs.core.config.configtypes.ConfigurationTypes;
@@ -45,14 +52,22 @@ import org.dom4j.Element;
 import org.dom4j.io.SAXReader;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.osgi.util.NLS;
 
 /**
- * Used to manage the life cycle of FileSet objects.
+ * Used to manage the life cycle of FileSet objects. The parsed project configurations are kept in
+ * memory until the <code>.checkstyle</code> file of the project changes or the global check
+ * configurations are refreshed. The file sets of the remembered configurations are indexed by the
+ * check configuration they use, so the users of a check configuration are found without going
+ * through all project configurations.
  */
 public final class ProjectConfigurationFactory {
 
@@ -64,6 +79,23 @@ public final class ProjectConfigurationFactory {
   private static final List<String> SUPPORTED_VERSIONS = Arrays.asList("1.0.0", //$NON-NLS-1$
           "1.1.0", CURRENT_FILE_FORMAT_VERSION);
 
+  /** The parsed project configurations, keyed by project. */
+  private static final Map<IProject, IProjectConfiguration> CONFIGURATIONS =
+          new ConcurrentHashMap<>();
+
+  /**
+   * The file sets of the remembered configurations, by name of the check configuration they use
+   * and by project.
+   */
+  private static final ConcurrentMap<String, Map<IProject, List<FileSet>>> FILE_SETS_BY_CONFIG =
+          new ConcurrentHashMap<>();
+
+  /** Incremented on every invalidation, to detect configurations loaded while invalidating. */
+  private static final AtomicLong GENERATION = new AtomicLong();
+
+  /** Listener invalidating the configurations of changed projects, registered on first use. */
+  private static IResourceChangeListener sConfigFileListener;
+
   private ProjectConfigurationFactory() {
   }
 
@@ -78,7 +110,56 @@ public final class ProjectConfigurationFactory {
    */
   public static IProjectConfiguration getConfiguration(IProject project)
           throws CheckstylePluginException {
-    return loadFromPersistence(project);
+
+    IProjectConfiguration configuration = CONFIGURATIONS.get(project);
+    if (configuration == null) {
+
+      listenForChanges();
+
+      long generation = GENERATION.get();
+      configuration = loadFromPersistence(project);
+
+      // don't remember a configuration that may have been invalidated while loading it
+      if (generation == GENERATION.get()) {
+        indexFileSets(project, configuration);
+        CONFIGURATIONS.put(project, configuration);
+      }
+    }
+    return configuration;
+  }
+
+  /**
+   * Discards the remembered configuration of a project, it will be read again on next access.
+   *
+   * @param project
+   *          the project
+   */
+  public static void invalidate(IProject project) {
+    GENERATION.incrementAndGet();
+    CONFIGURATIONS.remove(project);
+    unindexFileSets(project);
+  }
+
+  /**
+   * Discards the remembered configurations of all projects, e.g. because the global check
+   * configurations they refer to changed.
+   */
+  public static void invalidateAll() {
+    GENERATION.incrementAndGet();
+    CONFIGURATIONS.clear();
+    FILE_SETS_BY_CONFIG.clear();
+  }
+
+  /**
+   * Stops listening for changes of the project configuration files and discards the remembered
+   * configurations.
+   */
+  public static synchronized void dispose() {
+    if (sConfigFileListener != null) {
+      ResourcesPlugin.getWorkspace().removeResourceChangeListener(sConfigFileListener);
+      sConfigFileListener = null;
+    }
+    invalidateAll();
   }
 
   /**
@@ -106,20 +187,77 @@ public final class ProjectConfigurationFactory {
    */
   public static List<IProject> getProjectsUsingConfig(ICheckConfiguration checkConfig)
           throws CheckstylePluginException {
+    return new ArrayList<>(getFileSetsUsingConfig(checkConfig).keySet());
+  }
+
+  /**
+   * Returns the file sets using this check configuration, by project. For a working copy the file
+   * sets using its source configuration are included, so the result is the same before and after
+   * the working copy has been stored.
+   *
+   * @param checkConfig
+   *          the check configuration
+   * @return the file sets using this configuration, by project
+   * @throws CheckstylePluginException
+   *           an unexpected exception occurred
+   */
+  public static Map<IProject, List<FileSet>> getFileSetsUsingConfig(
+          ICheckConfiguration checkConfig) throws CheckstylePluginException {
+
+    ICheckConfiguration sourceConfig = null;
+    if (checkConfig instanceof CheckConfigurationWorkingCopy) {
+      sourceConfig = ((CheckConfigurationWorkingCopy) checkConfig).getSourceCheckConfiguration();
+    }
 
-    List<IProject> result = new ArrayList<>();
+    Map<IProject, List<FileSet>> result = new LinkedHashMap<>();
 
     IWorkspace workspace = ResourcesPlugin.getWorkspace();
     IProject[] projects = workspace.getRoot().getProjects();
-    for (int i = 0; (i < projects.length); i++) {
-      if (ProjectConfigurationFactory.getConfiguration(projects[i]).isConfigInUse(checkConfig)) {
-        result.add(projects[i]);
+    for (IProject project : projects) {
+
+      // only the configurations not remembered yet need to be looked at as a whole
+      List<FileSet> candidates = null;
+      if (CONFIGURATIONS.containsKey(project)) {
+        candidates = new ArrayList<>(getIndexedFileSets(checkConfig, project));
+        if (sourceConfig != null && !sourceConfig.getName().equals(checkConfig.getName())) {
+          candidates.addAll(getIndexedFileSets(sourceConfig, project));
+        }
+      } else {
+        candidates = getConfiguration(project).getFileSets();
+      }
+
+      List<FileSet> fileSets = new ArrayList<>();
+      for (FileSet fileSet : candidates) {
+        if (isConfigUsed(checkConfig, fileSet)
+                || sourceConfig != null && isConfigUsed(sourceConfig, fileSet)) {
+          fileSets.add(fileSet);
+        }
+      }
+      if (!fileSets.isEmpty()) {
+        result.put(project, fileSets);
       }
     }
 
     return result;
   }
 
+  /**
+   * Checks if the given file set uses the given check configuration, directly or through a working
+   * copy of it.
+   *
+   * @param checkConfig
+   *          the check configuration
+   * @param fileSet
+   *          the file set
+   * @return <code>true</code> if the file set uses the configuration
+   */
+  static boolean isConfigUsed(ICheckConfiguration checkConfig, FileSet fileSet) {
+    ICheckConfiguration usedConfig = fileSet.getCheckConfig();
+    return checkConfig.equals(usedConfig) || (usedConfig instanceof CheckConfigurationWorkingCopy
+            && checkConfig.equals(((CheckConfigurationWorkingCopy) usedConfig)
+                    .getSourceCheckConfiguration()));
+  }
+
   /**
    * Creates a default project configuration for the given projects, using the default globbal check
    * configuration.
@@ -151,6 +289,69 @@ public final class ProjectConfigurationFactory {
     return new ProjectConfiguration(project, null, fileSets, defaultFilters, true, false);
   }
 
+  private static List<FileSet> getIndexedFileSets(ICheckConfiguration checkConfig,
+          IProject project) {
+
+    Map<IProject, List<FileSet>> projectFileSets = FILE_SETS_BY_CONFIG.get(checkConfig.getName());
+    List<FileSet> fileSets = projectFileSets != null ? projectFileSets.get(project) : null;
+    return fileSets != null ? fileSets : Collections.<FileSet> emptyList();
+  }
+
+  private static void indexFileSets(IProject project, IProjectConfiguration configuration) {
+
+    unindexFileSets(project);
+
+    for (FileSet fileSet : configuration.getFileSets()) {
+      ICheckConfiguration checkConfig = fileSet.getCheckConfig();
+      if (checkConfig == null) {
+        continue;
+      }
+
+      indexFileSet(project, checkConfig.getName(), fileSet);
+      if (checkConfig instanceof CheckConfigurationWorkingCopy) {
+        ICheckConfiguration sourceConfig = ((CheckConfigurationWorkingCopy) checkConfig)
+                .getSourceCheckConfiguration();
+        if (sourceConfig != null && !sourceConfig.getName().equals(checkConfig.getName())) {
+          indexFileSet(project, sourceConfig.getName(), fileSet);
+        }
+      }
+    }
+  }
+
+  private static void indexFileSet(IProject project, String configName, FileSet fileSet) {
+
+    Map<IProject, List<FileSet>> projectFileSets = FILE_SETS_BY_CONFIG.get(configName);
+    if (projectFileSets == null) {
+      projectFileSets = new ConcurrentHashMap<>();
+      Map<IProject, List<FileSet>> existing = FILE_SETS_BY_CONFIG.putIfAbsent(configName,
+              projectFileSets);
+      if (existing != null) {
+        projectFileSets = existing;
+      }
+    }
+
+    List<FileSet> fileSets = projectFileSets.get(project);
+    if (fileSets == null) {
+      fileSets = new CopyOnWriteArrayList<>();
+      projectFileSets.put(project, fileSets);
+    }
+    fileSets.add(fileSet);
+  }
+
+  private static void unindexFileSets(IProject project) {
+    for (Map<IProject, List<FileSet>> projectFileSets : FILE_SETS_BY_CONFIG.values()) {
+      projectFileSets.remove(project);
+    }
+  }
+
+  private static synchronized void listenForChanges() {
+    if (sConfigFileListener == null) {
+      sConfigFileListener = new ConfigFileListener();
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(sConfigFileListener,
+              IResourceChangeEvent.POST_CHANGE);
+    }
+  }
+
   /**
    * Load the audit configurations from the persistent state storage.
    */
@@ -331,4 +532,28 @@ public final class ProjectConfigurationFactory {
 
     return filters;
   }
+
+  /**
+   * Invalidates the configurations of projects whose configuration file changed, and of projects
+   * that have been added, removed, opened or closed.
+   */
+  private static class ConfigFileListener implements IResourceChangeListener {
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+
+      IResourceDelta delta = event.getDelta();
+      if (delta == null) {
+        return;
+      }
+
+      for (IResourceDelta projectDelta : delta.getAffectedChildren()) {
+        if (projectDelta.getKind() != IResourceDelta.CHANGED
+                || (projectDelta.getFlags() & IResourceDelta.OPEN) != 0
+                || projectDelta.findMember(new Path(PROJECT_CONFIGURATION_FILE)) != null) {
+          invalidate((IProject) projectDelta.getResource());
+        }
+      }
+    }
+  }
 }
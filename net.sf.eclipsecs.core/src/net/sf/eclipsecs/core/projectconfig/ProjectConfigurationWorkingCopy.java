@@ -234,6 +234,7 @@ public class ProjectConfigurationWorkingCopy implements Cloneable, IProjectConfi
    */
   public void store() throws CheckstylePluginException {
     storeToPersistence(this);
+    ProjectConfigurationFactory.invalidate(getProject());
   }
 
   @Override
@@ -257,6 +258,12 @@ public class ProjectConfigurationWorkingCopy implements Cloneable, IProjectConfi
     return mFileSets;
   }
 
+  @Override
+  public FileSetMatcher getFileSetMatcher() {
+    // the file sets of a working copy are edited in place
+    return new FileSetMatcher(mFileSets);
+  }
+
   @Override
   public List<IFilter> getFilters() {
     return mFilters;
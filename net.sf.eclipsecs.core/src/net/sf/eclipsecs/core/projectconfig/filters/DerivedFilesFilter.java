@@ -20,6 +20,7 @@
 
 package net.sf.eclipsecs.core.projectconfig.filters;
 
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IResource;
 
 /**
@@ -27,7 +28,7 @@ import org.eclipse.core.resources.IResource;
  *
  * @author Lars Ködderitzsch
  */
-public class DerivedFilesFilter extends AbstractFilter {
+public class DerivedFilesFilter extends AbstractFilter implements IContainerFilter {
 
   /**
    * {@inheritDoc}
@@ -42,4 +43,13 @@ public class DerivedFilesFilter extends AbstractFilter {
     }
     return goesThrough;
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean rejectsAll(IContainer container) {
+    // resources inside a derived container are derived as well
+    return !accept(container);
+  }
 }
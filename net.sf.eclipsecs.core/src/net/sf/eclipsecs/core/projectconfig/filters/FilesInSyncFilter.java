@@ -20,21 +20,27 @@
 
 package net.sf.eclipsecs.core.projectconfig.filters;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import net.sf.eclipsecs.core.util.CheckstyleLog;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.team.core.RepositoryProvider;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.subscribers.Subscriber;
 import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.core.synchronize.SyncInfoSet;
 
 /**
  * Filters all files that are in sync with the source repository.
  *
  * @author Lars Ködderitzsch
  */
-public class FilesInSyncFilter extends AbstractFilter {
+public class FilesInSyncFilter extends AbstractFilter implements IBulkFilter {
 
   /**
    * {@inheritDoc}
@@ -46,23 +52,57 @@ public class FilesInSyncFilter extends AbstractFilter {
     if (element instanceof IFile) {
 
       IFile file = (IFile) element;
-      IProject project = file.getProject();
+      Subscriber subscriber = getSubscriber(file.getProject());
+
+      if (subscriber != null) {
+        passes = hasChanges(file, subscriber);
+      }
+    }
+    return passes;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Set<IResource> getAcceptedFiles(IProject project) {
 
-      if (RepositoryProvider.isShared(project)) {
+    Subscriber subscriber = getSubscriber(project);
+    if (subscriber == null) {
+      // all files pass, asking file by file is cheap
+      return null;
+    }
+
+    // a single traversal collects the out of sync files of the whole project
+    SyncInfoSet outOfSync = new SyncInfoSet();
+    subscriber.collectOutOfSync(new IResource[] { project }, IResource.DEPTH_INFINITE, outOfSync,
+            new NullProgressMonitor());
+    if (outOfSync.getErrors().length > 0) {
+      return null;
+    }
 
-        RepositoryProvider provider = RepositoryProvider.getProvider(project);
+    Set<IResource> changedFiles = new HashSet<>();
+    for (SyncInfo syncInfo : outOfSync.getSyncInfos()) {
+      if (syncInfo.getLocal().getType() == IResource.FILE && isOutgoing(syncInfo)) {
+        changedFiles.add(syncInfo.getLocal());
+      }
+    }
+    return changedFiles;
+  }
 
-        if (provider != null) {
+  private static Subscriber getSubscriber(IProject project) {
 
-          Subscriber subscriber = provider.getSubscriber();
+    Subscriber subscriber = null;
 
-          if (subscriber != null) {
-            passes = hasChanges(file, subscriber);
-          }
-        }
+    if (RepositoryProvider.isShared(project)) {
+
+      RepositoryProvider provider = RepositoryProvider.getProvider(project);
+
+      if (provider != null) {
+        subscriber = provider.getSubscriber();
       }
     }
-    return passes;
+    return subscriber;
   }
 
   private boolean hasChanges(IFile file, Subscriber subscriber) {
@@ -73,12 +113,16 @@ public class FilesInSyncFilter extends AbstractFilter {
       SyncInfo synchInfo = subscriber.getSyncInfo(file);
 
       if (synchInfo != null) {
-        int kind = synchInfo.getKind();
-        hasChanges = (SyncInfo.getDirection(kind) & SyncInfo.OUTGOING) == SyncInfo.OUTGOING;
+        hasChanges = isOutgoing(synchInfo);
       }
     } catch (TeamException e) {
       CheckstyleLog.log(e);
     }
     return hasChanges;
   }
+
+  private static boolean isOutgoing(SyncInfo syncInfo) {
+    int kind = syncInfo.getKind();
+    return (SyncInfo.getDirection(kind) & SyncInfo.OUTGOING) == SyncInfo.OUTGOING;
+  }
 }
@@ -0,0 +1,222 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.projectconfig.filters;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+
+/**
+ * The enabled filters of a project configuration, applied to the resources of a project during a
+ * single build or audit.
+ *
+ * <p>
+ * The filters are ordered by the cost measured in earlier chains, filters which are cheap and
+ * reject many resources run first. Filters implementing {@link IBulkFilter} are asked for the
+ * decisions on all files of the project once enough files have been filtered, so expensive
+ * lookups are not repeated for every file.
+ * </p>
+ *
+ * <p>
+ * A filter chain is not thread safe.
+ * </p>
+ */
+public final class FilterChain {
+
+  /** Number of files a bulk filter is asked for one by one before it decides in bulk. */
+  private static final int BULK_THRESHOLD = 20;
+
+  /** The costs measured for the filters, by internal filter name. */
+  private static final ConcurrentMap<String, FilterCost> COSTS = new ConcurrentHashMap<>();
+
+  private final IProject mProject;
+
+  private final List<ChainedFilter> mFilters;
+
+  /**
+   * Creates the filter chain.
+   *
+   * @param project
+   *          the project the filtered resources belong to
+   * @param filters
+   *          the filters of the project configuration, disabled filters are ignored
+   */
+  public FilterChain(IProject project, Collection<IFilter> filters) {
+
+    mProject = project;
+
+    List<ChainedFilter> chained = new ArrayList<>();
+    for (IFilter filter : filters) {
+      if (filter.isEnabled()) {
+        chained.add(new ChainedFilter(filter));
+      }
+    }
+
+    Collections.sort(chained, new Comparator<ChainedFilter>() {
+      @Override
+      public int compare(ChainedFilter f1, ChainedFilter f2) {
+        return Double.compare(f1.mRank, f2.mRank);
+      }
+    });
+    mFilters = chained;
+  }
+
+  /**
+   * Checks if a resource passes all enabled filters.
+   *
+   * @param resource
+   *          the resource
+   * @return <code>true</code> if the resource passes the filters
+   */
+  public boolean accept(IResource resource) {
+    for (int i = 0, size = mFilters.size(); i < size; i++) {
+      if (!mFilters.get(i).accept(resource)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if an enabled filter rejects all resources inside a container, so the container needs
+   * not be traversed.
+   *
+   * @param container
+   *          the container
+   * @return <code>true</code> if nothing inside the container passes the filters
+   */
+  public boolean rejectsAll(IContainer container) {
+    for (int i = 0, size = mFilters.size(); i < size; i++) {
+      IFilter filter = mFilters.get(i).mFilter;
+      if (filter instanceof IContainerFilter && ((IContainerFilter) filter).rejectsAll(container)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A filter within the chain, recording its cost.
+   */
+  private final class ChainedFilter {
+
+    private final IFilter mFilter;
+
+    private final FilterCost mCost;
+
+    /** The rank of the filter in the chain, lower ranks run first. */
+    private final double mRank;
+
+    /** Number of files the filter was asked for, as long as it was not asked in bulk. */
+    private int mFileCount;
+
+    /** The files accepted by a bulk filter, <code>null</code> if not decided in bulk. */
+    private Set<IResource> mAcceptedFiles;
+
+    ChainedFilter(IFilter filter) {
+      mFilter = filter;
+      mCost = getCost(filter);
+      mRank = mCost.getRank();
+    }
+
+    boolean accept(IResource resource) {
+
+      // the bulk decision is made once per chain and is not charged to the single file, else it
+      // would dominate the average cost per call of the filter
+      if (mAcceptedFiles == null && mFilter instanceof IBulkFilter && resource instanceof IFile
+              && mFileCount++ == BULK_THRESHOLD) {
+        mAcceptedFiles = ((IBulkFilter) mFilter).getAcceptedFiles(mProject);
+      }
+
+      long start = System.nanoTime();
+
+      boolean passes;
+      if (mAcceptedFiles != null && resource instanceof IFile
+              && mProject.equals(resource.getProject())) {
+        passes = mAcceptedFiles.contains(resource);
+      } else {
+        passes = mFilter.accept(resource);
+      }
+
+      mCost.record(System.nanoTime() - start, passes);
+      return passes;
+    }
+  }
+
+  private static FilterCost getCost(IFilter filter) {
+
+    String name = filter.getInternalName() != null ? filter.getInternalName()
+            : filter.getClass().getName();
+
+    FilterCost cost = COSTS.get(name);
+    if (cost == null) {
+      cost = new FilterCost();
+      FilterCost existing = COSTS.putIfAbsent(name, cost);
+      if (existing != null) {
+        cost = existing;
+      }
+    }
+    return cost;
+  }
+
+  /**
+   * The accumulated cost of a filter over all chains.
+   */
+  private static final class FilterCost {
+
+    private long mNanos;
+
+    private long mCalls;
+
+    private long mRejections;
+
+    synchronized void record(long nanos, boolean passed) {
+      mNanos += nanos;
+      mCalls++;
+      if (!passed) {
+        mRejections++;
+      }
+    }
+
+    /**
+     * Returns the expected cost of the filter per rejected resource. Running filters in the order
+     * of this rank minimizes the total cost of the chain. Filters not measured yet rank first.
+     */
+    synchronized double getRank() {
+      if (mCalls == 0) {
+        return 0;
+      }
+      double averageCost = (double) mNanos / mCalls;
+      double rejectionRate = (mRejections + 1.0) / (mCalls + 1.0);
+      return averageCost / rejectionRate;
+    }
+  }
+}
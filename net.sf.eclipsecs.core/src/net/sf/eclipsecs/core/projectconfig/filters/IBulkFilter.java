@@ -0,0 +1,44 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.projectconfig.filters;
+
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+
+/**
+ * Optional interface of filters which are expensive when asked file by file, but can decide for
+ * all files of a project at once, e.g. by a single query to an external system.
+ */
+public interface IBulkFilter {
+
+  /**
+   * Determines which files of the project pass this filter. Files of the project not contained in
+   * the result are rejected, other resources are still passed to {@link IFilter#accept(Object)}.
+   *
+   * @param project
+   *          the project
+   * @return the files of the project passing the filter, or <code>null</code> if the decisions
+   *         cannot be computed in bulk and the filter must be asked file by file
+   */
+  Set<IResource> getAcceptedFiles(IProject project);
+}
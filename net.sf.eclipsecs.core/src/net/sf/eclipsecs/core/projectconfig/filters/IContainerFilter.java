@@ -0,0 +1,42 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.projectconfig.filters;
+
+import org.eclipse.core.resources.IContainer;
+
+/**
+ * Optional interface of filters which can decide for a container and everything inside it at once.
+ * This allows to skip whole subtrees of resources instead of asking the filter for every single
+ * resource.
+ */
+public interface IContainerFilter {
+
+  /**
+   * Determines whether the container and all resources inside it, at any depth, are rejected by
+   * this filter. Returning <code>false</code> is always correct, but forces the resources inside
+   * the container to be filtered one by one.
+   *
+   * @param container
+   *          the container to check
+   * @return <code>true</code> - no resource inside the container passes the filter
+   */
+  boolean rejectsAll(IContainer container);
+}
@@ -20,32 +20,15 @@
 
 package net.sf.eclipsecs.core.projectconfig.filters;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import net.sf.eclipsecs.core.util.CheckstyleLog;
-
-import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IPath;
-import org.eclipse.jdt.core.IClasspathEntry;
-import org.eclipse.jdt.core.IJavaProject;
-import org.eclipse.jdt.core.JavaCore;
-import org.eclipse.jdt.core.JavaModelException;
 
 /**
  * Implementation of a filter that filters all ressources that are not within a source directory.
  * 
  * @author Lars Ködderitzsch
  */
-public class NonSrcDirsFilter extends AbstractFilter {
-
-  /** the current project. */
-  private IProject mCurrentProject;
-
-  /** the list of source paths of the current project. */
-  private List<IPath> mCurrentSourcePaths;
+public class NonSrcDirsFilter extends AbstractFilter implements IContainerFilter {
 
   /**
    * {@inheritDoc}
@@ -58,49 +41,20 @@ public class NonSrcDirsFilter extends AbstractFilter {
     if (element instanceof IResource) {
       IResource resource = (IResource) element;
 
-      IProject project = resource.getProject();
-      if (mCurrentProject != project) {
-        mCurrentSourcePaths = getSourceDirPaths(project);
-        mCurrentProject = project;
-      }
-
-      for (IPath sourcePath : mCurrentSourcePaths) {
-        if (sourcePath.isPrefixOf(resource.getFullPath())) {
-          goesThrough = true;
-          break;
-        }
-      }
+      goesThrough = SourcePathIndex.getSourcePaths(resource.getProject())
+              .containsPrefixOf(resource.getFullPath(), 0);
     }
     return goesThrough;
   }
 
   /**
-   * Gets all source paths of a project.
-   * 
-   * @param project
-   *          the project
-   * @return the list of source paths
+   * {@inheritDoc}
    */
-  private List<IPath> getSourceDirPaths(IProject project) {
-
-    List<IPath> sourceDirs = new ArrayList<>();
-
-    try {
-      if (project.hasNature(JavaCore.NATURE_ID)) {
-        IJavaProject javaProject = JavaCore.create(project);
-        IClasspathEntry[] cp = javaProject.getResolvedClasspath(true);
-        for (int i = 0; i < cp.length; i++) {
-          if (cp[i].getEntryKind() == IClasspathEntry.CPE_SOURCE) {
-            sourceDirs.add(cp[i].getPath());
-          }
-        }
-      }
-    } catch (JavaModelException e) {
-      CheckstyleLog.log(e);
-    } catch (CoreException e) {
-      CheckstyleLog.log(e);
-    }
+  @Override
+  public boolean rejectsAll(IContainer container) {
 
-    return sourceDirs;
+    // containers inside a source directory or containing one hold resources passing the filter
+    return !SourcePathIndex.getSourcePaths(container.getProject())
+            .overlaps(container.getFullPath());
   }
-}
\ No newline at end of file
+}
@@ -35,7 +35,7 @@ import org.eclipse.core.runtime.Path;
  *
  * @author Lars Ködderitzsch
  */
-public class PackageFilter extends AbstractFilter {
+public class PackageFilter extends AbstractFilter implements IContainerFilter {
 
   /**
    * Marker string in the filter data, if present the subpackes of a filtered package are not
@@ -47,6 +47,9 @@ public class PackageFilter extends AbstractFilter {
 
   private boolean mExcludeSubPackages = true;
 
+  /** The filtered package folders, relative to the project. */
+  private PathPrefixTrie mFilteredPaths = new PathPrefixTrie();
+
   /**
    * {@inheritDoc}
    */
@@ -67,26 +70,10 @@ public class PackageFilter extends AbstractFilter {
         folder = resource.getParent();
       }
 
-      IPath projRelativPath = folder.getProjectRelativePath();
-
-      int size = mData != null ? mData.size() : 0;
-      for (int i = 0; i < size; i++) {
-
-        String el = mData.get(i);
-
-        if (RECURSE_OFF_MARKER.equals(el)) {
-          continue;
-        }
-
-        IPath filteredPath = new Path(el);
-        if (mExcludeSubPackages && filteredPath.isPrefixOf(projRelativPath)) {
-          goesThrough = false;
-          break;
-        } else if (!mExcludeSubPackages && filteredPath.equals(projRelativPath)) {
-          goesThrough = false;
-          break;
-        }
-      }
+      // the first segment of the full path is the project
+      IPath folderPath = folder.getFullPath();
+      goesThrough = mExcludeSubPackages ? !mFilteredPaths.containsPrefixOf(folderPath, 1)
+              : !mFilteredPaths.contains(folderPath, 1);
     }
     return goesThrough;
   }
@@ -95,16 +82,30 @@ public class PackageFilter extends AbstractFilter {
    * {@inheritDoc}
    */
   @Override
-  public void setFilterData(List<String> filterData) {
-    if (filterData == null) {
-      mData = new ArrayList<>();
+  public boolean rejectsAll(IContainer container) {
+
+    // without recursion the sub packages of a filtered package pass
+    if (!mExcludeSubPackages) {
+      return false;
     }
+    return !accept(container);
+  }
 
-    mData = filterData;
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setFilterData(List<String> filterData) {
+    mData = filterData != null ? filterData : new ArrayList<String>();
+    mExcludeSubPackages = !mData.contains(RECURSE_OFF_MARKER);
 
-    if (mData.contains(RECURSE_OFF_MARKER)) {
-      mExcludeSubPackages = false;
+    PathPrefixTrie filteredPaths = new PathPrefixTrie();
+    for (String el : mData) {
+      if (!RECURSE_OFF_MARKER.equals(el)) {
+        filteredPaths.add(new Path(el));
+      }
     }
+    mFilteredPaths = filteredPaths;
   }
 
   /**
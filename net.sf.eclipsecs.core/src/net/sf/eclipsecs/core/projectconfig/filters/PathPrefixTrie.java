@@ -0,0 +1,140 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.projectconfig.filters;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * A set of paths organized as a tree of path segments. Checking if a path is covered by the set
+ * walks the segments of the path once and does not allocate any objects. Devices of paths are
+ * ignored.
+ *
+ * <p>
+ * The trie is not thread safe while paths are added, but may be shared once it is filled.
+ * </p>
+ */
+final class PathPrefixTrie {
+
+  private final Node mRoot = new Node();
+
+  /**
+   * Adds a path to the trie.
+   *
+   * @param path
+   *          the path
+   */
+  void add(IPath path) {
+    Node node = mRoot;
+    for (int i = 0, count = path.segmentCount(); i < count; i++) {
+      node = node.getOrAddChild(path.segment(i));
+    }
+    node.mTerminal = true;
+  }
+
+  /**
+   * Checks if the trie contains the path or a prefix of it.
+   *
+   * @param path
+   *          the path
+   * @param firstSegment
+   *          the index of the first segment of the path to look at, e.g. 1 to look up the project
+   *          relative part of a full path
+   * @return <code>true</code> if a path of the trie is a prefix of the path
+   */
+  boolean containsPrefixOf(IPath path, int firstSegment) {
+    Node node = mRoot;
+    for (int i = firstSegment, count = path.segmentCount(); i < count && !node.mTerminal; i++) {
+      node = node.getChild(path.segment(i));
+      if (node == null) {
+        return false;
+      }
+    }
+    return node.mTerminal;
+  }
+
+  /**
+   * Checks if the trie contains exactly the path.
+   *
+   * @param path
+   *          the path
+   * @param firstSegment
+   *          the index of the first segment of the path to look at
+   * @return <code>true</code> if the path is contained in the trie
+   */
+  boolean contains(IPath path, int firstSegment) {
+    Node node = mRoot;
+    for (int i = firstSegment, count = path.segmentCount(); i < count; i++) {
+      node = node.getChild(path.segment(i));
+      if (node == null) {
+        return false;
+      }
+    }
+    return node.mTerminal;
+  }
+
+  /**
+   * Checks if the trie contains the path, a prefix of it or a path it is a prefix of.
+   *
+   * @param path
+   *          the path
+   * @return <code>true</code> if the path overlaps a path of the trie
+   */
+  boolean overlaps(IPath path) {
+    Node node = mRoot;
+    for (int i = 0, count = path.segmentCount(); i < count && !node.mTerminal; i++) {
+      node = node.getChild(path.segment(i));
+      if (node == null) {
+        return false;
+      }
+    }
+    return node.mTerminal || node.mChildren != null;
+  }
+
+  /**
+   * A node of the trie, standing for a path segment.
+   */
+  private static final class Node {
+
+    private Map<String, Node> mChildren;
+
+    /** Flags if the path ending at this node has been added. */
+    private boolean mTerminal;
+
+    Node getChild(String segment) {
+      return mChildren != null ? mChildren.get(segment) : null;
+    }
+
+    Node getOrAddChild(String segment) {
+      if (mChildren == null) {
+        mChildren = new HashMap<>();
+      }
+      Node child = mChildren.get(segment);
+      if (child == null) {
+        child = new Node();
+        mChildren.put(segment, child);
+      }
+      return child;
+    }
+  }
+}
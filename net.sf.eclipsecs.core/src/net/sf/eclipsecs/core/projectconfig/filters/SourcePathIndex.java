@@ -0,0 +1,156 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.core.projectconfig.filters;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.eclipsecs.core.util.CheckstyleLog;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Keeps the source directories of the projects, resolved once from the Java classpath and kept
+ * until the classpath of the project changes.
+ */
+public final class SourcePathIndex {
+
+  /** Classpath related flags of Java project deltas. */
+  private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+          | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_OPENED
+          | IJavaElementDelta.F_CLOSED;
+
+  /** The source directories, keyed by project. */
+  private static final Map<IProject, PathPrefixTrie> SOURCE_PATHS = new ConcurrentHashMap<>();
+
+  /** Incremented on every invalidation, to detect source paths resolved while invalidating. */
+  private static final AtomicLong GENERATION = new AtomicLong();
+
+  private static IElementChangedListener sClasspathListener;
+
+  private SourcePathIndex() {
+  }
+
+  /**
+   * Returns the full paths of the source directories of a project.
+   *
+   * @param project
+   *          the project
+   * @return the source directories, empty for non-Java projects
+   */
+  static PathPrefixTrie getSourcePaths(IProject project) {
+
+    PathPrefixTrie sourcePaths = SOURCE_PATHS.get(project);
+    if (sourcePaths == null) {
+
+      listenForChanges();
+
+      long generation = GENERATION.get();
+      sourcePaths = resolveSourcePaths(project);
+
+      // do not keep source paths which might have been outdated while resolving
+      if (generation == GENERATION.get()) {
+        SOURCE_PATHS.put(project, sourcePaths);
+      }
+    }
+    return sourcePaths;
+  }
+
+  /**
+   * Stops listening for classpath changes and discards the source directories.
+   */
+  public static synchronized void dispose() {
+    if (sClasspathListener != null) {
+      JavaCore.removeElementChangedListener(sClasspathListener);
+      sClasspathListener = null;
+    }
+    GENERATION.incrementAndGet();
+    SOURCE_PATHS.clear();
+  }
+
+  private static synchronized void listenForChanges() {
+    if (sClasspathListener == null) {
+      sClasspathListener = new ClasspathListener();
+      JavaCore.addElementChangedListener(sClasspathListener, ElementChangedEvent.POST_CHANGE);
+    }
+  }
+
+  /**
+   * Collects the full paths of the source directories of a classpath.
+   *
+   * @param classpath
+   *          the resolved classpath
+   * @return the source directories
+   */
+  static PathPrefixTrie createSourcePaths(IClasspathEntry[] classpath) {
+
+    PathPrefixTrie sourcePaths = new PathPrefixTrie();
+    for (int i = 0; i < classpath.length; i++) {
+      if (classpath[i].getEntryKind() == IClasspathEntry.CPE_SOURCE) {
+        sourcePaths.add(classpath[i].getPath());
+      }
+    }
+    return sourcePaths;
+  }
+
+  private static PathPrefixTrie resolveSourcePaths(IProject project) {
+
+    try {
+      if (project.hasNature(JavaCore.NATURE_ID)) {
+        IJavaProject javaProject = JavaCore.create(project);
+        return createSourcePaths(javaProject.getResolvedClasspath(true));
+      }
+    } catch (CoreException e) {
+      CheckstyleLog.log(e);
+    }
+
+    return new PathPrefixTrie();
+  }
+
+  /**
+   * Discards the source directories of projects whose classpath changed.
+   */
+  private static class ClasspathListener implements IElementChangedListener {
+
+    @Override
+    public void elementChanged(ElementChangedEvent event) {
+
+      for (IJavaElementDelta delta : event.getDelta().getAffectedChildren()) {
+
+        if (delta.getKind() != IJavaElementDelta.CHANGED
+                || (delta.getFlags() & CLASSPATH_FLAGS) != 0) {
+
+          IProject project = delta.getElement().getJavaProject().getProject();
+          GENERATION.incrementAndGet();
+          SOURCE_PATHS.remove(project);
+        }
+      }
+    }
+  }
+}
@@ -66,4 +66,16 @@ public final class CheckstyleLog {
     sLog.log(status);
   }
 
+  /**
+   * Logs an informational message.
+   * 
+   * @param message
+   *          the message
+   */
+  public static void info(String message) {
+    Status status = new Status(IStatus.INFO, CheckstylePlugin.PLUGIN_ID, IStatus.OK,
+            NLS.bind(Messages.CheckstyleLog_msgStatusPrefix, message), null);
+    sLog.log(status);
+  }
+
 }
\ No newline at end of file
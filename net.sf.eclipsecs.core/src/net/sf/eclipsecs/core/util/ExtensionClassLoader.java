@@ -25,24 +25,59 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IExtension;
 import org.eclipse.core.runtime.IExtensionPoint;
 import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.osgi.util.ManifestElement;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
 
 /**
  * Classloader implementation which can load classes and resources from bundles implementing a
  * specific extension point.
  *
+ * <p>
+ * Class lookups are indexed by package. A class of a package the bundles export, import or get from
+ * a required bundle is looked up in the bundles seeing this package first, the other bundles are
+ * only asked if none of them provides the class (e.g. for split packages). Classes of other
+ * packages are looked up in all bundles. Names which could not be loaded are remembered, so
+ * repeated lookups of missing classes (as done by Checkstyle when probing for module classes in all
+ * registered packages) do not have to ask the bundles again.
+ * </p>
+ *
  * @author Lars Ködderitzsch
  */
 public class ExtensionClassLoader extends ClassLoader {
 
   private List<Bundle> mBundles;
 
+  /** The bundles which see a package, in the order of lookup. */
+  private Map<String, List<Bundle>> mPackageIndex;
+
+  /** The classes loaded so far. */
+  private final Map<String, Class<?>> mLoadedClasses = new ConcurrentHashMap<>();
+
+  /** The names of classes known not to be available from the bundles. */
+  private final Set<String> mMissingClasses = Collections
+          .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  /** Number of class lookups answered from the caches. */
+  private final AtomicLong mCacheHits = new AtomicLong();
+
+  /** Number of class lookups which had to ask the bundles. */
+  private final AtomicLong mCacheMisses = new AtomicLong();
+
   /**
    * Creates the extension classloader.
    *
@@ -66,34 +101,97 @@ public class ExtensionClassLoader extends ClassLoader {
       String contributorId = ext.getContributor().getName();
       Bundle extensionBundle = Platform.getBundle(contributorId);
 
-      if (extensionBundle != null) {
+      if (extensionBundle != null && !mBundles.contains(extensionBundle)) {
         mBundles.add(extensionBundle);
       }
     }
+
+    mPackageIndex = createPackageIndex(mBundles);
   }
 
   @Override
   public Class<?> loadClass(String name) throws ClassNotFoundException {
 
-    Class<?> cl = null;
+    Class<?> cl = mLoadedClasses.get(name);
+    if (cl != null) {
+      mCacheHits.incrementAndGet();
+      return cl;
+    }
+    if (mMissingClasses.contains(name)) {
+      mCacheHits.incrementAndGet();
+      throw new ClassNotFoundException(name);
+    }
+    mCacheMisses.incrementAndGet();
 
-    for (Bundle bundle : mBundles) {
+    List<Bundle> indexedBundles = mPackageIndex.get(getPackageName(name));
+    if (indexedBundles != null) {
+      cl = loadClass(name, indexedBundles, null);
+    }
+
+    // the package may be split over several bundles, or be seen by a bundle in a way the index
+    // does not know about, so ask the other bundles before the class is deemed missing
+    if (cl == null) {
+      cl = loadClass(name, mBundles, indexedBundles);
+    }
+
+    if (cl == null) {
+      mMissingClasses.add(name);
+      throw new ClassNotFoundException(name);
+    }
+
+    mLoadedClasses.put(name, cl);
+    return cl;
+  }
+
+  /**
+   * Loads a class from the first of the given bundles which provides it.
+   *
+   * @param name
+   *          the class name
+   * @param bundles
+   *          the bundles to ask, in the order of lookup
+   * @param skippedBundles
+   *          bundles which have already been asked, may be <code>null</code>
+   * @return the class or <code>null</code> if none of the bundles provides it
+   */
+  private static Class<?> loadClass(String name, List<Bundle> bundles,
+          List<Bundle> skippedBundles) {
+
+    for (Bundle bundle : bundles) {
+
+      if (skippedBundles != null && skippedBundles.contains(bundle)) {
+        continue;
+      }
 
       try {
-        cl = bundle.loadClass(name);
+        Class<?> cl = bundle.loadClass(name);
         if (cl != null) {
-          break;
+          return cl;
         }
       } catch (ClassNotFoundException e) {
         // try next
       }
     }
+    return null;
+  }
 
-    if (cl == null) {
-      throw new ClassNotFoundException(name);
-    }
+  /**
+   * Returns the number of class lookups which were answered from the caches of loaded and missing
+   * classes.
+   *
+   * @return the number of cache hits
+   */
+  public long getCacheHits() {
+    return mCacheHits.get();
+  }
 
-    return cl;
+  /**
+   * Returns the number of class lookups which had to ask the bundles.
+   *
+   * @return the number of cache misses
+   */
+  public long getCacheMisses() {
+    return mCacheMisses.get();
   }
 
   @Override
@@ -124,4 +222,84 @@ public class ExtensionClassLoader extends ClassLoader {
     return Collections.enumeration(resources);
 
   }
+
+  private static String getPackageName(String className) {
+    int lastDot = className.lastIndexOf('.');
+    return lastDot > 0 ? className.substring(0, lastDot) : ""; //$NON-NLS-1$
+  }
+
+  private static Map<String, List<Bundle>> createPackageIndex(List<Bundle> bundles) {
+
+    Map<String, List<Bundle>> index = new HashMap<>();
+    for (Bundle bundle : bundles) {
+
+      Set<String> packages = new LinkedHashSet<>();
+      try {
+        packages.addAll(getPackages(bundle, Constants.EXPORT_PACKAGE));
+        packages.addAll(getPackages(bundle, Constants.IMPORT_PACKAGE));
+        addRequiredBundlePackages(bundle, packages, new HashSet<String>(), false);
+      } catch (BundleException e) {
+        // the manifest cannot be read, so the bundle will be asked for every class
+        packages.clear();
+        CheckstyleLog.log(e);
+      }
+
+      for (String pkg : packages) {
+        List<Bundle> packageBundles = index.get(pkg);
+        if (packageBundles == null) {
+          packageBundles = new ArrayList<>();
+          index.put(pkg, packageBundles);
+        }
+        packageBundles.add(bundle);
+      }
+    }
+
+    return index;
+  }
+
+  private static void addRequiredBundlePackages(Bundle bundle, Set<String> packages,
+          Set<String> visited, boolean reexportedOnly) throws BundleException {
+
+    String header = bundle.getHeaders("").get(Constants.REQUIRE_BUNDLE); //$NON-NLS-1$
+    if (header == null) {
+      return;
+    }
+
+    for (ManifestElement element : ManifestElement.parseHeader(Constants.REQUIRE_BUNDLE,
+            header)) {
+
+      if (reexportedOnly && !Constants.VISIBILITY_REEXPORT
+              .equals(element.getDirective(Constants.VISIBILITY_DIRECTIVE))) {
+        continue;
+      }
+
+      Bundle required = Platform.getBundle(element.getValue());
+      if (required == null || !visited.add(element.getValue())) {
+        continue;
+      }
+
+      packages.addAll(getPackages(required, Constants.EXPORT_PACKAGE));
+
+      // bundles re-exported by the required bundle are visible as well
+      addRequiredBundlePackages(required, packages, visited, true);
+    }
+  }
+
+  private static Set<String> getPackages(Bundle bundle, String headerName)
+          throws BundleException {
+
+    Set<String> packages = new HashSet<>();
+
+    String header = bundle.getHeaders("").get(headerName); //$NON-NLS-1$
+    if (header != null) {
+      for (ManifestElement element : ManifestElement.parseHeader(headerName, header)) {
+        for (String pkg : element.getValueComponents()) {
+          if (!".".equals(pkg)) { //$NON-NLS-1$
+            packages.add(pkg);
+          }
+        }
+      }
+    }
+    return packages;
+  }
 }
@@ -0,0 +1,145 @@
+package net.sf.eclipsecs.core.projectconfig;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.Path;
+import org.junit.jupiter.api.Test;
+
+public class FileSetMatcherTest {
+
+  /**
+   * The file sets, one array of patterns each. Patterns starting with <code>+</code> are include
+   * patterns, the ones starting with <code>-</code> exclude patterns.
+   */
+  private static final String[][] FILE_SETS = {
+    // anchored and unanchored patterns
+    { "+^src/main/java/.*\\.java$" },
+    { "+\\.xml$", "-^src/test/" },
+    // escapes
+    { "+^src\\.main/", "+\\d+\\.txt$", "+^\\Qa.b\\E/" },
+    { "+^a\\-b\\/c", "+^pom\\.xml$" },
+    // quantified last characters
+    { "+^srcx?/", "+^ab{0}c/" },
+    { "+^src\\.?main/" },
+    // character classes
+    { "+^[st]rc/", "+^src/[A-Z]\\w*\\.java$" },
+    // groups with alternatives
+    { "+^(src|test)/", "+^lib|^ext" },
+    // inline flags
+    { "+(?i)^SRC/", "+^doc/(?i)README" },
+    // the last matching pattern decides
+    { "-generated", "+^src/" },
+    { "+.*", "-\\.properties$", "+^src/keep\\.properties$" },
+    { "+java$", "-^src/main/", "+Foo" },
+  };
+
+  private static final String[] PATHS = {
+    "src/main/java/Foo.java",
+    "src/main/java/Foo.xml",
+    "src/test/Foo.xml",
+    "src/test/java/FooTest.java",
+    "src/generated/Gen.java",
+    "src.main/A.java",
+    "srcmain/A.java",
+    "data/123.txt",
+    "a.b/c.java",
+    "aXb/c.java",
+    "srcx/A.java",
+    "src/A.java",
+    "ac/x",
+    "abc/x",
+    "trc/A.java",
+    "test/A.java",
+    "lib/a.jar",
+    "ext/b.jar",
+    "SRC/A.java",
+    "Src/a",
+    "doc/readme.md",
+    "doc/README.md",
+    "DOC/readme",
+    "src/keep.properties",
+    "src/other.properties",
+    "a-b/c/d",
+    "pom.xml",
+    "sub/pom.xml",
+    "main/src/Foo.java",
+    "x",
+  };
+
+  @Test
+  public void testSameDecisionsAsFileSets() throws Exception {
+
+    List<FileSet> fileSets = new ArrayList<>();
+    for (int i = 0; i < FILE_SETS.length; i++) {
+      FileSet fileSet = new FileSet("set" + i, null);
+      fileSet.setEnabled(true);
+      for (String pattern : FILE_SETS[i]) {
+        FileMatchPattern fileMatchPattern = new FileMatchPattern(pattern.substring(1));
+        fileMatchPattern.setIsIncludePattern(pattern.charAt(0) == '+');
+        fileSet.getFileMatchPatterns().add(fileMatchPattern);
+      }
+      fileSets.add(fileSet);
+    }
+
+    FileSetMatcher matcher = new FileSetMatcher(fileSets);
+
+    for (String path : PATHS) {
+      IFile file = createFile(path);
+
+      List<FileSet> expected = new ArrayList<>();
+      for (FileSet fileSet : fileSets) {
+        if (fileSet.includesFile(file)) {
+          expected.add(fileSet);
+        }
+      }
+      assertEquals(expected, matcher.getFileSets(file), path);
+
+      // the memoized decision
+      assertEquals(expected, matcher.getFileSets(file), path);
+    }
+  }
+
+  @Test
+  public void testIncludesFile() throws Exception {
+
+    FileSet fileSet = new FileSet("java", null);
+    fileSet.getFileMatchPatterns().add(new FileMatchPattern("^src/.*\\.java$"));
+    FileMatchPattern exclude = new FileMatchPattern("^src/gen/");
+    exclude.setIsIncludePattern(false);
+    fileSet.getFileMatchPatterns().add(exclude);
+
+    List<FileSet> fileSets = new ArrayList<>();
+    fileSets.add(fileSet);
+    FileSetMatcher matcher = new FileSetMatcher(fileSets);
+
+    assertTrue(matcher.includesFile(fileSet, createFile("src/A.java")));
+    assertFalse(matcher.includesFile(fileSet, createFile("src/gen/A.java")));
+    assertFalse(matcher.includesFile(fileSet, createFile("doc/A.java")));
+  }
+
+  /**
+   * Creates a file which only knows its project relative path.
+   */
+  private static IFile createFile(final String path) {
+    return (IFile) Proxy.newProxyInstance(FileSetMatcherTest.class.getClassLoader(),
+            new Class<?>[] { IFile.class }, new InvocationHandler() {
+
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getProjectRelativePath".equals(method.getName())) {
+                  return new Path(path);
+                }
+                throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+}
@@ -0,0 +1,88 @@
+package net.sf.eclipsecs.core.projectconfig.filters;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.Path;
+import org.junit.jupiter.api.Test;
+
+public class PackageFilterTest {
+
+  @Test
+  public void testRecursive() {
+    PackageFilter filter = new PackageFilter();
+    filter.setFilterData(Arrays.asList("src/com/foo", "src/org/bar"));
+
+    assertFalse(filter.accept(createFile("/P/src/com/foo/A.java")));
+    assertFalse(filter.accept(createFile("/P/src/com/foo/sub/B.java")));
+    assertFalse(filter.accept(createFile("/P/src/org/bar/C.java")));
+    assertTrue(filter.accept(createFile("/P/src/com/D.java")));
+    assertTrue(filter.accept(createFile("/P/src/com/foobar/E.java")));
+    assertTrue(filter.accept(createFile("/P/com/foo/F.java")));
+
+    assertFalse(filter.accept(createFolder("/P/src/com/foo")));
+    assertTrue(filter.rejectsAll(createFolder("/P/src/com/foo")));
+    assertTrue(filter.rejectsAll(createFolder("/P/src/com/foo/sub")));
+    assertFalse(filter.rejectsAll(createFolder("/P/src/com")));
+    assertFalse(filter.rejectsAll(createFolder("/P")));
+  }
+
+  @Test
+  public void testNotRecursive() {
+    PackageFilter filter = new PackageFilter();
+    filter.setFilterData(Arrays.asList("src/com/foo", PackageFilter.RECURSE_OFF_MARKER));
+
+    assertFalse(filter.accept(createFile("/P/src/com/foo/A.java")));
+    assertTrue(filter.accept(createFile("/P/src/com/foo/sub/B.java")));
+    assertTrue(filter.accept(createFile("/P/src/com/D.java")));
+
+    // the sub packages of the filtered package must still be visited
+    assertFalse(filter.accept(createFolder("/P/src/com/foo")));
+    assertFalse(filter.rejectsAll(createFolder("/P/src/com/foo")));
+    assertFalse(filter.rejectsAll(createFolder("/P/src/com")));
+  }
+
+  @Test
+  public void testNoFilterData() {
+    PackageFilter filter = new PackageFilter();
+    filter.setFilterData(null);
+
+    assertTrue(filter.accept(createFile("/P/src/com/foo/A.java")));
+    assertFalse(filter.rejectsAll(createFolder("/P/src")));
+  }
+
+  private static IFile createFile(String path) {
+    return (IFile) createResource(IFile.class, path);
+  }
+
+  private static IFolder createFolder(String path) {
+    return (IFolder) createResource(IFolder.class, path);
+  }
+
+  /**
+   * Creates a resource which only knows its full path and its parent folder.
+   */
+  private static IResource createResource(Class<? extends IResource> type, final String path) {
+    return (IResource) Proxy.newProxyInstance(PackageFilterTest.class.getClassLoader(),
+            new Class<?>[] { type }, new InvocationHandler() {
+
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getFullPath".equals(method.getName())) {
+                  return new Path(path);
+                } else if ("getParent".equals(method.getName())) {
+                  return createFolder(new Path(path).removeLastSegments(1).toString());
+                }
+                throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+}
@@ -0,0 +1,95 @@
+package net.sf.eclipsecs.core.projectconfig.filters;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.eclipse.core.runtime.Path;
+import org.junit.jupiter.api.Test;
+
+public class PathPrefixTrieTest {
+
+  @Test
+  public void testEmpty() {
+    PathPrefixTrie trie = new PathPrefixTrie();
+
+    assertFalse(trie.containsPrefixOf(new Path("/P/src/A.java"), 0));
+    assertFalse(trie.contains(new Path("/P"), 0));
+    assertFalse(trie.overlaps(new Path("/P")));
+    assertFalse(trie.overlaps(Path.ROOT));
+  }
+
+  @Test
+  public void testProjectAsSourceFolder() {
+    PathPrefixTrie trie = new PathPrefixTrie();
+    trie.add(new Path("/P"));
+
+    assertTrue(trie.containsPrefixOf(new Path("/P"), 0));
+    assertTrue(trie.containsPrefixOf(new Path("/P/A.java"), 0));
+    assertTrue(trie.containsPrefixOf(new Path("/P/src/com/A.java"), 0));
+    assertFalse(trie.containsPrefixOf(new Path("/Q/A.java"), 0));
+    assertFalse(trie.containsPrefixOf(new Path("/PP/A.java"), 0));
+
+    assertTrue(trie.overlaps(Path.ROOT));
+    assertTrue(trie.overlaps(new Path("/P")));
+    assertTrue(trie.overlaps(new Path("/P/src")));
+    assertFalse(trie.overlaps(new Path("/Q")));
+  }
+
+  @Test
+  public void testNestedSourceFolders() {
+    PathPrefixTrie trie = new PathPrefixTrie();
+    trie.add(new Path("/P/src"));
+    trie.add(new Path("/P/src/gen"));
+
+    assertTrue(trie.containsPrefixOf(new Path("/P/src/A.java"), 0));
+    assertTrue(trie.containsPrefixOf(new Path("/P/src/gen/A.java"), 0));
+    assertTrue(trie.containsPrefixOf(new Path("/P/src/other/A.java"), 0));
+    assertFalse(trie.containsPrefixOf(new Path("/P/A.java"), 0));
+    assertFalse(trie.containsPrefixOf(new Path("/P/srcx/A.java"), 0));
+
+    assertTrue(trie.contains(new Path("/P/src"), 0));
+    assertTrue(trie.contains(new Path("/P/src/gen"), 0));
+    assertFalse(trie.contains(new Path("/P/src/other"), 0));
+    assertFalse(trie.contains(new Path("/P"), 0));
+
+    assertTrue(trie.overlaps(new Path("/P/src/gen/com")));
+    assertTrue(trie.overlaps(new Path("/P/src/other")));
+  }
+
+  @Test
+  public void testContainerOfSourceFolder() {
+    PathPrefixTrie trie = new PathPrefixTrie();
+    trie.add(new Path("/P/modules/a/src"));
+
+    // the container holds the source folder, but its own files are outside
+    assertTrue(trie.overlaps(new Path("/P")));
+    assertTrue(trie.overlaps(new Path("/P/modules")));
+    assertTrue(trie.overlaps(new Path("/P/modules/a")));
+    assertFalse(trie.containsPrefixOf(new Path("/P/modules/a/build.xml"), 0));
+
+    assertTrue(trie.overlaps(new Path("/P/modules/a/src/com")));
+    assertFalse(trie.overlaps(new Path("/P/modules/b")));
+    assertFalse(trie.overlaps(new Path("/P/other")));
+    assertFalse(trie.overlaps(new Path("/Q")));
+  }
+
+  @Test
+  public void testFirstSegment() {
+    PathPrefixTrie trie = new PathPrefixTrie();
+    trie.add(new Path("src/com/foo"));
+
+    // the first segment of a full path is the project
+    assertTrue(trie.containsPrefixOf(new Path("/P/src/com/foo"), 1));
+    assertTrue(trie.containsPrefixOf(new Path("/P/src/com/foo/bar"), 1));
+    assertFalse(trie.containsPrefixOf(new Path("/P/src/com/foo"), 0));
+    assertFalse(trie.containsPrefixOf(new Path("/P/src/com"), 1));
+    assertFalse(trie.containsPrefixOf(new Path("/P"), 1));
+
+    assertTrue(trie.contains(new Path("/P/src/com/foo"), 1));
+    assertFalse(trie.contains(new Path("/P/src/com/foo/bar"), 1));
+    assertFalse(trie.contains(new Path("/P/src/com"), 1));
+
+    assertTrue(trie.containsPrefixOf(new Path("/P/x/src/com/foo/bar"), 2));
+    assertFalse(trie.containsPrefixOf(new Path("/P/src/com/foo"), 2));
+  }
+}
@@ -0,0 +1,81 @@
+package net.sf.eclipsecs.core.projectconfig.filters;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.junit.jupiter.api.Test;
+
+public class SourcePathIndexTest {
+
+  @Test
+  public void testSourceEntriesOnly() {
+    PathPrefixTrie sourcePaths = SourcePathIndex.createSourcePaths(new IClasspathEntry[] {
+      createEntry(IClasspathEntry.CPE_SOURCE, "/P/src"),
+      createEntry(IClasspathEntry.CPE_LIBRARY, "/P/lib/a.jar"),
+      createEntry(IClasspathEntry.CPE_PROJECT, "/Q"),
+    });
+
+    assertTrue(sourcePaths.containsPrefixOf(new Path("/P/src/A.java"), 0));
+    assertFalse(sourcePaths.containsPrefixOf(new Path("/P/lib/a.jar"), 0));
+    assertFalse(sourcePaths.containsPrefixOf(new Path("/Q/src/A.java"), 0));
+    assertFalse(sourcePaths.overlaps(new Path("/P/lib")));
+    assertFalse(sourcePaths.overlaps(new Path("/Q")));
+  }
+
+  @Test
+  public void testProjectAsSourceFolder() {
+    PathPrefixTrie sourcePaths = SourcePathIndex.createSourcePaths(new IClasspathEntry[] {
+      createEntry(IClasspathEntry.CPE_SOURCE, "/P"),
+    });
+
+    assertTrue(sourcePaths.containsPrefixOf(new Path("/P/A.java"), 0));
+    assertTrue(sourcePaths.containsPrefixOf(new Path("/P/com/foo/A.java"), 0));
+    assertTrue(sourcePaths.overlaps(new Path("/P")));
+    assertTrue(sourcePaths.overlaps(new Path("/P/com")));
+  }
+
+  @Test
+  public void testNestedSourceFolders() {
+    PathPrefixTrie sourcePaths = SourcePathIndex.createSourcePaths(new IClasspathEntry[] {
+      createEntry(IClasspathEntry.CPE_SOURCE, "/P/src/main/java"),
+      createEntry(IClasspathEntry.CPE_SOURCE, "/P/src/main/java/generated"),
+      createEntry(IClasspathEntry.CPE_SOURCE, "/P/src/test/java"),
+    });
+
+    assertTrue(sourcePaths.containsPrefixOf(new Path("/P/src/main/java/A.java"), 0));
+    assertTrue(sourcePaths.containsPrefixOf(new Path("/P/src/main/java/generated/A.java"), 0));
+    assertTrue(sourcePaths.containsPrefixOf(new Path("/P/src/test/java/ATest.java"), 0));
+    assertFalse(sourcePaths.containsPrefixOf(new Path("/P/src/main/resources/a.xml"), 0));
+
+    // containers holding source folders are not rejected, the others are
+    assertTrue(sourcePaths.overlaps(new Path("/P/src")));
+    assertTrue(sourcePaths.overlaps(new Path("/P/src/main")));
+    assertFalse(sourcePaths.overlaps(new Path("/P/src/main/resources")));
+    assertFalse(sourcePaths.overlaps(new Path("/P/target")));
+  }
+
+  /**
+   * Creates a classpath entry which only knows its kind and path.
+   */
+  private static IClasspathEntry createEntry(final int kind, final String path) {
+    return (IClasspathEntry) Proxy.newProxyInstance(SourcePathIndexTest.class.getClassLoader(),
+            new Class<?>[] { IClasspathEntry.class }, new InvocationHandler() {
+
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getEntryKind".equals(method.getName())) {
+                  return Integer.valueOf(kind);
+                } else if ("getPath".equals(method.getName())) {
+                  return new Path(path);
+                }
+                throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+}
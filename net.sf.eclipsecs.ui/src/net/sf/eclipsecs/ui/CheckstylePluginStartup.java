@@ -20,6 +20,9 @@
 
 package net.sf.eclipsecs.ui;
 
+import net.sf.eclipsecs.core.CheckstylePluginPrefs;
+import net.sf.eclipsecs.core.jobs.PrewarmCheckersJob;
+
 import org.eclipse.ui.IStartup;
 
 /**
@@ -36,6 +39,8 @@ public class CheckstylePluginStartup implements IStartup {
    */
   @Override
   public void earlyStartup() {
-    // NOOP
+    if (CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_PREWARM_CHECKERS)) {
+      new PrewarmCheckersJob().schedule();
+    }
   }
 }
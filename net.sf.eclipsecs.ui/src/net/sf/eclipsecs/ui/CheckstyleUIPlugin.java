@@ -26,7 +26,9 @@ import java.util.Locale;
 
 import net.sf.eclipsecs.core.util.CheckstyleLog;
 import net.sf.eclipsecs.core.util.ExtensionClassLoader;
+import net.sf.eclipsecs.ui.editor.LiveAuditPartListener;
 import net.sf.eclipsecs.ui.properties.filter.CheckFileOnOpenPartListener;
+import net.sf.eclipsecs.ui.stats.data.MarkerStatsIndex;
 
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -112,6 +114,10 @@ public class CheckstyleUIPlugin extends AbstractUIPlugin {
             // register the same listener twice accidently
             window.getPartService().removePartListener(mPartListener);
             window.getPartService().addPartListener(mPartListener);
+
+            // listen for editors to audit while typing
+            window.getPartService().removePartListener(mLiveAuditPartListener);
+            window.getPartService().addPartListener(mLiveAuditPartListener);
           }
         }
 
@@ -126,6 +132,9 @@ public class CheckstyleUIPlugin extends AbstractUIPlugin {
 
     // free cached images
     CheckstyleUIPluginImages.clearCachedImages();
+
+    // stop maintaining the marker statistics
+    MarkerStatsIndex.dispose();
     super.stop(context);
   }
 
@@ -255,11 +264,14 @@ public class CheckstyleUIPlugin extends AbstractUIPlugin {
 
   private final CheckFileOnOpenPartListener mPartListener = new CheckFileOnOpenPartListener();
 
+  private final LiveAuditPartListener mLiveAuditPartListener = new LiveAuditPartListener();
+
   private final IWindowListener mWindowListener = new IWindowListener() {
 
     @Override
     public void windowOpened(IWorkbenchWindow window) {
       window.getPartService().addPartListener(mPartListener);
+      window.getPartService().addPartListener(mLiveAuditPartListener);
     }
 
     @Override
@@ -269,7 +281,7 @@ public class CheckstyleUIPlugin extends AbstractUIPlugin {
     @Override
     public void windowClosed(IWorkbenchWindow window) {
       window.getPartService().removePartListener(mPartListener);
-
+      window.getPartService().removePartListener(mLiveAuditPartListener);
     }
 
     @Override
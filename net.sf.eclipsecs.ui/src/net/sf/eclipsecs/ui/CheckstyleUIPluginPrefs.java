@@ -87,6 +87,23 @@ public class CheckstyleUIPluginPrefs extends AbstractPreferenceInitializer {
    */
   public static final String PREF_STATS_SHOW_ALL_CATEGORIES = "show_all_categories"; //$NON-NLS-1$
 
+  /**
+   * Preference name indicating if the contents of text editors should be
+   * audited while typing.
+   */
+  public static final String PREF_LIVE_AUDIT = "live.audit"; //$NON-NLS-1$
+
+  /**
+   * Preference name for the milliseconds to wait after the last change of an
+   * editor before its contents are audited.
+   */
+  public static final String PREF_LIVE_AUDIT_DELAY = "live.audit.delay"; //$NON-NLS-1$
+
+  /**
+   * Default value for the delay of the live audit.
+   */
+  public static final int LIVE_AUDIT_DELAY = 150;
+
   /**
    * {@inheritDoc}
    */
@@ -102,6 +119,8 @@ public class CheckstyleUIPluginPrefs extends AbstractPreferenceInitializer {
     prefs.putBoolean(PREF_OPEN_MODULE_EDITOR, true);
     prefs.putInt(PREF_DUPLICATED_CODE_MIN_LINES, DUPLICATED_CODE_MIN_LINES);
     prefs.putBoolean(PREF_STATS_SHOW_ALL_CATEGORIES, false);
+    prefs.putBoolean(PREF_LIVE_AUDIT, false);
+    prefs.putInt(PREF_LIVE_AUDIT_DELAY, LIVE_AUDIT_DELAY);
 
     try {
       prefs.flush();
@@ -40,6 +40,14 @@ public final class Messages extends NLS {
 
   public static String ActivateProjectsPrintAction_msgActivateSelectedProjects;
 
+  public static String BulkFixCheckstyleMarkersJob_msgSkippedFiles;
+
+  public static String BulkFixCheckstyleMarkersJob_msgSummary;
+
+  public static String BulkFixCheckstyleMarkersJob_title;
+
+  public static String BulkFixCheckstyleMarkersJob_titleSummary;
+
   public static String CheckConfigurationConfigureDialog_btnAdd;
 
   public static String CheckConfigurationConfigureDialog_btnOpen;
@@ -132,6 +140,16 @@ public final class Messages extends NLS {
 
   public static String CheckConfigurationPropertiesDialog_CopyOfAddition;
 
+  public static String CheckstylePreferencePage_lblAuditThreads;
+
+  public static String CheckstylePreferencePage_lblCacheAuditResults;
+
+  public static String CheckstylePreferencePage_lblIncrementalAudit;
+
+  public static String CheckstylePreferencePage_lblLiveAudit;
+
+  public static String CheckstylePreferencePage_lblPrewarmCheckers;
+
   public static String CheckstylePreferencePage_lblDescription;
 
   public static String CheckstylePreferencePage_lblDisableClassloader;
@@ -403,6 +421,8 @@ public final class Messages extends NLS {
 
   public static String InternalConfigurationEditor_titleImportDialog;
 
+  public static String LiveAuditor_jobName;
+
   public static String CheckConfigurationLabelProvider_suffixGlobal;
 
   public static String CheckConfigurationLabelProvider_suffixLocal;
@@ -0,0 +1,163 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.ui.editor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.eclipsecs.ui.CheckstyleUIPluginPrefs;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IFileEditorInput;
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchPartReference;
+import org.eclipse.ui.texteditor.IDocumentProvider;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+/**
+ * PartListener implementation that installs a {@link LiveAuditor} on the text editors of files, if
+ * the live audit is enabled. Whether a file is checked by Checkstyle at all is left to the auditor,
+ * which finds out in the background.
+ */
+public class LiveAuditPartListener implements IPartListener2 {
+
+  /** The installed live auditors. */
+  private final Map<IWorkbenchPartReference, LiveAuditor> mAuditors = new HashMap<>();
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void partOpened(IWorkbenchPartReference partRef) {
+    install(partRef);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void partActivated(IWorkbenchPartReference partRef) {
+    // also picks up changes of the live audit preference
+    install(partRef);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void partInputChanged(IWorkbenchPartReference partRef) {
+    uninstall(partRef);
+    install(partRef);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void partClosed(IWorkbenchPartReference partRef) {
+    uninstall(partRef);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void partBroughtToTop(IWorkbenchPartReference partRef) {
+    // NOOP
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void partDeactivated(IWorkbenchPartReference partRef) {
+    // NOOP
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void partHidden(IWorkbenchPartReference partRef) {
+    // NOOP
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void partVisible(IWorkbenchPartReference partRef) {
+    // NOOP
+  }
+
+  private void install(IWorkbenchPartReference partRef) {
+
+    boolean enabled = CheckstyleUIPluginPrefs.getBoolean(CheckstyleUIPluginPrefs.PREF_LIVE_AUDIT);
+
+    if (mAuditors.containsKey(partRef)) {
+      if (!enabled) {
+        uninstall(partRef);
+      }
+      return;
+    }
+
+    if (!enabled) {
+      return;
+    }
+
+    // do not restore the part, editors are handled once they are activated
+    IWorkbenchPart part = partRef.getPart(false);
+    if (!(part instanceof ITextEditor)) {
+      return;
+    }
+
+    ITextEditor editor = (ITextEditor) part;
+    IEditorInput input = editor.getEditorInput();
+    if (!(input instanceof IFileEditorInput)) {
+      return;
+    }
+
+    IFile file = ((IFileEditorInput) input).getFile();
+
+    IDocumentProvider provider = editor.getDocumentProvider();
+    IDocument document = provider != null ? provider.getDocument(input) : null;
+    IAnnotationModel annotationModel = provider != null ? provider.getAnnotationModel(input)
+            : null;
+    if (document == null || annotationModel == null) {
+      return;
+    }
+
+    LiveAuditor auditor = new LiveAuditor(editor, file, document, annotationModel);
+    auditor.install();
+    mAuditors.put(partRef, auditor);
+  }
+
+  private void uninstall(IWorkbenchPartReference partRef) {
+    LiveAuditor auditor = mAuditors.remove(partRef);
+    if (auditor != null) {
+      auditor.uninstall();
+    }
+  }
+}
@@ -0,0 +1,408 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.ui.editor;
+
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.eclipsecs.core.builder.CheckstyleMarker;
+import net.sf.eclipsecs.core.builder.DocumentAuditor;
+import net.sf.eclipsecs.core.config.ICheckConfiguration;
+import net.sf.eclipsecs.core.projectconfig.IProjectConfiguration;
+import net.sf.eclipsecs.core.projectconfig.ProjectConfigurationFactory;
+import net.sf.eclipsecs.core.util.CheckstyleLog;
+import net.sf.eclipsecs.core.util.CheckstylePluginException;
+import net.sf.eclipsecs.ui.CheckstyleUIPluginPrefs;
+import net.sf.eclipsecs.ui.Messages;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.ISynchronizable;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelExtension;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IPropertyListener;
+import org.eclipse.ui.texteditor.ITextEditor;
+import org.eclipse.ui.texteditor.MarkerAnnotation;
+import org.eclipse.ui.texteditor.MarkerUtilities;
+
+/**
+ * Audits the unsaved contents of a text editor while the user is typing. Once the document has not
+ * changed for a short delay its contents are audited in the background, the results are shown as
+ * transient annotations in the editor. The annotations are removed when the editor is saved, since
+ * the builder then updates the Checkstyle markers of the file. While the annotations are shown the
+ * annotations of the Checkstyle markers of the file are hidden, so violations are not shown twice.
+ */
+public class LiveAuditor implements IDocumentListener, IPropertyListener {
+
+  /** The editor. */
+  private final ITextEditor mEditor;
+
+  /** The file being edited. */
+  private final IFile mFile;
+
+  /** The document of the editor. */
+  private final IDocument mDocument;
+
+  /** The annotation model of the editor. */
+  private final IAnnotationModel mAnnotationModel;
+
+  /** The job auditing the document. */
+  private final Job mAuditJob;
+
+  /** The project configuration the check configurations have been determined with. */
+  private IProjectConfiguration mProjectConfiguration;
+
+  /** The check configurations auditing the file. */
+  private Set<ICheckConfiguration> mCheckConfigs = Collections.emptySet();
+
+  /** The annotations currently published by the live audit. */
+  private List<Annotation> mAnnotations = new ArrayList<>();
+
+  /** The annotations of the Checkstyle markers hidden while the live audit results are shown. */
+  private final List<Annotation> mHiddenMarkerAnnotations = new ArrayList<>();
+
+  /** Flags if the auditor has been uninstalled. */
+  private volatile boolean mDisposed;
+
+  /**
+   * Creates the live auditor for an editor.
+   *
+   * @param editor
+   *          the editor
+   * @param file
+   *          the file being edited
+   * @param document
+   *          the document of the editor
+   * @param annotationModel
+   *          the annotation model of the editor
+   */
+  public LiveAuditor(ITextEditor editor, IFile file, IDocument document,
+          IAnnotationModel annotationModel) {
+    mEditor = editor;
+    mFile = file;
+    mDocument = document;
+    mAnnotationModel = annotationModel;
+
+    mAuditJob = new Job(Messages.LiveAuditor_jobName) {
+
+      @Override
+      protected IStatus run(IProgressMonitor monitor) {
+        return audit(monitor);
+      }
+    };
+    mAuditJob.setSystem(true);
+    mAuditJob.setPriority(Job.SHORT);
+  }
+
+  /**
+   * Starts listening to changes of the editor.
+   */
+  public void install() {
+    mDocument.addDocumentListener(this);
+    mEditor.addPropertyListener(this);
+  }
+
+  /**
+   * Stops listening to changes of the editor and removes the published annotations.
+   */
+  public void uninstall() {
+    mDisposed = true;
+    mDocument.removeDocumentListener(this);
+    mEditor.removePropertyListener(this);
+    mAuditJob.cancel();
+    clearResults();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void documentAboutToBeChanged(DocumentEvent event) {
+    // NOOP
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void documentChanged(DocumentEvent event) {
+
+    // restart the delay with every change
+    mAuditJob.cancel();
+    mAuditJob.schedule(
+            CheckstyleUIPluginPrefs.getInt(CheckstyleUIPluginPrefs.PREF_LIVE_AUDIT_DELAY));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void propertyChanged(Object source, int propId) {
+
+    // the builder takes over once the editor has been saved
+    if (propId == IEditorPart.PROP_DIRTY && !mEditor.isDirty()) {
+      mAuditJob.cancel();
+      clearResults();
+    }
+  }
+
+  private IStatus audit(IProgressMonitor monitor) {
+
+    Set<ICheckConfiguration> checkConfigs = null;
+    try {
+      checkConfigs = getCheckConfigurations();
+    } catch (CheckstylePluginException e) {
+      CheckstyleLog.log(e);
+      return Status.OK_STATUS;
+    }
+
+    // the file is not checked by Checkstyle
+    if (checkConfigs.isEmpty()) {
+      return Status.OK_STATUS;
+    }
+
+    // take a snapshot of the document, a change since leads to another audit
+    Snapshot snapshot = takeSnapshot();
+    if (snapshot == null || monitor.isCanceled()) {
+      return Status.CANCEL_STATUS;
+    }
+    long modificationStamp = snapshot.mModificationStamp;
+    IDocument document = new Document(snapshot.mContents);
+
+    final Map<Annotation, Position> annotations = new HashMap<>();
+    try {
+      for (ICheckConfiguration checkConfig : checkConfigs) {
+
+        List<Map<String, Object>> markers = new DocumentAuditor(checkConfig).audit(mFile,
+                document);
+        for (Map<String, Object> markerAttributes : markers) {
+          addAnnotation(markerAttributes, annotations);
+        }
+      }
+    } catch (CheckstyleException e) {
+      // the document does not parse while being edited, keep the annotations at hand
+      return Status.OK_STATUS;
+    } catch (CheckstylePluginException e) {
+      CheckstyleLog.log(e);
+      return Status.OK_STATUS;
+    }
+
+    if (monitor.isCanceled() || modificationStamp != getModificationStamp()) {
+      return Status.CANCEL_STATUS;
+    }
+
+    final long auditedStamp = modificationStamp;
+    Display.getDefault().asyncExec(new Runnable() {
+
+      @Override
+      public void run() {
+
+        // discard outdated results
+        if (!mDisposed && mEditor.isDirty() && auditedStamp == getModificationStamp()) {
+          replaceAnnotations(annotations);
+          hideMarkerAnnotations();
+        }
+      }
+    });
+    return Status.OK_STATUS;
+  }
+
+  /**
+   * Returns the check configurations auditing the file. They are determined again only when the
+   * configuration of the project changed, instead of running the filters on every audit.
+   */
+  private Set<ICheckConfiguration> getCheckConfigurations() throws CheckstylePluginException {
+
+    IProjectConfiguration configuration = ProjectConfigurationFactory
+            .getConfiguration(mFile.getProject());
+    if (configuration != mProjectConfiguration) {
+      mCheckConfigs = DocumentAuditor.getCheckConfigurations(mFile);
+      mProjectConfiguration = configuration;
+    }
+    return mCheckConfigs;
+  }
+
+  /**
+   * Copies the document together with its modification stamp. The document is modified on the UI
+   * thread, so it is copied under its lock object or, without one, on the UI thread.
+   *
+   * @return the snapshot, <code>null</code> if the auditor has been uninstalled meanwhile
+   */
+  private Snapshot takeSnapshot() {
+
+    Object lock = mDocument instanceof ISynchronizable
+            ? ((ISynchronizable) mDocument).getLockObject()
+            : null;
+    if (lock != null) {
+      synchronized (lock) {
+        return new Snapshot(getModificationStamp(), mDocument.get());
+      }
+    }
+
+    final Snapshot[] snapshot = new Snapshot[1];
+    Display display = Display.getDefault();
+    if (!display.isDisposed()) {
+      display.syncExec(new Runnable() {
+
+        @Override
+        public void run() {
+          if (!mDisposed) {
+            snapshot[0] = new Snapshot(getModificationStamp(), mDocument.get());
+          }
+        }
+      });
+    }
+    return snapshot[0];
+  }
+
+  private static void addAnnotation(Map<String, Object> markerAttributes,
+          Map<Annotation, Position> annotations) {
+
+    Integer charStart = (Integer) markerAttributes.get(IMarker.CHAR_START);
+    Integer charEnd = (Integer) markerAttributes.get(IMarker.CHAR_END);
+    if (charStart == null || charEnd == null) {
+      return;
+    }
+
+    String type = null;
+    Integer severity = (Integer) markerAttributes.get(IMarker.SEVERITY);
+    if (severity != null && severity.intValue() == IMarker.SEVERITY_ERROR) {
+      type = CheckstyleMarker.ERROR_TYPE;
+    } else if (severity != null && severity.intValue() == IMarker.SEVERITY_INFO) {
+      type = CheckstyleMarker.INFO_TYPE;
+    } else {
+      type = CheckstyleMarker.WARNING_TYPE;
+    }
+
+    Annotation annotation = new Annotation(type, false,
+            (String) markerAttributes.get(IMarker.MESSAGE));
+    annotations.put(annotation, new Position(charStart.intValue(),
+            Math.max(0, charEnd.intValue() - charStart.intValue())));
+  }
+
+  private void replaceAnnotations(Map<Annotation, Position> annotations) {
+
+    if (mAnnotations.isEmpty() && annotations.isEmpty()) {
+      return;
+    }
+
+    if (mAnnotationModel instanceof IAnnotationModelExtension) {
+      ((IAnnotationModelExtension) mAnnotationModel).replaceAnnotations(
+              mAnnotations.toArray(new Annotation[mAnnotations.size()]), annotations);
+    } else {
+      for (Annotation annotation : mAnnotations) {
+        mAnnotationModel.removeAnnotation(annotation);
+      }
+      for (Map.Entry<Annotation, Position> entry : annotations.entrySet()) {
+        mAnnotationModel.addAnnotation(entry.getKey(), entry.getValue());
+      }
+    }
+    mAnnotations = new ArrayList<>(annotations.keySet());
+  }
+
+  private void clearResults() {
+    replaceAnnotations(new HashMap<Annotation, Position>());
+
+    for (Annotation annotation : mHiddenMarkerAnnotations) {
+      setMarkedDeleted(annotation, false);
+    }
+    mHiddenMarkerAnnotations.clear();
+  }
+
+  /**
+   * Hides the annotations of the Checkstyle markers of the file, including the ones of markers
+   * created since the last audit.
+   */
+  private void hideMarkerAnnotations() {
+
+    List<Annotation> markerAnnotations = new ArrayList<>();
+    Iterator<?> it = mAnnotationModel.getAnnotationIterator();
+    while (it.hasNext()) {
+      Object annotation = it.next();
+      if (annotation instanceof MarkerAnnotation
+              && !((MarkerAnnotation) annotation).isMarkedDeleted()
+              && MarkerUtilities.isMarkerType(((MarkerAnnotation) annotation).getMarker(),
+                      CheckstyleMarker.MARKER_ID)) {
+        markerAnnotations.add((Annotation) annotation);
+      }
+    }
+
+    for (Annotation annotation : markerAnnotations) {
+      setMarkedDeleted(annotation, true);
+      mHiddenMarkerAnnotations.add(annotation);
+    }
+  }
+
+  private void setMarkedDeleted(Annotation annotation, boolean deleted) {
+    annotation.markDeleted(deleted);
+
+    // let the editor repaint the annotation
+    Position position = mAnnotationModel.getPosition(annotation);
+    if (position != null && mAnnotationModel instanceof IAnnotationModelExtension) {
+      ((IAnnotationModelExtension) mAnnotationModel).modifyAnnotationPosition(annotation,
+              position);
+    }
+  }
+
+  private long getModificationStamp() {
+    if (mDocument instanceof IDocumentExtension4) {
+      return ((IDocumentExtension4) mDocument).getModificationStamp();
+    }
+    return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+  }
+
+  /**
+   * A copy of the document at a modification stamp.
+   */
+  private static class Snapshot {
+
+    /** The modification stamp of the document at the time of the copy. */
+    private final long mModificationStamp;
+
+    /** The contents of the document. */
+    private final String mContents;
+
+    Snapshot(long modificationStamp, String contents) {
+      mModificationStamp = modificationStamp;
+      mContents = contents;
+    }
+  }
+}
@@ -90,6 +90,16 @@ public class CheckstylePreferencePage extends PreferencePage implements IWorkben
 
   private Button mBackgroundFullBuild;
 
+  private Text mTxtAuditThreads;
+
+  private Button mCacheAuditResults;
+
+  private Button mIncrementalAudit;
+
+  private Button mLiveAudit;
+
+  private Button mPrewarmCheckers;
+
   private CheckConfigurationWorkingSetEditor mWorkingSetEditor;
 
   private final PageController mController = new PageController();
@@ -300,6 +310,60 @@ public class CheckstylePreferencePage extends PreferencePage implements IWorkben
     mBackgroundFullBuild.setSelection(
             CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_BACKGROUND_FULL_BUILD));
 
+    //
+    // Create the "audit threads" text field.
+    //
+    final Composite auditThreadsComposite = new Composite(generalComposite, SWT.NULL);
+    gridLayout = new GridLayout(2, false);
+    gridLayout.marginHeight = 0;
+    gridLayout.marginWidth = 0;
+    auditThreadsComposite.setLayout(gridLayout);
+
+    Label lblAuditThreads = new Label(auditThreadsComposite, SWT.NULL);
+    lblAuditThreads.setText(Messages.CheckstylePreferencePage_lblAuditThreads);
+
+    mTxtAuditThreads = new Text(auditThreadsComposite, SWT.SINGLE | SWT.BORDER);
+    mTxtAuditThreads.setTextLimit(2);
+    SWTUtil.addOnlyDigitInputSupport(mTxtAuditThreads);
+
+    mTxtAuditThreads.setText(Integer
+            .toString(CheckstylePluginPrefs.getInt(CheckstylePluginPrefs.PREF_AUDIT_THREADS)));
+    gd = new GridData();
+    gd.widthHint = 30;
+    mTxtAuditThreads.setLayoutData(gd);
+
+    //
+    // Create the "Cache audit results" check box.
+    //
+    mCacheAuditResults = new Button(generalComposite, SWT.CHECK);
+    mCacheAuditResults.setText(Messages.CheckstylePreferencePage_lblCacheAuditResults);
+    mCacheAuditResults.setSelection(
+            CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_CACHE_AUDIT_RESULTS));
+
+    //
+    // Create the "Incremental audit" check box.
+    //
+    mIncrementalAudit = new Button(generalComposite, SWT.CHECK);
+    mIncrementalAudit.setText(Messages.CheckstylePreferencePage_lblIncrementalAudit);
+    mIncrementalAudit.setSelection(
+            CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_INCREMENTAL_AUDIT));
+
+    //
+    // Create the "Live audit" check box.
+    //
+    mLiveAudit = new Button(generalComposite, SWT.CHECK);
+    mLiveAudit.setText(Messages.CheckstylePreferencePage_lblLiveAudit);
+    mLiveAudit.setSelection(
+            CheckstyleUIPluginPrefs.getBoolean(CheckstyleUIPluginPrefs.PREF_LIVE_AUDIT));
+
+    //
+    // Create the "Prewarm checkers" check box.
+    //
+    mPrewarmCheckers = new Button(generalComposite, SWT.CHECK);
+    mPrewarmCheckers.setText(Messages.CheckstylePreferencePage_lblPrewarmCheckers);
+    mPrewarmCheckers.setSelection(
+            CheckstylePluginPrefs.getBoolean(CheckstylePluginPrefs.PREF_PREWARM_CHECKERS));
+
     return generalComposite;
   }
 
@@ -403,6 +467,38 @@ public class CheckstylePreferencePage extends PreferencePage implements IWorkben
       CheckstylePluginPrefs.setBoolean(CheckstylePluginPrefs.PREF_BACKGROUND_FULL_BUILD,
               runInBackgroundNow);
 
+      //
+      // Audit threads preference.
+      //
+      int auditThreadsNow = mTxtAuditThreads.getText().length() > 0
+              ? Math.max(1, Integer.parseInt(mTxtAuditThreads.getText()))
+              : CheckstylePluginPrefs.AUDIT_THREADS;
+      CheckstylePluginPrefs.setInt(CheckstylePluginPrefs.PREF_AUDIT_THREADS, auditThreadsNow);
+
+      //
+      // Cache audit results preference.
+      //
+      CheckstylePluginPrefs.setBoolean(CheckstylePluginPrefs.PREF_CACHE_AUDIT_RESULTS,
+              mCacheAuditResults.getSelection());
+
+      //
+      // Incremental audit preference.
+      //
+      CheckstylePluginPrefs.setBoolean(CheckstylePluginPrefs.PREF_INCREMENTAL_AUDIT,
+              mIncrementalAudit.getSelection());
+
+      //
+      // Live audit preference.
+      //
+      CheckstyleUIPluginPrefs.setBoolean(CheckstyleUIPluginPrefs.PREF_LIVE_AUDIT,
+              mLiveAudit.getSelection());
+
+      //
+      // Prewarm checkers preference.
+      //
+      CheckstylePluginPrefs.setBoolean(CheckstylePluginPrefs.PREF_PREWARM_CHECKERS,
+              mPrewarmCheckers.getSelection());
+
       // See if all projects need rebuild
       boolean needRebuildAllProjects = (includeRuleNamesNow != includeRuleNamesOriginal)
               || (includeModuleIdNow != includeModuleIdOriginal)
@@ -439,7 +535,8 @@ public class CheckstylePreferencePage extends PreferencePage implements IWorkben
           if (needRebuildAllProjects) {
             CheckstyleBuilder.buildAllProjects();
           } else {
-            CheckstyleBuilder.buildProjects(projectsToBuild);
+            // only the file sets using the changed configurations need to be audited again
+            CheckstyleBuilder.buildFileSets(mWorkingSet.getChangedConfigurations());
           }
 
         } catch (CheckstylePluginException e) {
@@ -47,6 +47,8 @@ import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.dialogs.MessageDialogWithToggle;
@@ -488,12 +490,11 @@ public class CheckstylePropertyPage extends PropertyPage {
       boolean needRebuild = mProjectConfig.isRebuildNeeded();
 
       // check if checkstyle nature has to be configured/deconfigured
+      ConfigureDeconfigureNatureJob configOperation = null;
       if (checkstyleEnabled != mCheckstyleInitiallyActivated) {
 
-        ConfigureDeconfigureNatureJob configOperation = new ConfigureDeconfigureNatureJob(project,
-                CheckstyleNature.NATURE_ID);
+        configOperation = new ConfigureDeconfigureNatureJob(project, CheckstyleNature.NATURE_ID);
         configOperation.setRule(ResourcesPlugin.getWorkspace().getRoot());
-        configOperation.schedule();
 
         needRebuild = needRebuild || !mCheckstyleInitiallyActivated;
       }
@@ -530,12 +531,29 @@ public class CheckstylePropertyPage extends PropertyPage {
         // check if a rebuild is necessary
         if (checkstyleEnabled && doRebuild) {
 
-          BuildProjectJob rebuildOperation = new BuildProjectJob(project,
+          final BuildProjectJob rebuildOperation = new BuildProjectJob(project,
                   IncrementalProjectBuilder.FULL_BUILD);
-          rebuildOperation.setRule(ResourcesPlugin.getWorkspace().getRoot());
-          rebuildOperation.schedule();
+
+          // the build skips the project until the nature has been added
+          if (configOperation != null) {
+            configOperation.addJobChangeListener(new JobChangeAdapter() {
+              @Override
+              public void done(IJobChangeEvent event) {
+                if (event.getResult().isOK()) {
+                  rebuildOperation.schedule();
+                }
+              }
+            });
+          } else {
+            rebuildOperation.schedule();
+          }
         }
       }
+
+      // scheduled once the rebuild listens for it to finish
+      if (configOperation != null) {
+        configOperation.schedule();
+      }
     } catch (CheckstylePluginException e) {
       CheckstyleUIPlugin.errorDialog(getShell(), e, true);
     }
@@ -0,0 +1,107 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.ui.quickfixes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.ui.IObjectActionDelegate;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkingSet;
+
+/**
+ * This action applies the available quickfixes to all Checkstyle markers of the selected resources
+ * or working sets, e.g. of whole projects.
+ */
+public class BulkFixCheckstyleMarkersAction implements IObjectActionDelegate {
+
+  /** the selection that occured in the workspace. */
+  private IStructuredSelection mSelection;
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setActivePart(IAction action, IWorkbenchPart targetPart) {
+    // NOOP
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void selectionChanged(IAction action, ISelection selection) {
+
+    if (selection instanceof IStructuredSelection) {
+      mSelection = (IStructuredSelection) selection;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void run(IAction action) {
+
+    if (mSelection == null) {
+      return;
+    }
+
+    List<IResource> resources = new ArrayList<>();
+    for (Iterator<?> it = mSelection.iterator(); it.hasNext();) {
+
+      Object element = it.next();
+      if (element instanceof IWorkingSet) {
+        for (IAdaptable workingSetElement : ((IWorkingSet) element).getElements()) {
+          addResource(workingSetElement, resources);
+        }
+      } else {
+        addResource(element, resources);
+      }
+    }
+
+    if (!resources.isEmpty()) {
+      Job job = new BulkFixCheckstyleMarkersJob(resources);
+      job.setUser(true);
+      job.schedule();
+    }
+  }
+
+  private static void addResource(Object element, Collection<IResource> resources) {
+    if (element instanceof IResource) {
+      resources.add((IResource) element);
+    } else if (element instanceof IAdaptable) {
+      @SuppressWarnings("cast")
+      IResource resource = (IResource) ((IAdaptable) element).getAdapter(IResource.class);
+      if (resource != null) {
+        resources.add(resource);
+      }
+    }
+  }
+}
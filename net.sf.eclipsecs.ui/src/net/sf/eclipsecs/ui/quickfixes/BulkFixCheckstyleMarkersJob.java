@@ -0,0 +1,313 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.ui.quickfixes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.eclipsecs.core.builder.CheckstyleMarker;
+import net.sf.eclipsecs.core.util.CheckstyleLog;
+import net.sf.eclipsecs.ui.Messages;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.ASTRequestor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.TextEdit;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.progress.UIJob;
+
+/**
+ * Job that applies the Checkstyle quickfixes to all Java files of a set of resources, e.g. whole
+ * projects. The compilation units are parsed in batches, the fixes of each file are combined into a
+ * single edit which is applied to a working copy of the file, without opening editors. Files with
+ * unsaved changes are skipped.
+ */
+public class BulkFixCheckstyleMarkersJob extends WorkspaceJob {
+
+  /** The number of compilation units parsed at once. */
+  private static final int BATCH_SIZE = 100;
+
+  /** The resources to fix. */
+  private final Collection<IResource> mResources;
+
+  /**
+   * Creates the job.
+   *
+   * @param resources
+   *          the resources whose markers are fixed
+   */
+  public BulkFixCheckstyleMarkersJob(Collection<IResource> resources) {
+    super(Messages.BulkFixCheckstyleMarkersJob_title);
+    mResources = resources;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+
+    Map<IJavaProject, List<MarkerResolutionBatch>> batchesByProject = getBatches();
+
+    int fileCount = 0;
+    for (List<MarkerResolutionBatch> batches : batchesByProject.values()) {
+      fileCount += batches.size();
+    }
+
+    monitor.beginTask(getName(), fileCount);
+
+    FixSummary summary = new FixSummary();
+    try {
+
+      for (List<MarkerResolutionBatch> batches : batchesByProject.values()) {
+        for (int i = 0, size = batches.size(); i < size; i += BATCH_SIZE) {
+
+          if (monitor.isCanceled()) {
+            return Status.CANCEL_STATUS;
+          }
+
+          fix(batches.subList(i, Math.min(size, i + BATCH_SIZE)), summary, monitor);
+        }
+      }
+    } catch (OperationCanceledException e) {
+      return Status.CANCEL_STATUS;
+    } finally {
+      monitor.done();
+      showSummary(summary);
+    }
+
+    return Status.OK_STATUS;
+  }
+
+  /**
+   * Collects the markers of the resources that can be fixed with an AST based quickfix, batched by
+   * compilation unit and grouped by project.
+   */
+  private Map<IJavaProject, List<MarkerResolutionBatch>> getBatches() throws CoreException {
+
+    CheckstyleMarkerResolutionGenerator generator = new CheckstyleMarkerResolutionGenerator();
+    Map<IFile, MarkerResolutionBatch> batches = new LinkedHashMap<>();
+
+    for (IResource resource : mResources) {
+
+      if (!resource.isAccessible()) {
+        continue;
+      }
+
+      for (IMarker marker : resource.findMarkers(CheckstyleMarker.MARKER_ID, true,
+              IResource.DEPTH_INFINITE)) {
+
+        if (!(marker.getResource() instanceof IFile)) {
+          continue;
+        }
+        IFile file = (IFile) marker.getResource();
+
+        MarkerResolutionBatch batch = batches.get(file);
+        if (batch == null) {
+          IJavaElement element = JavaCore.create(file);
+          if (!(element instanceof ICompilationUnit)) {
+            continue;
+          }
+          batch = new MarkerResolutionBatch((ICompilationUnit) element);
+          batches.put(file, batch);
+        }
+
+        // only run the first fix for this marker
+        ICheckstyleMarkerResolution[] resolutions = (ICheckstyleMarkerResolution[]) generator
+                .getResolutions(marker);
+        if (resolutions.length > 0 && resolutions[0] instanceof AbstractASTResolution) {
+          batch.add(marker, (AbstractASTResolution) resolutions[0]);
+        }
+      }
+    }
+
+    Map<IJavaProject, List<MarkerResolutionBatch>> batchesByProject = new LinkedHashMap<>();
+    for (MarkerResolutionBatch batch : batches.values()) {
+
+      if (batch.isEmpty()) {
+        continue;
+      }
+
+      IJavaProject project = batch.getCompilationUnit().getJavaProject();
+      List<MarkerResolutionBatch> projectBatches = batchesByProject.get(project);
+      if (projectBatches == null) {
+        projectBatches = new ArrayList<>();
+        batchesByProject.put(project, projectBatches);
+      }
+      projectBatches.add(batch);
+    }
+    return batchesByProject;
+  }
+
+  /**
+   * Fixes the markers of compilation units of the same project. The units are parsed together, the
+   * edits are applied once all of them have been parsed.
+   */
+  private void fix(List<MarkerResolutionBatch> batches, final FixSummary summary,
+          final IProgressMonitor monitor) {
+
+    final Map<ICompilationUnit, MarkerResolutionBatch> parsedBatches = new HashMap<>();
+    for (MarkerResolutionBatch batch : batches) {
+
+      // don't interfere with changes being edited
+      ICompilationUnit unit = batch.getCompilationUnit();
+      if (hasUnsavedChanges(unit)) {
+        summary.mSkippedFiles++;
+        monitor.worked(1);
+      } else {
+        parsedBatches.put(unit, batch);
+      }
+    }
+
+    if (parsedBatches.isEmpty()) {
+      return;
+    }
+
+    ICompilationUnit[] units = parsedBatches.keySet()
+            .toArray(new ICompilationUnit[parsedBatches.size()]);
+
+    final Map<ICompilationUnit, TextEdit> edits = new LinkedHashMap<>();
+
+    ASTRequestor requestor = new ASTRequestor() {
+      @Override
+      public void acceptAST(ICompilationUnit source, CompilationUnit ast) {
+
+        if (monitor.isCanceled()) {
+          throw new OperationCanceledException();
+        }
+        monitor.subTask(source.getElementName());
+
+        MarkerResolutionBatch batch = parsedBatches.get(source);
+        try {
+          IDocument document = new Document(source.getSource());
+          TextEdit edit = batch.createEdit(ast, document,
+                  MarkerResolutionBatch.getMarkerPositions(null, batch.getMarkers()));
+          if (edit.hasChildren()) {
+            edits.put(source, edit);
+          }
+        } catch (JavaModelException | MalformedTreeException | BadLocationException e) {
+          CheckstyleLog.log(e, Messages.AbstractASTResolution_msgErrorQuickfix);
+        }
+        monitor.worked(1);
+      }
+    };
+
+    MarkerResolutionBatch.createParser(units[0]).createASTs(units, new String[0], requestor,
+            null);
+
+    for (Map.Entry<ICompilationUnit, TextEdit> entry : edits.entrySet()) {
+      if (apply(entry.getKey(), entry.getValue())) {
+        summary.mFixedFiles++;
+        summary.mFixedMarkers += parsedBatches.get(entry.getKey()).getFixedMarkers().size();
+      }
+    }
+  }
+
+  private static boolean hasUnsavedChanges(ICompilationUnit unit) {
+    try {
+      return unit.hasUnsavedChanges();
+    } catch (JavaModelException e) {
+      // the unit does not exist anymore
+      return true;
+    }
+  }
+
+  /**
+   * Applies the edit to a working copy of the compilation unit and commits it to the file.
+   */
+  private static boolean apply(ICompilationUnit unit, TextEdit edit) {
+    try {
+      unit.becomeWorkingCopy(null);
+      try {
+        unit.applyTextEdit(edit, null);
+        unit.commitWorkingCopy(false, null);
+        return true;
+      } finally {
+        unit.discardWorkingCopy();
+      }
+    } catch (JavaModelException | MalformedTreeException e) {
+      CheckstyleLog.log(e, Messages.AbstractASTResolution_msgErrorQuickfix);
+      return false;
+    }
+  }
+
+  private static void showSummary(final FixSummary summary) {
+
+    UIJob summaryJob = new UIJob(Messages.BulkFixCheckstyleMarkersJob_title) {
+      @Override
+      public IStatus runInUIThread(IProgressMonitor monitor) {
+
+        IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+        if (window != null) {
+
+          String message = NLS.bind(Messages.BulkFixCheckstyleMarkersJob_msgSummary,
+                  summary.mFixedMarkers, summary.mFixedFiles);
+          if (summary.mSkippedFiles > 0) {
+            message += "\n" //$NON-NLS-1$
+                    + NLS.bind(Messages.BulkFixCheckstyleMarkersJob_msgSkippedFiles,
+                            summary.mSkippedFiles);
+          }
+          MessageDialog.openInformation(window.getShell(),
+                  Messages.BulkFixCheckstyleMarkersJob_titleSummary, message);
+        }
+        return Status.OK_STATUS;
+      }
+    };
+    summaryJob.setSystem(true);
+    summaryJob.schedule();
+  }
+
+  /**
+   * Counts the fixes applied by the job.
+   */
+  private static class FixSummary {
+
+    private int mFixedMarkers;
+
+    private int mFixedFiles;
+
+    private int mSkippedFiles;
+  }
+}
@@ -27,8 +27,6 @@ import java.util.List;
 import net.sf.eclipsecs.core.builder.CheckstyleMarker;
 import net.sf.eclipsecs.core.config.meta.MetadataFactory;
 import net.sf.eclipsecs.core.config.meta.RuleMetadata;
-import net.sf.eclipsecs.core.util.CheckstyleLog;
-import net.sf.eclipsecs.ui.CheckstyleUIPlugin;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.ui.IMarkerResolution;
@@ -53,7 +51,10 @@ public class CheckstyleMarkerResolutionGenerator implements IMarkerResolutionGen
     String moduleName = marker.getAttribute(CheckstyleMarker.MODULE_NAME, null);
 
     RuleMetadata metadata = MetadataFactory.getRuleMetadata(moduleName);
-    List<ICheckstyleMarkerResolution> potentialFixes = getInstantiatedQuickfixes(metadata);
+    if (metadata == null) {
+      return new ICheckstyleMarkerResolution[0];
+    }
+    List<ICheckstyleMarkerResolution> potentialFixes = QuickfixRegistry.createQuickfixes(metadata);
 
     for (ICheckstyleMarkerResolution fix : potentialFixes) {
 
@@ -71,50 +72,10 @@ public class CheckstyleMarkerResolutionGenerator implements IMarkerResolutionGen
   @Override
   public boolean hasResolutions(IMarker marker) {
 
-    boolean hasAtLeastOneFix = false;
-
     // check if there is at least one fix that really applies to the module
     String moduleName = marker.getAttribute(CheckstyleMarker.MODULE_NAME, null);
 
     RuleMetadata metadata = MetadataFactory.getRuleMetadata(moduleName);
-
-    if (metadata != null) {
-
-      List<ICheckstyleMarkerResolution> fixes = getInstantiatedQuickfixes(metadata);
-
-      for (ICheckstyleMarkerResolution fix : fixes) {
-
-        if (fix.canFix(marker)) {
-          hasAtLeastOneFix = true;
-          break;
-        }
-      }
-    }
-    return hasAtLeastOneFix;
-  }
-
-  private List<ICheckstyleMarkerResolution> getInstantiatedQuickfixes(RuleMetadata ruleMetadata) {
-
-    List<ICheckstyleMarkerResolution> fixes = new ArrayList<>();
-
-    try {
-
-      for (String quickfixClassName : ruleMetadata.getQuickfixClassNames()) {
-
-        Class<?> quickfixClass = CheckstyleUIPlugin.getDefault().getQuickfixExtensionClassLoader()
-                .loadClass(quickfixClassName);
-
-        ICheckstyleMarkerResolution fix = (ICheckstyleMarkerResolution) quickfixClass.newInstance();
-        fix.setRuleMetaData(ruleMetadata);
-        fixes.add(fix);
-      }
-    } catch (InstantiationException e) {
-      CheckstyleLog.log(e);
-    } catch (ClassNotFoundException e) {
-      CheckstyleLog.log(e);
-    } catch (IllegalAccessException e) {
-      CheckstyleLog.log(e);
-    }
-    return fixes;
+    return metadata != null && QuickfixRegistry.canFix(metadata, marker);
   }
 }
@@ -20,25 +20,48 @@
 
 package net.sf.eclipsecs.ui.quickfixes;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import net.sf.eclipsecs.core.builder.CheckstyleMarker;
+import net.sf.eclipsecs.core.util.CheckstyleLog;
 import net.sf.eclipsecs.ui.CheckstyleUIPlugin;
 import net.sf.eclipsecs.ui.Messages;
 
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.ui.JavaUI;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.TextEdit;
 import org.eclipse.ui.progress.UIJob;
 
 /**
- * Job implementation that tries to fix all Checkstyle markers in a file.
+ * Job implementation that tries to fix all Checkstyle markers in a file. The file is parsed once in
+ * the background, all quickfixes are applied to that single AST and the resulting combined edit is
+ * applied to the document in the UI thread.
  *
  * @author Lars Ködderitzsch
  */
-public class FixCheckstyleMarkersJob extends UIJob {
+public class FixCheckstyleMarkersJob extends Job {
 
   private IFile mFile;
 
@@ -57,7 +80,7 @@ public class FixCheckstyleMarkersJob extends UIJob {
    * {@inheritDoc}
    */
   @Override
-  public IStatus runInUIThread(IProgressMonitor monitor) {
+  public IStatus run(IProgressMonitor monitor) {
 
     try {
 
@@ -66,21 +89,155 @@ public class FixCheckstyleMarkersJob extends UIJob {
       IMarker[] markers = mFile.findMarkers(CheckstyleMarker.MARKER_ID, true,
               IResource.DEPTH_INFINITE);
 
+      IJavaElement element = mFile.isAccessible() ? JavaCore.create(mFile) : null;
+      MarkerResolutionBatch batch = element instanceof ICompilationUnit
+              ? new MarkerResolutionBatch((ICompilationUnit) element)
+              : null;
+
+      // AST based fixes are batched, other fixes are run one by one
+      List<IMarker> otherMarkers = new ArrayList<>();
+      List<ICheckstyleMarkerResolution> otherResolutions = new ArrayList<>();
+
       for (int i = 0; i < markers.length; i++) {
 
         ICheckstyleMarkerResolution[] resolutions = (ICheckstyleMarkerResolution[]) generator
                 .getResolutions(markers[i]);
 
-        if (resolutions.length > 0) {
-          // only run the first fix for this marker
-          resolutions[0].run(markers[i]);
+        // only run the first fix for this marker
+        if (resolutions.length == 0) {
+          continue;
+        } else if (batch != null && resolutions[0] instanceof AbstractASTResolution) {
+          batch.add(markers[i], (AbstractASTResolution) resolutions[0]);
+        } else {
+          otherMarkers.add(markers[i]);
+          otherResolutions.add(resolutions[0]);
         }
+      }
+
+      if (monitor.isCanceled()) {
+        return Status.CANCEL_STATUS;
+      }
+
+      BatchEdit edit = batch != null && !batch.isEmpty() ? createEdit(batch, monitor) : null;
 
+      if (edit != null || !otherMarkers.isEmpty()) {
+        new ApplyFixesJob(edit, otherMarkers, otherResolutions).schedule();
       }
     } catch (CoreException e) {
       return new Status(IStatus.ERROR, CheckstyleUIPlugin.PLUGIN_ID, IStatus.OK, e.getMessage(), e);
+    } catch (MalformedTreeException | BadLocationException e) {
+      CheckstyleLog.log(e, Messages.AbstractASTResolution_msgErrorQuickfix);
     }
 
     return Status.OK_STATUS;
   }
+
+  /**
+   * Parses the current contents of the file and creates the combined edit of all batched fixes.
+   */
+  private static BatchEdit createEdit(MarkerResolutionBatch batch, IProgressMonitor monitor)
+          throws CoreException, BadLocationException {
+
+    ITextFileBufferManager bufferManager = FileBuffers.getTextFileBufferManager();
+    IPath path = batch.getCompilationUnit().getPath();
+
+    bufferManager.connect(path, null);
+    try {
+
+      ITextFileBuffer textFileBuffer = bufferManager.getTextFileBuffer(path);
+      IDocument document = textFileBuffer.getDocument();
+
+      // work on a snapshot, the document may be edited while the fixes are computed
+      String contents = document.get();
+      IDocument snapshot = new Document(contents);
+      Map<IMarker, Position> positions = MarkerResolutionBatch
+              .getMarkerPositions(textFileBuffer.getAnnotationModel(), batch.getMarkers());
+
+      CompilationUnit ast = batch.parse(snapshot, monitor);
+      TextEdit edit = batch.createEdit(ast, snapshot, positions);
+      return new BatchEdit(batch.getCompilationUnit(), edit, contents);
+    } finally {
+      bufferManager.disconnect(path, null);
+    }
+  }
+
+  /**
+   * The combined edit of the batched fixes, together with the contents it was computed for.
+   */
+  private static class BatchEdit {
+
+    private final ICompilationUnit mCompilationUnit;
+
+    private final TextEdit mEdit;
+
+    private final String mContents;
+
+    BatchEdit(ICompilationUnit compilationUnit, TextEdit edit, String contents) {
+      mCompilationUnit = compilationUnit;
+      mEdit = edit;
+      mContents = contents;
+    }
+  }
+
+  /**
+   * Applies the fixes to the document of the file in the UI thread.
+   */
+  private static class ApplyFixesJob extends UIJob {
+
+    private final BatchEdit mBatchEdit;
+
+    private final List<IMarker> mMarkers;
+
+    private final List<ICheckstyleMarkerResolution> mResolutions;
+
+    ApplyFixesJob(BatchEdit batchEdit, List<IMarker> markers,
+            List<ICheckstyleMarkerResolution> resolutions) {
+      super(Messages.FixCheckstyleMarkersJob_title);
+      mBatchEdit = batchEdit;
+      mMarkers = markers;
+      mResolutions = resolutions;
+    }
+
+    @Override
+    public IStatus runInUIThread(IProgressMonitor monitor) {
+
+      if (mBatchEdit != null) {
+        applyEdit();
+      }
+
+      for (int i = 0, size = mMarkers.size(); i < size; i++) {
+        mResolutions.get(i).run(mMarkers.get(i));
+      }
+      return Status.OK_STATUS;
+    }
+
+    private void applyEdit() {
+
+      ITextFileBufferManager bufferManager = FileBuffers.getTextFileBufferManager();
+      IPath path = mBatchEdit.mCompilationUnit.getPath();
+
+      try {
+
+        // open the file the editor
+        JavaUI.openInEditor(mBatchEdit.mCompilationUnit);
+
+        bufferManager.connect(path, null);
+        try {
+          IDocument document = bufferManager.getTextFileBuffer(path).getDocument();
+
+          // the edit does not fit a document changed in the meantime, leave the markers
+          // to be fixed by another run
+          if (!mBatchEdit.mContents.equals(document.get())) {
+            return;
+          }
+
+          mBatchEdit.mEdit.apply(document);
+        } finally {
+          bufferManager.disconnect(path, null);
+        }
+      } catch (CoreException | MalformedTreeException | BadLocationException e) {
+        CheckstyleLog.log(e, Messages.AbstractASTResolution_msgErrorQuickfix);
+      }
+    }
+  }
 }
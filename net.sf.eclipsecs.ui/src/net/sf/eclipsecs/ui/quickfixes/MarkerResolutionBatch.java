@@ -0,0 +1,282 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.ui.quickfixes;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.text.edits.TextEdit;
+import org.eclipse.ui.texteditor.MarkerAnnotation;
+
+/**
+ * Resolves several Checkstyle markers of one compilation unit at once. The compilation unit is
+ * parsed a single time, the correcting visitors of all resolutions run against that AST and their
+ * modifications are rewritten into one combined text edit.
+ */
+final class MarkerResolutionBatch {
+
+  /** The compilation unit the markers belong to. */
+  private final ICompilationUnit mCompilationUnit;
+
+  /** The markers to resolve. */
+  private final List<IMarker> mMarkers = new ArrayList<>();
+
+  /** The resolutions of the markers, in the same order. */
+  private final List<AbstractASTResolution> mResolutions = new ArrayList<>();
+
+  /** The markers whose resolutions changed the AST in the last created edit. */
+  private final List<IMarker> mFixedMarkers = new ArrayList<>();
+
+  /**
+   * Creates a batch for a compilation unit.
+   *
+   * @param compilationUnit
+   *          the compilation unit
+   */
+  MarkerResolutionBatch(ICompilationUnit compilationUnit) {
+    mCompilationUnit = compilationUnit;
+  }
+
+  /**
+   * Returns the compilation unit of this batch.
+   *
+   * @return the compilation unit
+   */
+  ICompilationUnit getCompilationUnit() {
+    return mCompilationUnit;
+  }
+
+  /**
+   * Adds a marker to resolve.
+   *
+   * @param marker
+   *          the marker
+   * @param resolution
+   *          the resolution to apply to the marker
+   */
+  void add(IMarker marker, AbstractASTResolution resolution) {
+    mMarkers.add(marker);
+    mResolutions.add(resolution);
+  }
+
+  /**
+   * Returns the markers of this batch.
+   *
+   * @return the markers
+   */
+  List<IMarker> getMarkers() {
+    return mMarkers;
+  }
+
+  /**
+   * Returns the markers whose resolutions changed the code in the edit last created by
+   * {@link #createEdit(CompilationUnit, IDocument, Map)}.
+   *
+   * @return the fixed markers
+   */
+  List<IMarker> getFixedMarkers() {
+    return mFixedMarkers;
+  }
+
+  /**
+   * Determines if the batch contains no markers.
+   *
+   * @return <code>true</code> if there is nothing to resolve
+   */
+  boolean isEmpty() {
+    return mMarkers.isEmpty();
+  }
+
+  /**
+   * Creates a parser for the compilation units resolved in batches. The parser does not resolve
+   * bindings, the correcting visitors only work on the syntax tree.
+   *
+   * @param compilationUnit
+   *          the compilation unit, its project determines the compiler options
+   * @return the parser
+   */
+  static ASTParser createParser(ICompilationUnit compilationUnit) {
+    ASTParser astParser = ASTParser.newParser(AST.JLS3);
+    astParser.setKind(ASTParser.K_COMPILATION_UNIT);
+    astParser.setProject(compilationUnit.getJavaProject());
+    return astParser;
+  }
+
+  /**
+   * Parses the given contents of the compilation unit of this batch.
+   *
+   * @param document
+   *          the contents of the compilation unit
+   * @param monitor
+   *          the progress monitor
+   * @return the AST
+   */
+  CompilationUnit parse(IDocument document, IProgressMonitor monitor) {
+    ASTParser astParser = createParser(mCompilationUnit);
+    astParser.setSource(document.get().toCharArray());
+    return (CompilationUnit) astParser.createAST(monitor);
+  }
+
+  /**
+   * Runs the correcting visitors of all resolutions against the AST and returns the combined edit
+   * of their modifications. Markers without a position are skipped, e.g. because their code has
+   * been deleted since the marker was created.
+   *
+   * @param ast
+   *          the freshly parsed AST of the document
+   * @param document
+   *          the contents of the compilation unit the AST was parsed from
+   * @param positions
+   *          the current positions of the markers
+   * @return the edit to apply to the document
+   * @throws BadLocationException
+   *           a marker position lies outside of the document
+   */
+  TextEdit createEdit(CompilationUnit ast, IDocument document, Map<IMarker, Position> positions)
+          throws BadLocationException {
+
+    List<Position> markerPositions = new ArrayList<>();
+    for (IMarker marker : mMarkers) {
+      markerPositions.add(positions.get(marker));
+    }
+
+    BitSet modified = new BitSet();
+    TextEdit edit = createEdit(ast, document, mResolutions, markerPositions,
+            mCompilationUnit.getJavaProject().getOptions(true), modified);
+
+    mFixedMarkers.clear();
+    for (int i = modified.nextSetBit(0); i >= 0; i = modified.nextSetBit(i + 1)) {
+      mFixedMarkers.add(mMarkers.get(i));
+    }
+    return edit;
+  }
+
+  /**
+   * Runs the correcting visitors of the given resolutions against the AST and returns the combined
+   * edit of their modifications.
+   *
+   * @param ast
+   *          the freshly parsed AST of the document
+   * @param document
+   *          the contents of the compilation unit the AST was parsed from
+   * @param resolutions
+   *          the resolutions to apply
+   * @param positions
+   *          the positions of the markers of the resolutions, in the same order, <code>null</code>
+   *          entries are skipped
+   * @param options
+   *          the formatter options used to rewrite the modifications
+   * @param modified
+   *          receives the indices of the resolutions which changed the AST, may be
+   *          <code>null</code>
+   * @return the edit to apply to the document
+   * @throws BadLocationException
+   *           a marker position lies outside of the document
+   */
+  static TextEdit createEdit(CompilationUnit ast, IDocument document,
+          List<AbstractASTResolution> resolutions, List<Position> positions,
+          Map<String, String> options, BitSet modified) throws BadLocationException {
+
+    ast.recordModifications();
+
+    for (int i = 0, size = resolutions.size(); i < size; i++) {
+
+      Position pos = positions.get(i);
+      if (pos == null) {
+        continue;
+      }
+
+      long modificationCount = ast.getAST().modificationCount();
+
+      IRegion lineInfo = document.getLineInformationOfOffset(pos.getOffset());
+      ast.accept(resolutions.get(i).handleGetCorrectingASTVisitor(lineInfo, pos.getOffset()));
+
+      if (modified != null && ast.getAST().modificationCount() != modificationCount) {
+        modified.set(i);
+      }
+    }
+
+    return ast.rewrite(document, options);
+  }
+
+  /**
+   * Returns the current positions of the given markers. If the annotation model holds annotations
+   * for the markers the positions are taken from them, as they follow the edits made since the
+   * markers have been created. The model is scanned a single time. Otherwise, e.g. if the file is
+   * not open in an editor, the positions are taken from the marker attributes.
+   *
+   * @param annotationModel
+   *          the annotation model of the document, may be <code>null</code>
+   * @param markers
+   *          the markers
+   * @return the positions by marker, markers without position are missing
+   */
+  static Map<IMarker, Position> getMarkerPositions(IAnnotationModel annotationModel,
+          List<IMarker> markers) {
+
+    Map<IMarker, Position> positions = new HashMap<>();
+
+    if (annotationModel != null) {
+      Iterator<Annotation> it = annotationModel.getAnnotationIterator();
+      while (it.hasNext()) {
+        Annotation annotation = it.next();
+
+        if (annotation instanceof MarkerAnnotation) {
+          Position pos = annotationModel.getPosition(annotation);
+          if (pos != null && !pos.isDeleted()) {
+            positions.put(((MarkerAnnotation) annotation).getMarker(), pos);
+          }
+        }
+      }
+
+      // only keep the requested markers
+      positions.keySet().retainAll(new HashSet<>(markers));
+    }
+
+    if (positions.isEmpty()) {
+      for (IMarker marker : markers) {
+        int start = marker.getAttribute(IMarker.CHAR_START, -1);
+        int end = marker.getAttribute(IMarker.CHAR_END, start);
+        if (start >= 0) {
+          positions.put(marker, new Position(start, Math.max(0, end - start)));
+        }
+      }
+    }
+    return positions;
+  }
+}
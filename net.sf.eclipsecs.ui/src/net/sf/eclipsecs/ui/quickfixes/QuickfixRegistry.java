@@ -0,0 +1,180 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.ui.quickfixes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.eclipsecs.core.builder.CheckstyleMarker;
+import net.sf.eclipsecs.core.config.meta.RuleMetadata;
+import net.sf.eclipsecs.core.util.CheckstyleLog;
+import net.sf.eclipsecs.ui.CheckstyleUIPlugin;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Registry of the quickfixes of the Checkstyle modules. The quickfix classes of a module are loaded
+ * once per rule metadata, instead of every time a marker of the module is asked for resolutions.
+ */
+final class QuickfixRegistry {
+
+  /** The quickfixes by internal module name. */
+  private static final Map<String, ModuleQuickfixes> QUICKFIXES = new ConcurrentHashMap<>();
+
+  private QuickfixRegistry() {
+  }
+
+  /**
+   * Creates new instances of the quickfixes of a module.
+   *
+   * @param metadata
+   *          the metadata of the module
+   * @return the quickfixes
+   */
+  static List<ICheckstyleMarkerResolution> createQuickfixes(RuleMetadata metadata) {
+    return getQuickfixes(metadata).createQuickfixes();
+  }
+
+  /**
+   * Checks if any quickfix of a module can fix the given marker.
+   *
+   * @param metadata
+   *          the metadata of the module
+   * @param marker
+   *          the marker
+   * @return <code>true</code> if the marker can be fixed
+   */
+  static boolean canFix(RuleMetadata metadata, IMarker marker) {
+    return getQuickfixes(metadata).canFix(marker);
+  }
+
+  private static ModuleQuickfixes getQuickfixes(RuleMetadata metadata) {
+
+    ModuleQuickfixes quickfixes = QUICKFIXES.get(metadata.getInternalName());
+
+    // the metadata is replaced when the metadata factory is refreshed
+    if (quickfixes == null || quickfixes.mMetadata != metadata) {
+      quickfixes = new ModuleQuickfixes(metadata);
+      QUICKFIXES.put(metadata.getInternalName(), quickfixes);
+    }
+    return quickfixes;
+  }
+
+  /**
+   * The loaded quickfix classes of a single module.
+   */
+  private static final class ModuleQuickfixes {
+
+    private final RuleMetadata mMetadata;
+
+    private final List<Class<? extends ICheckstyleMarkerResolution>> mQuickfixClasses;
+
+    /**
+     * Quickfixes which are asked if they can fix a marker. Quickfixes based on
+     * {@link AbstractASTResolution} fix all Checkstyle markers of their module and are not
+     * asked.
+     */
+    private final List<ICheckstyleMarkerResolution> mCheckingQuickfixes;
+
+    /** Flags if any of the quickfixes fixes all markers of the module. */
+    private final boolean mFixesAllMarkers;
+
+    ModuleQuickfixes(RuleMetadata metadata) {
+
+      mMetadata = metadata;
+
+      List<Class<? extends ICheckstyleMarkerResolution>> quickfixClasses = new ArrayList<>();
+      List<ICheckstyleMarkerResolution> checkingQuickfixes = new ArrayList<>();
+      boolean fixesAllMarkers = false;
+
+      for (String quickfixClassName : metadata.getQuickfixClassNames()) {
+
+        try {
+          Class<? extends ICheckstyleMarkerResolution> quickfixClass = CheckstyleUIPlugin
+                  .getDefault().getQuickfixExtensionClassLoader().loadClass(quickfixClassName)
+                  .asSubclass(ICheckstyleMarkerResolution.class);
+
+          if (AbstractASTResolution.class.isAssignableFrom(quickfixClass)) {
+            fixesAllMarkers = true;
+          } else {
+            checkingQuickfixes.add(newInstance(quickfixClass, metadata));
+          }
+          quickfixClasses.add(quickfixClass);
+        } catch (ClassNotFoundException | ClassCastException | InstantiationException
+                | IllegalAccessException e) {
+          CheckstyleLog.log(e);
+        }
+      }
+
+      mQuickfixClasses = Collections.unmodifiableList(quickfixClasses);
+      mCheckingQuickfixes = Collections.unmodifiableList(checkingQuickfixes);
+      mFixesAllMarkers = fixesAllMarkers;
+    }
+
+    List<ICheckstyleMarkerResolution> createQuickfixes() {
+
+      List<ICheckstyleMarkerResolution> quickfixes = new ArrayList<>();
+      for (Class<? extends ICheckstyleMarkerResolution> quickfixClass : mQuickfixClasses) {
+        try {
+          quickfixes.add(newInstance(quickfixClass, mMetadata));
+        } catch (InstantiationException | IllegalAccessException e) {
+          CheckstyleLog.log(e);
+        }
+      }
+      return quickfixes;
+    }
+
+    boolean canFix(IMarker marker) {
+
+      if (mFixesAllMarkers) {
+        try {
+          if (CheckstyleMarker.MARKER_ID.equals(marker.getType())) {
+            return true;
+          }
+        } catch (CoreException e) {
+          return false;
+        }
+      }
+
+      for (ICheckstyleMarkerResolution quickfix : mCheckingQuickfixes) {
+        synchronized (quickfix) {
+          if (quickfix.canFix(marker)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private static ICheckstyleMarkerResolution newInstance(
+            Class<? extends ICheckstyleMarkerResolution> quickfixClass, RuleMetadata metadata)
+            throws InstantiationException, IllegalAccessException {
+
+      ICheckstyleMarkerResolution quickfix = quickfixClass.newInstance();
+      quickfix.setRuleMetaData(metadata);
+      return quickfix;
+    }
+  }
+}
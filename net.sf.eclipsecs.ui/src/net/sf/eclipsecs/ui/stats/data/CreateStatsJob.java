@@ -20,21 +20,16 @@
 
 package net.sf.eclipsecs.ui.stats.data;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 import java.util.regex.Pattern;
 
 import net.sf.eclipsecs.core.builder.CheckstyleMarker;
 import net.sf.eclipsecs.core.config.meta.MetadataFactory;
-import net.sf.eclipsecs.core.util.CheckstyleLog;
 import net.sf.eclipsecs.ui.CheckstyleUIPlugin;
 import net.sf.eclipsecs.ui.stats.Messages;
 import net.sf.eclipsecs.ui.stats.views.internal.CheckstyleMarkerFilter;
 
 import org.eclipse.core.resources.IMarker;
-import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -92,45 +87,7 @@ public class CreateStatsJob extends Job {
   @Override
   protected IStatus run(IProgressMonitor monitor) {
     try {
-
-      int wholeAmountOfMarkers = ResourcesPlugin.getWorkspace().getRoot()
-              .findMarkers(CheckstyleMarker.MARKER_ID, true, IResource.DEPTH_INFINITE).length;
-
-      IMarker[] markers = mFilter.findMarkers(monitor);
-
-      Map<String, MarkerStat> markerStats = new HashMap<>();
-
-      for (int i = 0, size = markers.length; i < size; i++) {
-
-        String message = null;
-        try {
-          message = getUnlocalizedMessage(markers[i]);
-          message = cleanMessage(message);
-        } catch (CoreException e) {
-          CheckstyleLog.log(e, Messages.CreateStatsJob_errorAnalyzingMarkers);
-        }
-
-        // check that the message is not empty
-        if (message == null || message.trim().length() == 0) {
-          // cela ne devrait pas arriver, mais bon, on laisse faire
-          CheckstyleLog.log(null, Messages.CreateStatsJob_markerMessageShouldntBeEmpty);
-          continue;
-        }
-
-        // puis on recherche
-        MarkerStat stat = markerStats.get(message);
-        if (stat == null) {
-          // 1ere fois qu'on rencontre un marqueur de ce type
-          MarkerStat newMarkerStat = new MarkerStat(message);
-          newMarkerStat.addMarker(markers[i]);
-          markerStats.put(newMarkerStat.getIdentifiant(), newMarkerStat);
-        } else {
-          // on augmente juste le nombre d'occurence
-          stat.addMarker(markers[i]);
-        }
-      }
-
-      mStats = new Stats(markerStats.values(), markers.length, wholeAmountOfMarkers);
+      mStats = MarkerStatsIndex.getInstance().createStats(mFilter);
     } catch (CoreException e) {
       return new Status(IStatus.ERROR, CheckstyleUIPlugin.PLUGIN_ID, IStatus.OK,
               Messages.CreateStatsJob_errorAnalyzingMarkers, e);
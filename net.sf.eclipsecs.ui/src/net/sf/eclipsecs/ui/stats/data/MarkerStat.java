@@ -69,9 +69,20 @@ public class MarkerStat implements Comparable<MarkerStat> {
    *          : the marker to add to this category
    */
   public void addMarker(IMarker marker) {
+    addMarker(marker, MarkerUtilities.getSeverity(marker));
+  }
+
+  /**
+   * Reference the marker as one of this category, using an already known severity.
+   * 
+   * @param marker
+   *          the marker to add to this category
+   * @param severity
+   *          the severity of the marker
+   */
+  public void addMarker(IMarker marker, int severity) {
     mMarkers.add(marker);
 
-    int severity = MarkerUtilities.getSeverity(marker);
     if (severity > mMaxSeverity) {
       mMaxSeverity = severity;
     }
@@ -0,0 +1,450 @@
+//============================================================================
+//
+// Copyright (C) 2002-2016  David Schneider, Lars Ködderitzsch
+//
+// This library is free software; you can redistribute it and/or
+// modify it under the terms of the GNU Lesser General Public
+// License as published by the Free Software Foundation; either
+// version 2.1 of the License, or (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//============================================================================
+
+package net.sf.eclipsecs.ui.stats.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.eclipsecs.core.builder.CheckstyleMarker;
+import net.sf.eclipsecs.core.config.meta.MetadataFactory;
+import net.sf.eclipsecs.core.util.CheckstyleLog;
+import net.sf.eclipsecs.ui.stats.Messages;
+import net.sf.eclipsecs.ui.stats.views.internal.CheckstyleMarkerFilter;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IMarkerDelta;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Index over all Checkstyle markers of the workspace, used to build the data of the statistics
+ * views without searching and re-aggregating all markers on every refresh. The index is built on
+ * first use and then kept up to date from the marker deltas of resource change events. Besides the
+ * markers by resource it maintains the markers grouped by message and severity, which answer the
+ * statistics of the whole workspace without looking at single markers.
+ */
+public final class MarkerStatsIndex implements IResourceChangeListener {
+
+  /** The shared index, created on first use. */
+  private static MarkerStatsIndex sInstance;
+
+  /** The indexed markers, grouped by their resource. */
+  private final Map<IResource, Map<IMarker, IndexedMarker>> mMarkersByResource = new HashMap<>();
+
+  /** The cleaned standard messages, keyed by module name and message key. */
+  private final Map<String, String> mStandardMessages = new HashMap<>();
+
+  /** The indexed markers, grouped by their cleaned standard message. */
+  private final Map<String, MessageGroup> mMarkersByMessage = new HashMap<>();
+
+  /** The number of indexed markers. */
+  private int mMarkerCount;
+
+  /** Flags if the index has been built. */
+  private boolean mInitialized;
+
+  private MarkerStatsIndex() {
+  }
+
+  /**
+   * Returns the shared index. On first call the index registers itself for resource change events,
+   * the markers are read when the index is first queried.
+   *
+   * @return the shared index
+   */
+  public static synchronized MarkerStatsIndex getInstance() {
+    if (sInstance == null) {
+      sInstance = new MarkerStatsIndex();
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(sInstance,
+              IResourceChangeEvent.POST_CHANGE);
+    }
+    return sInstance;
+  }
+
+  /**
+   * Deregisters and discards the shared index, if it has been created.
+   */
+  public static synchronized void dispose() {
+    if (sInstance != null) {
+      ResourcesPlugin.getWorkspace().removeResourceChangeListener(sInstance);
+      sInstance = null;
+    }
+  }
+
+  /**
+   * Builds the statistics data for the markers passing the given filter.
+   *
+   * @param filter
+   *          the marker filter
+   * @return the statistics data
+   * @throws CoreException
+   *           error reading the markers of the workspace
+   */
+  public synchronized Stats createStats(CheckstyleMarkerFilter filter) throws CoreException {
+
+    ensureInitialized();
+
+    IResource[] scope = getAccessibleResources(filter.getScopeResources());
+    boolean deep = filter.getScopeDepth() == IResource.DEPTH_INFINITE;
+
+    if (deep && isWorkspaceScope(scope)
+            && (!filter.isEnabled() || !filter.isFilterByRegex())) {
+      return createWorkspaceStats(filter);
+    }
+
+    Map<String, MarkerStat> markerStats = new HashMap<>();
+    int markerCount = 0;
+
+    for (Map.Entry<IResource, Map<IMarker, IndexedMarker>> entry : mMarkersByResource
+            .entrySet()) {
+
+      if (!isInScope(entry.getKey(), scope, deep)) {
+        continue;
+      }
+
+      for (IndexedMarker marker : entry.getValue().values()) {
+
+        if (!filter.select(marker.mSeverity, marker.mMessage)) {
+          continue;
+        }
+        markerCount++;
+
+        // check that the message is not empty
+        if (marker.mStandardMessage == null || marker.mStandardMessage.trim().length() == 0) {
+          CheckstyleLog.log(null, Messages.CreateStatsJob_markerMessageShouldntBeEmpty);
+          continue;
+        }
+
+        MarkerStat stat = markerStats.get(marker.mStandardMessage);
+        if (stat == null) {
+          stat = new MarkerStat(marker.mStandardMessage);
+          markerStats.put(stat.getIdentifiant(), stat);
+        }
+        stat.addMarker(marker.mMarker, marker.mSeverity);
+      }
+    }
+
+    return new Stats(markerStats.values(), markerCount, mMarkerCount);
+  }
+
+  /**
+   * Returns the number of Checkstyle markers in the workspace.
+   *
+   * @return the number of markers
+   * @throws CoreException
+   *           error reading the markers of the workspace
+   */
+  public synchronized int getMarkerCount() throws CoreException {
+    ensureInitialized();
+    return mMarkerCount;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void resourceChanged(IResourceChangeEvent event) {
+
+    if (!mInitialized) {
+      // nothing to maintain yet, the markers are read on first use
+      return;
+    }
+
+    IResourceDelta delta = event.getDelta();
+    if (delta != null) {
+
+      // re-read the markers of added, removed, opened and closed projects as a whole, the markers
+      // of closed projects are not reported as removed
+      for (IResourceDelta projectDelta : delta.getAffectedChildren()) {
+        if (projectDelta.getKind() != IResourceDelta.CHANGED
+                || (projectDelta.getFlags() & IResourceDelta.OPEN) != 0) {
+          IProject project = (IProject) projectDelta.getResource();
+          removeMarkers(project);
+          if (project.isAccessible()) {
+            try {
+              addMarkers(project);
+            } catch (CoreException e) {
+              CheckstyleLog.log(e, Messages.CreateStatsJob_errorAnalyzingMarkers);
+            }
+          }
+        }
+      }
+    }
+
+    for (IMarkerDelta markerDelta : event.findMarkerDeltas(CheckstyleMarker.MARKER_ID, true)) {
+
+      IMarker marker = markerDelta.getMarker();
+      removeMarker(marker);
+
+      if (markerDelta.getKind() != IResourceDelta.REMOVED) {
+        try {
+          addMarker(marker);
+        } catch (CoreException e) {
+          // the marker has been deleted in the meantime
+        }
+      }
+    }
+  }
+
+  /**
+   * Builds the statistics of the whole workspace from the maintained message groups. Only the
+   * severity part of the filter is applied, which selects whole groups of markers.
+   */
+  private Stats createWorkspaceStats(CheckstyleMarkerFilter filter) {
+
+    Collection<MarkerStat> markerStats = new ArrayList<>(mMarkersByMessage.size());
+    int markerCount = 0;
+
+    for (Map.Entry<String, MessageGroup> entry : mMarkersByMessage.entrySet()) {
+
+      String message = entry.getKey();
+      MessageGroup group = entry.getValue();
+
+      MarkerStat stat = message != null ? new MarkerStat(message) : null;
+      for (Map.Entry<Integer, Set<IMarker>> severityEntry : group.mMarkersBySeverity
+              .entrySet()) {
+
+        int severity = severityEntry.getKey().intValue();
+        if (!filter.select(severity, null)) {
+          continue;
+        }
+        markerCount += severityEntry.getValue().size();
+
+        // check that the message is not empty
+        if (stat == null) {
+          CheckstyleLog.log(null, Messages.CreateStatsJob_markerMessageShouldntBeEmpty);
+          continue;
+        }
+
+        for (IMarker marker : severityEntry.getValue()) {
+          stat.addMarker(marker, severity);
+        }
+      }
+
+      if (stat != null && stat.getCount() > 0) {
+        markerStats.add(stat);
+      }
+    }
+
+    return new Stats(markerStats, markerCount, mMarkerCount);
+  }
+
+  private void ensureInitialized() throws CoreException {
+    if (!mInitialized) {
+      addMarkers(ResourcesPlugin.getWorkspace().getRoot());
+      mInitialized = true;
+    }
+  }
+
+  private void addMarkers(IResource resource) throws CoreException {
+    for (IMarker marker : resource.findMarkers(CheckstyleMarker.MARKER_ID, true,
+            IResource.DEPTH_INFINITE)) {
+      removeMarker(marker);
+      try {
+        addMarker(marker);
+      } catch (CoreException e) {
+        // the marker has been deleted in the meantime
+      }
+    }
+  }
+
+  private void addMarker(IMarker marker) throws CoreException {
+
+    IndexedMarker indexed = new IndexedMarker(marker, marker.getAttributes());
+
+    Map<IMarker, IndexedMarker> resourceMarkers = mMarkersByResource.get(marker.getResource());
+    if (resourceMarkers == null) {
+      resourceMarkers = new LinkedHashMap<>();
+      mMarkersByResource.put(marker.getResource(), resourceMarkers);
+    }
+    resourceMarkers.put(marker, indexed);
+
+    count(indexed, 1);
+  }
+
+  private void removeMarker(IMarker marker) {
+
+    Map<IMarker, IndexedMarker> resourceMarkers = mMarkersByResource.get(marker.getResource());
+    if (resourceMarkers != null) {
+      IndexedMarker indexed = resourceMarkers.remove(marker);
+      if (indexed != null) {
+        count(indexed, -1);
+      }
+      if (resourceMarkers.isEmpty()) {
+        mMarkersByResource.remove(marker.getResource());
+      }
+    }
+  }
+
+  private void removeMarkers(IProject project) {
+
+    Collection<IResource> resources = new ArrayList<>();
+    for (IResource resource : mMarkersByResource.keySet()) {
+      if (project.equals(resource.getProject())) {
+        resources.add(resource);
+      }
+    }
+
+    for (IResource resource : resources) {
+      for (IndexedMarker indexed : mMarkersByResource.remove(resource).values()) {
+        count(indexed, -1);
+      }
+    }
+  }
+
+  private void count(IndexedMarker marker, int increment) {
+    mMarkerCount += increment;
+
+    // markers without a message are grouped under null
+    String message = marker.mStandardMessage;
+    if (message != null && message.trim().length() == 0) {
+      message = null;
+    }
+
+    MessageGroup group = mMarkersByMessage.get(message);
+    if (group == null) {
+      group = new MessageGroup();
+      mMarkersByMessage.put(message, group);
+    }
+
+    Integer severity = Integer.valueOf(marker.mSeverity);
+    Set<IMarker> markers = group.mMarkersBySeverity.get(severity);
+    if (markers == null) {
+      markers = new LinkedHashSet<>();
+      group.mMarkersBySeverity.put(severity, markers);
+    }
+
+    if (increment > 0) {
+      markers.add(marker.mMarker);
+    } else {
+      markers.remove(marker.mMarker);
+      if (markers.isEmpty()) {
+        group.mMarkersBySeverity.remove(severity);
+        if (group.mMarkersBySeverity.isEmpty()) {
+          mMarkersByMessage.remove(message);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the cleaned standard message of a marker, the lookup of the standard message is cached
+   * per module and message key.
+   */
+  private String getStandardMessage(String moduleName, String messageKey, String message) {
+
+    String key = moduleName + '#' + messageKey;
+    String standardMessage = mStandardMessages.get(key);
+    if (standardMessage == null) {
+      standardMessage = MetadataFactory.getStandardMessage(messageKey, moduleName);
+      if (standardMessage == null) {
+        // no standard message known, fall back to the message of the marker itself
+        return message != null ? CreateStatsJob.cleanMessage(message) : null;
+      }
+      standardMessage = CreateStatsJob.cleanMessage(standardMessage);
+      mStandardMessages.put(key, standardMessage);
+    }
+    return standardMessage;
+  }
+
+  private static IResource[] getAccessibleResources(IResource[] resources) {
+    if (resources == null) {
+      return new IResource[0];
+    }
+
+    Collection<IResource> accessible = new ArrayList<>(resources.length);
+    for (IResource resource : resources) {
+      if (resource.isAccessible()) {
+        accessible.add(resource);
+      }
+    }
+    return accessible.toArray(new IResource[accessible.size()]);
+  }
+
+  private static boolean isWorkspaceScope(IResource[] scope) {
+    for (IResource scopeResource : scope) {
+      if (scopeResource.getType() == IResource.ROOT) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isInScope(IResource resource, IResource[] scope, boolean deep) {
+
+    for (IResource scopeResource : scope) {
+      if (scopeResource.equals(resource)) {
+        return true;
+      }
+      if (deep) {
+        IPath scopePath = scopeResource.getFullPath();
+        if (scopePath.isPrefixOf(resource.getFullPath())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The attributes of a marker needed for the statistics, read once when the marker is indexed.
+   */
+  private final class IndexedMarker {
+
+    private final IMarker mMarker;
+
+    private final int mSeverity;
+
+    private final String mMessage;
+
+    private final String mStandardMessage;
+
+    IndexedMarker(IMarker marker, Map<String, Object> attributes) {
+      mMarker = marker;
+
+      Object severity = attributes.get(IMarker.SEVERITY);
+      mSeverity = severity instanceof Integer ? ((Integer) severity).intValue() : -1;
+      mMessage = (String) attributes.get(IMarker.MESSAGE);
+      mStandardMessage = getStandardMessage((String) attributes.get(CheckstyleMarker.MODULE_NAME),
+              (String) attributes.get(CheckstyleMarker.MESSAGE_KEY), mMessage);
+    }
+  }
+
+  /**
+   * The markers with the same cleaned standard message, by severity.
+   */
+  private static final class MessageGroup {
+
+    private final Map<Integer, Set<IMarker>> mMarkersBySeverity = new HashMap<>();
+  }
+}
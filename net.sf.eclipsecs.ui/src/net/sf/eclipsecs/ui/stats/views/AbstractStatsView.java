@@ -227,7 +227,6 @@ public abstract class AbstractStatsView extends ViewPart {
     // rebuild statistics data
     CreateStatsJob job = new CreateStatsJob(getFilter(), getViewId());
     job.setPriority(Job.DECORATE);
-    job.setRule(ResourcesPlugin.getWorkspace().getRoot());
     job.addJobChangeListener(new JobChangeAdapter() {
       @Override
       public void done(IJobChangeEvent event) {
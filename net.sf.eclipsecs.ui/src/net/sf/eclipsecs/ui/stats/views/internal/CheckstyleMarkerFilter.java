@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import net.sf.eclipsecs.core.builder.CheckstyleMarker;
 import net.sf.eclipsecs.ui.CheckstyleUIPlugin;
@@ -119,6 +120,9 @@ public class CheckstyleMarkerFilter implements Cloneable {
   /** List of regular expressions used to filter messages. */
   private List<String> mFilterRegex;
 
+  /** The compiled regular expressions, created on first use. */
+  private Pattern[] mCompiledRegex;
+
   //
   // methods
   //
@@ -134,50 +138,60 @@ public class CheckstyleMarkerFilter implements Cloneable {
    */
   public IMarker[] findMarkers(IProgressMonitor mon) throws CoreException {
 
-    List<IMarker> unfiltered = Collections.emptyList();
+    List<IMarker> unfiltered = findCheckstyleMarkers(getScopeResources(), getScopeDepth(), mon);
+    return unfiltered.toArray(new IMarker[unfiltered.size()]);
+  }
+
+  /**
+   * Returns the resources whose markers are searched by this filter. The markers are searched with
+   * the depth returned by {@link #getScopeDepth()}.
+   *
+   * @return the resources to search, <code>null</code> if no resource is in scope
+   */
+  public IResource[] getScopeResources() {
 
     if (!isEnabled()) {
-      unfiltered = findCheckstyleMarkers(
-              new IResource[] { ResourcesPlugin.getWorkspace().getRoot() },
-              IResource.DEPTH_INFINITE, mon);
-    } else {
-
-      switch (getOnResource()) {
-        case ON_ANY_RESOURCE: {
-          unfiltered = findCheckstyleMarkers(
-                  new IResource[] { ResourcesPlugin.getWorkspace().getRoot() },
-                  IResource.DEPTH_INFINITE, mon);
-          break;
-        }
-        case ON_SELECTED_RESOURCE_ONLY: {
-          unfiltered = findCheckstyleMarkers(mFocusResources, IResource.DEPTH_ZERO, mon);
-          break;
-        }
-        case ON_SELECTED_RESOURCE_AND_CHILDREN: {
-          unfiltered = findCheckstyleMarkers(mFocusResources, IResource.DEPTH_INFINITE, mon);
-          break;
-        }
-        case ON_ANY_RESOURCE_OF_SAME_PROJECT: {
-          unfiltered = findCheckstyleMarkers(getProjects(mFocusResources), IResource.DEPTH_INFINITE,
-                  mon);
-          break;
-        }
-        case ON_WORKING_SET: {
-          unfiltered = findCheckstyleMarkers(getResourcesInWorkingSet(mWorkingSet),
-                  IResource.DEPTH_INFINITE, mon);
-          break;
-        }
-        default: {
-          break;
-        }
-      }
+      return new IResource[] { ResourcesPlugin.getWorkspace().getRoot() };
     }
 
-    if (unfiltered == null) {
-      unfiltered = Collections.emptyList();
+    switch (getOnResource()) {
+      case ON_ANY_RESOURCE:
+        return new IResource[] { ResourcesPlugin.getWorkspace().getRoot() };
+      case ON_SELECTED_RESOURCE_ONLY:
+      case ON_SELECTED_RESOURCE_AND_CHILDREN:
+        return mFocusResources;
+      case ON_ANY_RESOURCE_OF_SAME_PROJECT:
+        return getProjects(mFocusResources);
+      case ON_WORKING_SET:
+        return getResourcesInWorkingSet(mWorkingSet);
+      default:
+        return null;
     }
+  }
 
-    return unfiltered.toArray(new IMarker[unfiltered.size()]);
+  /**
+   * Returns the depth with which the markers of the resources returned by
+   * {@link #getScopeResources()} are searched.
+   *
+   * @return one of <code>IResource.DEPTH_ZERO</code> or <code>IResource.DEPTH_INFINITE</code>
+   */
+  public int getScopeDepth() {
+    return isEnabled() && getOnResource() == ON_SELECTED_RESOURCE_ONLY ? IResource.DEPTH_ZERO
+            : IResource.DEPTH_INFINITE;
+  }
+
+  /**
+   * Determines if a marker with the given severity and message passes the severity and regular
+   * expression criteria of this filter. The resource scope of the filter is not considered.
+   *
+   * @param severity
+   *          the severity of the marker, one of the <code>IMarker.SEVERITY_*</code> constants
+   * @param message
+   *          the message of the marker, may be <code>null</code>
+   * @return <code>true</code> if the marker is selected
+   */
+  public boolean select(int severity, String message) {
+    return !mEnabled || selectBySeverity(severity) && selectByRegex(message);
   }
 
   /**
@@ -350,6 +364,7 @@ public class CheckstyleMarkerFilter implements Cloneable {
    */
   public void setFilterRegex(List<String> filterRegex) {
     mFilterRegex = filterRegex;
+    mCompiledRegex = null;
   }
 
   /**
@@ -405,7 +420,7 @@ public class CheckstyleMarkerFilter implements Cloneable {
 
       String[] regex = settings.getArray(TAG_REGULAR_EXPRESSIONS);
       if (regex != null) {
-        mFilterRegex = Arrays.asList(regex);
+        setFilterRegex(Arrays.asList(regex));
       }
     }
   }
@@ -453,7 +468,7 @@ public class CheckstyleMarkerFilter implements Cloneable {
     mSelectBySeverity = DEFAULT_SELECT_BY_SEVERITY;
     mSeverity = DEFAULT_SEVERITY;
     mFilterByRegex = false;
-    mFilterRegex = new ArrayList<>();
+    setFilterRegex(new ArrayList<String>());
   }
 
   /**
@@ -476,37 +491,28 @@ public class CheckstyleMarkerFilter implements Cloneable {
 
     List<IMarker> resultList = new ArrayList<>(resources.length * 2);
 
+    boolean selectAll = !mEnabled || !mSelectBySeverity && !mFilterByRegex;
+    String[] attributeNames = new String[] { IMarker.SEVERITY, IMarker.MESSAGE };
+
     for (int i = 0, size = resources.length; i < size; i++) {
       if (resources[i].isAccessible()) {
-        Collection<IMarker> markers = Arrays
-                .asList(resources[i].findMarkers(CheckstyleMarker.MARKER_ID, true, depth));
-
-        resultList.addAll(markers);
-      }
-    }
-    
-    if (!mEnabled) {
-      return resultList;
-    }
+        IMarker[] markers = resources[i].findMarkers(CheckstyleMarker.MARKER_ID, true, depth);
 
-    if (mSelectBySeverity) {
-      // further filter the markers by severity
-      int size = resultList.size();
-      for (int i = size - 1; i >= 0; i--) {
-        IMarker marker = resultList.get(i);
-        if (!selectBySeverity(marker)) {
-          resultList.remove(i);
+        if (selectAll) {
+          resultList.addAll(Arrays.asList(markers));
+          continue;
         }
-      }
-    }
 
-    if (mFilterByRegex) {
-      // further filter the markers by regular expressions
-      int size = resultList.size();
-      for (int i = size - 1; i >= 0; i--) {
-        IMarker marker = resultList.get(i);
-        if (!selectByRegex(marker)) {
-          resultList.remove(i);
+        // select the markers in a single pass, reading the attributes of each marker only once
+        for (IMarker marker : markers) {
+          Object[] attributes = marker.getAttributes(attributeNames);
+          int severity = attributes[0] instanceof Integer ? ((Integer) attributes[0]).intValue()
+                  : -1;
+          String message = attributes[1] instanceof String ? (String) attributes[1] : null;
+
+          if (select(severity, message)) {
+            resultList.add(marker);
+          }
         }
       }
     }
@@ -517,20 +523,15 @@ public class CheckstyleMarkerFilter implements Cloneable {
   /**
    * Selects markers by its severity.
    *
-   * @param item
-   *          the marker
+   * @param markerSeverity
+   *          the severity of the marker
    * @return <code>true</code> if the marker is selected
    */
-  private boolean selectBySeverity(IMarker item) {
-    if (mSelectBySeverity) {
-      int markerSeverity = item.getAttribute(IMarker.SEVERITY, -1);
-      if (markerSeverity == IMarker.SEVERITY_ERROR) {
-        return (mSeverity & SEVERITY_ERROR) > 0;
-      } else if (markerSeverity == IMarker.SEVERITY_WARNING) {
-        return (mSeverity & SEVERITY_WARNING) > 0;
-      } else if (markerSeverity == IMarker.SEVERITY_INFO) {
-        return (mSeverity & SEVERITY_INFO) > 0;
-      }
+  private boolean selectBySeverity(int markerSeverity) {
+    if (mSelectBySeverity && markerSeverity >= IMarker.SEVERITY_INFO
+            && markerSeverity <= IMarker.SEVERITY_ERROR) {
+      // the SEVERITY_* flags are the bits of the marker severities
+      return (mSeverity & (1 << markerSeverity)) != 0;
     }
 
     return true;
@@ -539,22 +540,16 @@ public class CheckstyleMarkerFilter implements Cloneable {
   /**
    * Selects marker by matching the message against regular expressions.
    *
-   * @param item
-   *          the marker
+   * @param message
+   *          the message of the marker
    * @return <code>true</code> if the marker is selected
    */
-  private boolean selectByRegex(IMarker item) {
-
-    if (mFilterByRegex) {
-
-      int size = mFilterRegex != null ? mFilterRegex.size() : 0;
-      for (int i = 0; i < size; i++) {
-
-        String regex = mFilterRegex.get(i);
+  private boolean selectByRegex(String message) {
 
-        String message = item.getAttribute(IMarker.MESSAGE, null);
+    if (mFilterByRegex && message != null) {
 
-        if (message != null && message.matches(regex)) {
+      for (Pattern regex : getCompiledRegex()) {
+        if (regex.matcher(message).matches()) {
           return false;
         }
       }
@@ -563,6 +558,23 @@ public class CheckstyleMarkerFilter implements Cloneable {
 
   }
 
+  /**
+   * Returns the compiled regular expressions.
+   *
+   * @return the compiled regular expressions
+   */
+  private Pattern[] getCompiledRegex() {
+    if (mCompiledRegex == null) {
+      int size = mFilterRegex != null ? mFilterRegex.size() : 0;
+      Pattern[] compiled = new Pattern[size];
+      for (int i = 0; i < size; i++) {
+        compiled[i] = Pattern.compile(mFilterRegex.get(i));
+      }
+      mCompiledRegex = compiled;
+    }
+    return mCompiledRegex;
+  }
+
   /**
    * Returns the set of projects that contain the given set of resources.
    *
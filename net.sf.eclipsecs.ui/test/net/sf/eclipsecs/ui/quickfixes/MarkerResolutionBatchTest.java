@@ -0,0 +1,141 @@
+package net.sf.eclipsecs.ui.quickfixes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Position;
+import org.eclipse.text.edits.TextEdit;
+import org.junit.jupiter.api.Test;
+
+import net.sf.eclipsecs.ui.quickfixes.misc.FinalParametersQuickfix;
+import net.sf.eclipsecs.ui.quickfixes.modifier.ModifierOrderQuickfix;
+
+public class MarkerResolutionBatchTest {
+
+  private static final String INPUT = "public class A {\n"
+          + "    static final public void foo(int a, int b) {\n"
+          + "    }\n"
+          + "}";
+
+  @Test
+  public void testAdjacentFixes() throws Exception {
+    String expected = "public class A {\n"
+            + "    static final public void foo(final int a, final int b) {\n"
+            + "    }\n"
+            + "}";
+
+    testBatch(INPUT, expected,
+            new Fix(new FinalParametersQuickfix(), "int a"),
+            new Fix(new FinalParametersQuickfix(), "int b"));
+  }
+
+  @Test
+  public void testFixesOnSameMethod() throws Exception {
+    String expected = "public class A {\n"
+            + "    public static final void foo(final int a, final int b) {\n"
+            + "    }\n"
+            + "}";
+
+    BitSet modified = testBatch(INPUT, expected,
+            new Fix(new ModifierOrderQuickfix(), "static"),
+            new Fix(new FinalParametersQuickfix(), "int a"),
+            new Fix(new FinalParametersQuickfix(), "int b"));
+    assertEquals(3, modified.cardinality());
+  }
+
+  @Test
+  public void testOverlappingFixes() throws Exception {
+    String expected = "public class A {\n"
+            + "    public static final void foo(final int a, int b) {\n"
+            + "    }\n"
+            + "}";
+
+    testBatch(INPUT, expected,
+            new Fix(new ModifierOrderQuickfix(), "static"),
+            new Fix(new ModifierOrderQuickfix(), "final"),
+            new Fix(new FinalParametersQuickfix(), "int a"));
+  }
+
+  /**
+   * Applies the fixes in one batch and one after another, each on a freshly parsed AST, and checks
+   * that both lead to the expected result.
+   *
+   * @return the indices of the fixes which changed the code in the batch
+   */
+  private BitSet testBatch(String input, String expected, Fix... fixes) throws Exception {
+
+    IDocument batchDoc = new Document(input);
+    List<AbstractASTResolution> resolutions = new ArrayList<>();
+    List<Position> positions = new ArrayList<>();
+    for (Fix fix : fixes) {
+      resolutions.add(fix.resolution);
+      positions.add(new Position(fix.getOffset(batchDoc)));
+    }
+
+    BitSet modified = new BitSet();
+    TextEdit batchEdit = MarkerResolutionBatch.createEdit(parse(batchDoc), batchDoc, resolutions,
+            positions, getOptions(), modified);
+    batchEdit.apply(batchDoc);
+
+    IDocument sequentialDoc = new Document(input);
+    for (Fix fix : fixes) {
+      CompilationUnit compUnit = parse(sequentialDoc);
+      compUnit.recordModifications();
+
+      int markerStartOffset = fix.getOffset(sequentialDoc);
+      IRegion region = sequentialDoc.getLineInformationOfOffset(markerStartOffset);
+      compUnit.accept(fix.resolution.handleGetCorrectingASTVisitor(region, markerStartOffset));
+
+      compUnit.rewrite(sequentialDoc, getOptions()).apply(sequentialDoc);
+    }
+
+    assertEquals(expected, sequentialDoc.get());
+    assertEquals(sequentialDoc.get(), batchDoc.get());
+    return modified;
+  }
+
+  private CompilationUnit parse(IDocument doc) {
+    ASTParser parser = ASTParser.newParser(AST.JLS3);
+    parser.setSource(doc.get().toCharArray());
+    return (CompilationUnit) parser.createAST(new NullProgressMonitor());
+  }
+
+  private Map<String, String> getOptions() {
+    Map<String, String> options = new HashMap<>();
+    options.put(DefaultCodeFormatterConstants.FORMATTER_TAB_CHAR, JavaCore.SPACE);
+    options.put(DefaultCodeFormatterConstants.FORMATTER_TAB_SIZE, "4");
+    return options;
+  }
+
+  /**
+   * A resolution and the code its marker starts at.
+   */
+  private static class Fix {
+    final AbstractASTResolution resolution;
+
+    final String markerText;
+
+    Fix(AbstractASTResolution resolution, String markerText) {
+      this.resolution = resolution;
+      this.markerText = markerText;
+    }
+
+    int getOffset(IDocument doc) {
+      return doc.get().indexOf(markerText);
+    }
+  }
+}